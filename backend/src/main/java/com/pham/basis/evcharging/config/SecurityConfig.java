@@ -33,6 +33,8 @@ public class SecurityConfig {
         http.csrf(csrf -> csrf.disable())
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .authorizeHttpRequests(auth ->auth
+                        // role lưu trong JWT không có prefix ROLE_ nên dùng hasAuthority
+                        .requestMatchers("/admin/stations/**").hasAuthority("ADMIN")
                         .requestMatchers("/book/**").permitAll()
                         .requestMatchers("/chat/**").permitAll()
                         .requestMatchers("/api/upload/**").permitAll()
@@ -1,12 +1,19 @@
 package com.pham.basis.evcharging.controller;
 
+import com.pham.basis.evcharging.dto.request.AutoReservationRequest;
+import com.pham.basis.evcharging.dto.request.BatchReservationRequest;
 import com.pham.basis.evcharging.dto.request.ReservationRequest;
+import com.pham.basis.evcharging.dto.request.WaitlistRequest;
 import com.pham.basis.evcharging.dto.response.ApiResponse;
+import com.pham.basis.evcharging.dto.response.BatchReservationResponse;
 import com.pham.basis.evcharging.dto.response.ReservationResponse;
+import com.pham.basis.evcharging.dto.response.StationAvailabilityResponse;
+import com.pham.basis.evcharging.dto.response.WaitlistResponse;
 import com.pham.basis.evcharging.exception.AppException;
 import com.pham.basis.evcharging.model.User;
 import com.pham.basis.evcharging.service.ReservationService;
 import com.pham.basis.evcharging.service.UserService;
+import com.pham.basis.evcharging.service.WaitlistService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -22,6 +29,7 @@ public class BookingController {
 
     private final ReservationService reservationService;
     private final UserService userService;
+    private final WaitlistService waitlistService;
 
     @PostMapping("/booking")
     public ResponseEntity<ReservationResponse> booking(@Valid @RequestBody ReservationRequest request) {
@@ -29,6 +37,26 @@ public class BookingController {
         return ResponseEntity.ok(response);
     }
 
+    // không chọn connector, server tự xếp vào connector khít lịch nhất
+    @PostMapping("/auto")
+    public ResponseEntity<ReservationResponse> autoBooking(@Valid @RequestBody AutoReservationRequest request) {
+        ReservationResponse response = reservationService.createAutoReservation(request);
+        return ResponseEntity.ok(response);
+    }
+
+    // fleet: nhiều xe / connector trong một request, kết quả theo từng item
+    @PostMapping("/batch")
+    public ResponseEntity<ApiResponse<BatchReservationResponse>> batchBooking(@Valid @RequestBody BatchReservationRequest request) {
+        BatchReservationResponse response = reservationService.createReservations(request);
+        return ResponseEntity.ok(
+                ApiResponse.<BatchReservationResponse>builder()
+                        .code("200")
+                        .message(String.format("Created %d of %d reservations", response.getCreated(), response.getRequested()))
+                        .data(response)
+                        .build()
+        );
+    }
+
     @PostMapping("/{id}")
     public ResponseEntity<ReservationResponse> Plug(@PathVariable("id") Long reservationId) {
         ReservationResponse response = reservationService.updateStatus(reservationId);
@@ -59,4 +87,57 @@ public class BookingController {
         );
     }
 
+    @GetMapping("/station/{id}/availability")
+    public ResponseEntity<ApiResponse<StationAvailabilityResponse>> getStationAvailability(@PathVariable Long id) {
+        StationAvailabilityResponse response = reservationService.getStationAvailability(id);
+        return ResponseEntity.ok(
+                ApiResponse.<StationAvailabilityResponse>builder()
+                        .code("200")
+                        .message("Get station availability successfully")
+                        .data(response)
+                        .build()
+        );
+    }
+
+    // booking bị trùng lịch -> vào hàng chờ, server tự tạo reservation khi có connector trống
+    @PostMapping("/waitlist")
+    public ResponseEntity<ApiResponse<WaitlistResponse>> joinWaitlist(@Valid @RequestBody WaitlistRequest request, Principal principal) {
+        if (principal == null) {
+            throw new AppException.UnauthorizedException("Unauthorized");
+        }
+        User user = userService.findByUsername(principal.getName());
+        WaitlistResponse response = waitlistService.join(request, user);
+        return ResponseEntity.ok(
+                ApiResponse.<WaitlistResponse>builder()
+                        .code("200")
+                        .message("Joined waitlist successfully")
+                        .data(response)
+                        .build()
+        );
+    }
+
+    @GetMapping("/waitlist")
+    public ResponseEntity<ApiResponse<List<WaitlistResponse>>> getMyWaitlist(Principal principal) {
+        if (principal == null) {
+            throw new AppException.UnauthorizedException("Unauthorized");
+        }
+        User user = userService.findByUsername(principal.getName());
+        return ResponseEntity.ok(
+                ApiResponse.<List<WaitlistResponse>>builder()
+                        .code("200")
+                        .message("Get waitlist successfully")
+                        .data(waitlistService.getByUser(user.getId()))
+                        .build()
+        );
+    }
+
+    @PostMapping("/waitlist/cancel/{id}")
+    public ResponseEntity<ApiResponse<WaitlistResponse>> cancelWaitlist(@PathVariable Long id, Principal principal) {
+        if (principal == null) {
+            throw new AppException.UnauthorizedException("Unauthorized");
+        }
+        User user = userService.findByUsername(principal.getName());
+        waitlistService.cancel(id, user);
+        return ResponseEntity.ok(new ApiResponse<WaitlistResponse>("200", "Waitlist Canceled", null));
+    }
 }
@@ -1,11 +1,15 @@
 package com.pham.basis.evcharging.controller;
 
+import com.pham.basis.evcharging.dto.request.RouteSearchRequest;
 import com.pham.basis.evcharging.dto.request.StationFilterRequest;
 import com.pham.basis.evcharging.dto.request.StationRequest;
 import com.pham.basis.evcharging.dto.response.ApiResponse;
 import com.pham.basis.evcharging.dto.response.ChargingStationDetailResponse;
 import com.pham.basis.evcharging.dto.response.ChargingStationSummaryResponse;
+import com.pham.basis.evcharging.dto.response.StationClusterResponse;
+import com.pham.basis.evcharging.dto.response.StationSuggestionResponse;
 import com.pham.basis.evcharging.service.ChargingStationService;
+import com.pham.basis.evcharging.service.ConnectorStatusStreamService;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import lombok.RequiredArgsConstructor;
@@ -16,6 +20,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
@@ -28,6 +33,7 @@ public class ChargingStationController {
 
     private final ChargingStationService stationService;
     private final ChargingStationService chargingStationService;
+    private final ConnectorStatusStreamService connectorStatusStreamService;
 
     @GetMapping("/nearby")
     public ResponseEntity<Page<ChargingStationSummaryResponse>> getNearbyStations(
@@ -39,6 +45,34 @@ public class ChargingStationController {
         return ResponseEntity.ok(stations);
     }
 
+    @PostMapping("/along-route")
+    public ResponseEntity<Page<ChargingStationSummaryResponse>> getStationsAlongRoute(
+            @Valid @RequestBody RouteSearchRequest request) {
+        return ResponseEntity.ok(stationService.getStationsAlongRoute(request));
+    }
+
+    // SSE: delta trạng thái connector của các station đã đăng ký (theo id và/hoặc bbox)
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamConnectorStatus(
+            @RequestParam(required = false) List<Long> stationIds,
+            @RequestParam(required = false) String bbox) {
+        return connectorStatusStreamService.subscribe(stationIds, bbox);
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<List<StationSuggestionResponse>> suggestStations(
+            @RequestParam String q,
+            @RequestParam(required = false, defaultValue = "10") Integer limit) {
+        return ResponseEntity.ok(stationService.suggestStations(q, limit));
+    }
+
+    @GetMapping("/clusters")
+    public ResponseEntity<List<StationClusterResponse>> getClusters(
+            @RequestParam String bbox,
+            @RequestParam Integer zoom) {
+        return ResponseEntity.ok(stationService.getClusters(bbox, zoom));
+    }
+
     @GetMapping("/{stationId}")
     public ResponseEntity<ChargingStationDetailResponse> getStationDetail(
             @PathVariable @NotNull Long stationId,
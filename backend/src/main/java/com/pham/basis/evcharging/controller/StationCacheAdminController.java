@@ -0,0 +1,24 @@
+package com.pham.basis.evcharging.controller;
+
+import com.pham.basis.evcharging.service.ChargingStationService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+// số liệu nội bộ của cache, chỉ admin (SecurityConfig chặn /admin/stations/**)
+@RestController
+@RequestMapping("/admin/stations")
+@RequiredArgsConstructor
+public class StationCacheAdminController {
+
+    private final ChargingStationService stationService;
+
+    @GetMapping("/detail-cache/stats")
+    public ResponseEntity<Map<String, Object>> getDetailCacheStats() {
+        return ResponseEntity.ok(stationService.getDetailCacheStats());
+    }
+}
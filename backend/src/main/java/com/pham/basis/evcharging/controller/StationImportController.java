@@ -0,0 +1,70 @@
+package com.pham.basis.evcharging.controller;
+
+import com.pham.basis.evcharging.dto.response.ApiResponse;
+import com.pham.basis.evcharging.dto.response.StationImportReport;
+import com.pham.basis.evcharging.exception.AppException;
+import com.pham.basis.evcharging.service.StationBulkImportService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+@Slf4j
+@RestController
+@RequestMapping("/admin/stations")
+@PreAuthorize("hasRole('ADMIN')")
+@RequiredArgsConstructor
+public class StationImportController {
+
+    private final StationBulkImportService importService;
+
+    // file nhỏ qua form upload (bị giới hạn bởi spring.servlet.multipart.max-file-size, mặc định 1MB);
+    // format mặc định theo đuôi file (.csv -> csv, còn lại json)
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ApiResponse<StationImportReport>> importStations(
+            @RequestPart("file") MultipartFile file,
+            @RequestParam(required = false) String format) {
+        if (file == null || file.isEmpty()) {
+            throw new AppException.BadRequestException("Import file is required");
+        }
+        String resolved = format;
+        if (resolved == null) {
+            String name = file.getOriginalFilename();
+            resolved = name != null && name.toLowerCase().endsWith(".csv") ? "csv" : "json";
+        }
+        log.info("Importing stations from {} ({} bytes, {})", file.getOriginalFilename(), file.getSize(), resolved);
+        try (InputStream in = file.getInputStream()) {
+            StationImportReport report = importService.importStations(in, resolved);
+            return ResponseEntity.ok(new ApiResponse<>("200", "Import stations success", report));
+        } catch (IOException e) {
+            throw new AppException.BadRequestException("Cannot read import file: " + e.getMessage());
+        }
+    }
+
+    // file lớn (hàng chục nghìn station): gửi thẳng body, đọc stream không qua multipart nên không bị giới hạn kích thước upload
+    // format mặc định theo Content-Type (text/csv -> csv, còn lại json)
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_JSON_VALUE, "text/csv", MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public ResponseEntity<ApiResponse<StationImportReport>> importStationsFromBody(
+            HttpServletRequest request,
+            @RequestParam(required = false) String format) {
+        String resolved = format;
+        if (resolved == null) {
+            String contentType = request.getContentType();
+            resolved = contentType != null && contentType.toLowerCase().startsWith("text/csv") ? "csv" : "json";
+        }
+        log.info("Importing stations from request body ({} bytes, {})", request.getContentLengthLong(), resolved);
+        try (InputStream in = request.getInputStream()) {
+            StationImportReport report = importService.importStations(in, resolved);
+            return ResponseEntity.ok(new ApiResponse<>("200", "Import stations success", report));
+        } catch (IOException e) {
+            throw new AppException.BadRequestException("Cannot read import body: " + e.getMessage());
+        }
+    }
+}
@@ -8,6 +8,8 @@ import com.pham.basis.evcharging.service.ReservationService;
 import com.pham.basis.evcharging.service.UserService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -55,9 +57,18 @@ public class UserController {
         return ResponseEntity.ok(response);
     }
 
+    // frontend đọc dạng mảng, mới nhất trước; không gửi page / pageSize thì trả toàn bộ lịch sử (gồm archive)
+    // như trước, có gửi thì chỉ trả content của trang đó
     @GetMapping("/{userId}/reservations")
-    public ResponseEntity<List<ReservationResponse>> getUserReservations(@PathVariable Long userId) {
-        List<ReservationResponse> response = reservationService.getReservationsByUser(userId);
+    public ResponseEntity<List<ReservationResponse>> getUserReservations(
+            @PathVariable Long userId,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer pageSize
+    ) {
+        Pageable pageable = page == null && pageSize == null
+                ? Pageable.unpaged()
+                : PageRequest.of(page == null ? 0 : page, pageSize == null ? 50 : pageSize);
+        List<ReservationResponse> response = reservationService.getReservationsByUser(userId, pageable).getContent();
         return ResponseEntity.ok(response);
     }
 
@@ -0,0 +1,33 @@
+package com.pham.basis.evcharging.dto.request;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Đặt chỗ không chọn pillar / connector, server tự chọn connector khít lịch nhất
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AutoReservationRequest {
+    @NotNull(message = "User ID is required")
+    private Long userId;
+
+    @NotNull(message = "Station ID is required")
+    private Long stationId;
+
+    @NotBlank(message = "Connector type is required")
+    private String connectorType;
+
+    @NotNull(message = "StartTime  required")
+    private LocalDateTime startTime;
+
+    @NotNull(message = "EndTime is required")
+    private LocalDateTime endTime;
+
+    @NotNull(message = "Vehicle Id is required")
+    private Long vehicleId;
+}
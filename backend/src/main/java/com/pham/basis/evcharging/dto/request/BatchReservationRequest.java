@@ -0,0 +1,48 @@
+package com.pham.basis.evcharging.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Đặt nhiều xe / connector một lần (fleet), mỗi item giống ReservationRequest nhưng dùng chung userId
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchReservationRequest {
+    @NotNull(message = "User ID is required")
+    private Long userId;
+
+    @NotEmpty(message = "Items are required")
+    @Size(max = 100, message = "At most 100 reservations per batch")
+    private List<@Valid Item> items;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Item {
+        @NotNull(message = "Station ID is required")
+        private Long stationId;
+
+        @NotNull(message = "Pillar ID is required")
+        private Long pillarId;
+
+        @NotNull(message = "Connector ID is required")
+        private Long connectorId;
+
+        @NotNull(message = "StartTime  required")
+        private LocalDateTime startTime;
+
+        @NotNull(message = "EndTime is required")
+        private LocalDateTime endTime;
+
+        @NotNull(message = "Vehicle Id is required")
+        private Long vehicleId;
+    }
+}
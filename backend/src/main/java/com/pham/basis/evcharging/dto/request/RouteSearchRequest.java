@@ -0,0 +1,37 @@
+package com.pham.basis.evcharging.dto.request;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class RouteSearchRequest {
+    // Google encoded polyline của route
+    @NotBlank(message = "Polyline is required")
+    private String polyline;
+
+    // khoảng cách tối đa từ station tới route (km)
+    @Positive(message = "Corridor must be positive")
+    @DecimalMax(value = "50.0", message = "Corridor must be <= 50 km")
+    private Double corridor = 2.0;
+
+    // cùng bộ filter với StationFilterRequest
+    private List<String> connectors = new ArrayList<>();
+    private Boolean availableOnly = false;
+    private Double minPower;
+    private Double maxPower;
+    private Double minPrice;
+    private Double maxPrice;
+    private String search;
+
+    @PositiveOrZero(message = "Page must be positive")
+    private Integer page = 0;
+
+    @Positive(message = "Size must be positive")
+    private Integer size = 10;
+}
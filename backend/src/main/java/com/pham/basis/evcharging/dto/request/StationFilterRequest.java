@@ -4,6 +4,9 @@ import jakarta.validation.constraints.PositiveOrZero;
 import lombok.Data;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -22,6 +25,7 @@ public class StationFilterRequest {
     private Double maxPower;
     private Double minPrice;
     private Double maxPrice;
+    // distance | price | power | availability | rating | score
     private String sort = "distance";
 
     @PositiveOrZero(message = "Page must be positive")
@@ -31,4 +35,13 @@ public class StationFilterRequest {
     private Integer size = 10;
 
     private String search;
+
+    // keyset cursor từ nextCursor của trang trước, có cursor thì bỏ qua page
+    private String cursor;
+
+    // khung giờ dự kiến tới sạc (ISO, vd 2025-01-01T08:00), chỉ trả station còn connector trống trong khung này
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime startTime;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime endTime;
 }
\ No newline at end of file
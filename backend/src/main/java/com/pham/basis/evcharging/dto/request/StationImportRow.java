@@ -0,0 +1,36 @@
+package com.pham.basis.evcharging.dto.request;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Một station trong file import (cùng format với data/stations.json, id bị bỏ qua)
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class StationImportRow {
+    private String name;
+    private String address;
+    private Double latitude;
+    private Double longitude;
+    private String status;
+    private String url;
+    private List<PillarRow> pillars = new ArrayList<>();
+
+    @Data
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class PillarRow {
+        private String code;
+        private Double power;
+        private Double pricePerKwh;
+        private List<ConnectorRow> connectors = new ArrayList<>();
+    }
+
+    @Data
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class ConnectorRow {
+        private String type;
+        private String status;
+    }
+}
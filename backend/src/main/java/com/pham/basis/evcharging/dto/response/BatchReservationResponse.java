@@ -0,0 +1,29 @@
+package com.pham.basis.evcharging.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+
+import java.util.List;
+
+@Getter @Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BatchReservationResponse {
+    private Integer requested;
+    private Integer created;
+    // cùng thứ tự với items của request
+    private List<ItemResult> results;
+
+    @Getter @Setter
+    @AllArgsConstructor
+    @NoArgsConstructor
+    @Builder
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class ItemResult {
+        private Integer index;
+        private Boolean success;
+        private String error;
+        private ReservationResponse reservation;
+    }
+}
@@ -25,4 +25,6 @@ public class ChargingStationSummaryResponse {
     private Double maxPower;
     private String url;
     private List<String> connectorTypes;
+    // chỉ có ở /along-route: km tính từ đầu route tới điểm gần station nhất
+    private Double distanceAlongRoute;
 }
\ No newline at end of file
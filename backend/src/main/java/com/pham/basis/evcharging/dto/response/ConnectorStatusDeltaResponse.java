@@ -0,0 +1,14 @@
+package com.pham.basis.evcharging.dto.response;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter @Setter
+@Builder
+public class ConnectorStatusDeltaResponse {
+    private Long stationId;
+    private Long connectorId;
+    private String connectorType;
+    private String status;
+}
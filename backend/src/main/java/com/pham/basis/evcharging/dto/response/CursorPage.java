@@ -0,0 +1,21 @@
+package com.pham.basis.evcharging.dto.response;
+
+import lombok.Getter;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+/**
+ * Page kèm keyset cursor cho trang kế tiếp, null nếu đã hết dữ liệu.
+ */
+@Getter
+public class CursorPage<T> extends PageImpl<T> {
+
+    private final String nextCursor;
+
+    public CursorPage(List<T> content, Pageable pageable, long total, String nextCursor) {
+        super(content, pageable, total);
+        this.nextCursor = nextCursor;
+    }
+}
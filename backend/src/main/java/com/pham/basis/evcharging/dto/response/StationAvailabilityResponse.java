@@ -0,0 +1,43 @@
+package com.pham.basis.evcharging.dto.response;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Lưới slot trống của cả station: slots[i] = '1' nếu connector nhận booking bắt đầu ở from + i * slotMinutes
+@Getter @Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StationAvailabilityResponse {
+    private Long stationId;
+    private LocalDateTime from;
+    private Integer slotMinutes;
+    private Integer slotsPerDay;
+    private Integer days;
+    private List<PillarSlots> pillars;
+
+    @Getter @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class PillarSlots {
+        private Long id;
+        private String code;
+        private Double power;
+        private Double pricePerKwh;
+        private List<ConnectorSlots> connectors;
+    }
+
+    @Getter @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class ConnectorSlots {
+        private Long id;
+        private String type;
+        private String status;
+        private String slots;
+    }
+}
@@ -0,0 +1,17 @@
+package com.pham.basis.evcharging.dto.response;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter @Setter
+@Builder
+public class StationClusterResponse {
+    private Double latitude;
+    private Double longitude;
+    private Integer count;
+    private Integer availableConnectors;
+    private Double minPrice;
+    // chỉ có khi cluster là một station đơn lẻ
+    private Long stationId;
+}
@@ -0,0 +1,20 @@
+package com.pham.basis.evcharging.dto.response;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter @Setter
+@Builder
+public class StationImportReport {
+    private Integer stations;
+    private Integer pillars;
+    private Integer connectors;
+    private Integer skipped;
+    // tối đa vài lỗi đầu tiên, dạng "record #n: message"
+    private List<String> errors;
+    private Long elapsedMs;
+    private Double stationsPerSecond;
+}
@@ -0,0 +1,14 @@
+package com.pham.basis.evcharging.dto.response;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter @Setter
+@Builder
+public class StationSuggestionResponse {
+    private Long id;
+    private String name;
+    private String address;
+    private Double score;
+}
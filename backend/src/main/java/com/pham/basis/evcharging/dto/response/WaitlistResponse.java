@@ -0,0 +1,23 @@
+package com.pham.basis.evcharging.dto.response;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Getter @Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class WaitlistResponse {
+    private Long waitlistId;
+    private Long stationId;
+    private String stationName;
+    private String connectorType;
+    private Long vehicleId;
+    private String status; // WAITING, MATCHED, CANCELLED, EXPIRED
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+    private LocalDateTime createdAt;
+    // chỉ có khi MATCHED
+    private Long reservationId;
+}
@@ -0,0 +1,17 @@
+package com.pham.basis.evcharging.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+// Bắn ra mỗi khi Connector.status thay đổi
+@Getter
+@AllArgsConstructor
+@ToString
+public class ConnectorStatusChangedEvent {
+    private final Long stationId;
+    private final Long connectorId;
+    private final String connectorType;
+    private final String oldStatus;
+    private final String newStatus;
+}
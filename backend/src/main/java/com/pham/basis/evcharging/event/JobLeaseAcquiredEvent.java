@@ -0,0 +1,13 @@
+package com.pham.basis.evcharging.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+// Node này vừa nhận lease của một scheduled job (lúc start hoặc failover), job nên dựng lại state của nó
+@Getter
+@AllArgsConstructor
+@ToString
+public class JobLeaseAcquiredEvent {
+    private final String jobName;
+}
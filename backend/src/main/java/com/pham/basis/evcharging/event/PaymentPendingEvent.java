@@ -0,0 +1,13 @@
+package com.pham.basis.evcharging.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+// Payment vừa được tạo ở trạng thái PENDING (VNPAY / CASH)
+@Getter
+@AllArgsConstructor
+@ToString
+public class PaymentPendingEvent {
+    private final Long paymentId;
+}
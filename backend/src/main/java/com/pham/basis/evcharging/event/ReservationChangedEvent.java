@@ -0,0 +1,13 @@
+package com.pham.basis.evcharging.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+// Reservation được tạo, đổi trạng thái hoặc đổi thời gian
+@Getter
+@AllArgsConstructor
+@ToString
+public class ReservationChangedEvent {
+    private final Long reservationId;
+}
@@ -0,0 +1,15 @@
+package com.pham.basis.evcharging.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+// Nhiều reservation đổi cùng lúc (chuyển trạng thái hàng loạt), listener load lại theo lô thay vì từng id
+@Getter
+@AllArgsConstructor
+@ToString
+public class ReservationsChangedEvent {
+    private final List<Long> reservationIds;
+}
@@ -0,0 +1,13 @@
+package com.pham.basis.evcharging.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+// Station được tạo mới hoặc thay đổi pillar/connector
+@Getter
+@AllArgsConstructor
+@ToString
+public class StationChangedEvent {
+    private final Long stationId;
+}
@@ -0,0 +1,13 @@
+package com.pham.basis.evcharging.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+// Review của station được thêm / sửa / xoá
+@Getter
+@AllArgsConstructor
+@ToString
+public class StationReviewChangedEvent {
+    private final Long stationId;
+}
@@ -0,0 +1,13 @@
+package com.pham.basis.evcharging.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+// Bulk import vừa ghi thêm nhiều station, các index in-memory nên rebuild toàn bộ
+@Getter
+@AllArgsConstructor
+@ToString
+public class StationsImportedEvent {
+    private final int stationCount;
+}
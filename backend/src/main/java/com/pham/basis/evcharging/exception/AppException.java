@@ -43,4 +43,18 @@ public class AppException {
             super(message);
         }
     }
+
+    // 503 - Service Unavailable --Tạm thời chưa phục vụ được (index đang warm-up...), client thử lại sau retryAfterSeconds
+    public static class ServiceUnavailableException extends RuntimeException {
+        private final long retryAfterSeconds;
+
+        public ServiceUnavailableException(String message, long retryAfterSeconds) {
+            super(message);
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        public long getRetryAfterSeconds() {
+            return retryAfterSeconds;
+        }
+    }
 }
@@ -3,14 +3,12 @@ package com.pham.basis.evcharging.mapper;
 import com.pham.basis.evcharging.dto.response.ChargingStationDetailResponse;
 import com.pham.basis.evcharging.dto.response.ChargingStationSummaryResponse;
 import com.pham.basis.evcharging.model.ChargingStation;
+import com.pham.basis.evcharging.model.StationSummary;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.Named;
 
 import java.util.List;
-import java.util.Objects;
-import java.util.Optional;
-import java.util.stream.Collectors;
 
 @Mapper(componentModel = "spring")
 public interface StationMapper {
@@ -25,6 +23,7 @@ public interface StationMapper {
     @Mapping(target = "minPower", source = "station", qualifiedByName = "calculateMinPower")
     @Mapping(target = "maxPower", source = "station", qualifiedByName = "calculateMaxPower")
     @Mapping(target = "connectorTypes", source = "station", qualifiedByName = "extractConnectorTypes")
+    @Mapping(target = "distanceAlongRoute", ignore = true)
     ChargingStationSummaryResponse toSummaryResponse(ChargingStation station);
 
     @Mapping(target = "distance", source = "distance")
@@ -50,77 +49,49 @@ public interface StationMapper {
     ChargingStationDetailResponse toDetailResponse(ChargingStation station);
 
     // Named methods for complex mappings
+    // Đọc từ StationSummary đã tính sẵn; nếu chưa gắn thì tính một lần duyệt pillars/connectors
+    default StationSummary summaryOf(ChargingStation station) {
+        return station.getSummary() != null ? station.getSummary() : StationSummary.of(station);
+    }
+
     @Named("calculateStatus")
     default String calculateStatus(ChargingStation station) {
-        return station.getPillars().stream()
-                .flatMap(p -> Optional.ofNullable(p.getConnectors()).orElse(List.of()).stream())
-                .anyMatch(c -> c.getStatus() != null && "AVAILABLE".equalsIgnoreCase(c.getStatus()))
-                ? "Available" : "Occupied";
+        return summaryOf(station).getStatus();
     }
 
     @Named("calculateAvailableConnectors")
     default Integer calculateAvailableConnectors(ChargingStation station) {
-        return (int) station.getPillars().stream()
-                .flatMap(p -> Optional.ofNullable(p.getConnectors()).orElse(List.of()).stream())
-                .filter(c -> c.getStatus() != null && "AVAILABLE".equalsIgnoreCase(c.getStatus()))
-                .count();
+        return summaryOf(station).getAvailableConnectors();
     }
 
     @Named("calculateTotalConnectors")
     default Integer calculateTotalConnectors(ChargingStation station) {
-        return station.getPillars().stream()
-                .mapToInt(p -> Optional.ofNullable(p.getConnectors()).orElse(List.of()).size())
-                .sum();
+        return summaryOf(station).getTotalConnectors();
     }
 
     @Named("calculateMinPrice")
     default Double calculateMinPrice(ChargingStation station) {
-        return station.getPillars().stream()
-                .map(p -> p.getPricePerKwh())
-                .filter(price -> price != null)
-                .min(Double::compareTo)
-                .orElse(null);
+        return summaryOf(station).getMinPrice();
     }
 
     @Named("calculateMaxPrice")
     default Double calculateMaxPrice(ChargingStation station) {
-        if (station.getPillars() == null) return null;
-        return station.getPillars().stream()
-                .map(p -> p.getPricePerKwh())
-                .filter(price -> price != null)
-                .max(Double::compareTo)
-                .orElse(null);
+        return summaryOf(station).getMaxPrice();
     }
 
     @Named("calculateMinPower")
     default Double calculateMinPower(ChargingStation station) {
-        if (station.getPillars() == null) return null;
-        return station.getPillars().stream()
-                .map(p -> p.getPower())
-                .filter(v -> v != null)
-                .min(Double::compareTo)
-                .orElse(null);
+        return summaryOf(station).getMinPower();
     }
 
     @Named("calculateMaxPower")
     default Double calculateMaxPower(ChargingStation station) {
-        if (station.getPillars() == null) return null;
-        return station.getPillars().stream()
-                .map(p -> p.getPower())
-                .filter(v -> v != null)
-                .max(Double::compareTo)
-                .orElse(null);
+        return summaryOf(station).getMaxPower();
     }
 
     @Named("extractConnectorTypes")
     default List<String> extractConnectorTypes(ChargingStation station) {
-        if (station.getPillars() == null) return List.of();
-        return station.getPillars().stream()
-                .flatMap(p -> Optional.ofNullable(p.getConnectors()).orElse(List.of()).stream())
-                .map(c -> c.getType())
-                .filter(Objects::nonNull)
-                .distinct()
-                .collect(Collectors.toList());
+        return summaryOf(station).getConnectorTypes();
     }
     
 }
@@ -7,7 +7,9 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "charging_stations")
+@Table(name = "charging_stations", indexes = {
+        @Index(name = "idx_station_lat_lng", columnList = "latitude, longitude")
+})
 @Getter @Setter
 @NoArgsConstructor
 @AllArgsConstructor
@@ -50,6 +52,9 @@ public class ChargingStation {
     @Transient
     private Double distance; // không lưu DB, chỉ dùng để tính khoảng cách
 
+    @Transient
+    private StationSummary summary; // read model đã tính sẵn, StationMapper đọc trực tiếp
+
     // Helper method: gắn quan hệ 2 chiều
     public void addPillar(ChargerPillar pillar) {
         pillars.add(pillar);
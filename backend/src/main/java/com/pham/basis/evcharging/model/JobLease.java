@@ -0,0 +1,30 @@
+package com.pham.basis.evcharging.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Lease của scheduled job giữa các node, đọc / ghi qua JobLeaseService (JdbcTemplate), entity chỉ để tạo bảng
+@Entity
+@Table(name = "job_leases")
+@Getter @Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class JobLease {
+
+    @Id
+    @Column(name = "job_name", length = 100)
+    private String jobName;
+
+    @Column(nullable = false, length = 200)
+    private String owner;
+
+    // giờ UTC của DB
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Column(name = "renewed_at", nullable = false)
+    private LocalDateTime renewedAt;
+}
@@ -8,7 +8,9 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "payment_transactions")
+@Table(name = "payment_transactions", indexes = {
+        @Index(name = "ix_payment_transactions_created", columnList = "created_at")
+})
 @Getter @Setter
 @AllArgsConstructor
 @NoArgsConstructor
@@ -6,7 +6,10 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "reservations")
+@Table(name = "reservations", indexes = {
+        @Index(name = "ix_reservations_user_created", columnList = "user_id, created_at"),
+        @Index(name = "ix_reservations_created", columnList = "created_at")
+})
 @Getter @Setter
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,66 @@
+package com.pham.basis.evcharging.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Reservation đã kết thúc được ReservationArchiveService chuyển khỏi bảng reservations; FK giữ dạng id, không ràng buộc
+@Entity
+@Table(name = "reservations_archive", indexes = {
+        @Index(name = "ix_reservations_archive_user_created", columnList = "user_id, created_at")
+})
+@Getter @Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReservationArchive {
+
+    @Id
+    @Column(name = "reservation_id")
+    private Long id;
+
+    @Column(length = 20, nullable = false)
+    private String status;
+
+    @Column(name = "hold_fee", precision = 10, scale = 2)
+    private BigDecimal holdFee;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "start_time", nullable = false)
+    private LocalDateTime startTime;
+
+    @Column(name = "end_time", nullable = false)
+    private LocalDateTime endTime;
+
+    @Column(name = "expired_at", nullable = false)
+    private LocalDateTime expiredAt;
+
+    @Column(name = "notified_before_start")
+    private Boolean notifiedBeforeStart;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "station_id", nullable = false)
+    private Long stationId;
+
+    @Column(name = "pillar_id", nullable = false)
+    private Long pillarId;
+
+    @Column(name = "connector_id", nullable = false)
+    private Long connectorId;
+
+    @Column(name = "vehicle_id", nullable = false)
+    private Long vehicleId;
+
+    // charging session vẫn ở bảng chính, reservation_id của nó được set null khi archive
+    @Column(name = "session_id")
+    private Long sessionId;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+}
@@ -0,0 +1,109 @@
+package com.pham.basis.evcharging.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Read model tổng hợp của một station (không phải entity).
+ * Tính một lần khi duyệt pillars/connectors, sau đó cập nhật tăng dần khi connector đổi status.
+ */
+@Getter
+@AllArgsConstructor
+public class StationSummary {
+    private final Long stationId;
+    private final String status;
+    private final int availableConnectors;
+    private final int totalConnectors;
+    private final Double minPrice;
+    private final Double maxPrice;
+    private final Double minPower;
+    private final Double maxPower;
+    private final List<String> connectorTypes;
+
+    public static StationSummary of(ChargingStation station) {
+        int available = 0;
+        int total = 0;
+        Double minPrice = null, maxPrice = null, minPower = null, maxPower = null;
+        Set<String> types = new LinkedHashSet<>();
+
+        if (station.getPillars() != null) {
+            for (ChargerPillar p : station.getPillars()) {
+                Double price = p.getPricePerKwh();
+                if (price != null) {
+                    if (minPrice == null || price < minPrice) minPrice = price;
+                    if (maxPrice == null || price > maxPrice) maxPrice = price;
+                }
+                Double power = p.getPower();
+                if (power != null) {
+                    if (minPower == null || power < minPower) minPower = power;
+                    if (maxPower == null || power > maxPower) maxPower = power;
+                }
+                if (p.getConnectors() == null) continue;
+                for (Connector c : p.getConnectors()) {
+                    total++;
+                    if (isAvailable(c.getStatus())) available++;
+                    if (c.getType() != null) types.add(c.getType());
+                }
+            }
+        }
+        return new StationSummary(station.getId(), statusOf(available), available, total,
+                minPrice, maxPrice, minPower, maxPower, List.copyOf(types));
+    }
+
+    // cùng kết quả với of(station) nhưng từ projection (đọc thẳng DB, không qua entity caller đã load)
+    public static StationSummary fromRows(Long stationId, List<? extends Row> rows) {
+        int available = 0;
+        int total = 0;
+        Double minPrice = null, maxPrice = null, minPower = null, maxPower = null;
+        Set<String> types = new LinkedHashSet<>();
+
+        for (Row r : rows) {
+            Double price = r.getPricePerKwh();
+            if (price != null) {
+                if (minPrice == null || price < minPrice) minPrice = price;
+                if (maxPrice == null || price > maxPrice) maxPrice = price;
+            }
+            Double power = r.getPower();
+            if (power != null) {
+                if (minPower == null || power < minPower) minPower = power;
+                if (maxPower == null || power > maxPower) maxPower = power;
+            }
+            if (r.getConnectorId() == null) continue;
+            total++;
+            if (isAvailable(r.getStatus())) available++;
+            if (r.getType() != null) types.add(r.getType());
+        }
+        return new StationSummary(stationId, statusOf(available), available, total,
+                minPrice, maxPrice, minPower, maxPower, List.copyOf(types));
+    }
+
+    // một connector của station kèm giá / công suất của pillar chứa nó
+    public interface Row {
+        Double getPricePerKwh();
+        Double getPower();
+        Long getConnectorId();
+        String getType();
+        String getStatus();
+    }
+
+    // cập nhật khi một connector đổi status, không cần duyệt lại station
+    public StationSummary withConnectorStatusChange(String oldStatus, String newStatus) {
+        int delta = (isAvailable(newStatus) ? 1 : 0) - (isAvailable(oldStatus) ? 1 : 0);
+        if (delta == 0) return this;
+        int available = Math.max(0, Math.min(totalConnectors, availableConnectors + delta));
+        return new StationSummary(stationId, statusOf(available), available, totalConnectors,
+                minPrice, maxPrice, minPower, maxPower, connectorTypes);
+    }
+
+    public static boolean isAvailable(String connectorStatus) {
+        return connectorStatus != null && "AVAILABLE".equalsIgnoreCase(connectorStatus);
+    }
+
+    private static String statusOf(int available) {
+        return available > 0 ? "Available" : "Occupied";
+    }
+}
@@ -1,11 +1,13 @@
 package com.pham.basis.evcharging.repository;
 
 import com.pham.basis.evcharging.model.ChargerPillar;
+import com.pham.basis.evcharging.model.StationSummary;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -29,4 +31,30 @@ public interface ChargerPillarRepository extends JpaRepository<ChargerPillar, Lo
             @Param("connectorType") String connectorType,
             @Param("start") LocalDateTime start,
             @Param("end") LocalDateTime end);
+
+    @Query("SELECT p.station.id AS stationId, p.power AS power, p.pricePerKwh AS pricePerKwh FROM ChargerPillar p")
+    List<PillarIndexRow> findAllIndexRows();
+
+    @Query("SELECT p.station.id AS stationId, p.power AS power, p.pricePerKwh AS pricePerKwh FROM ChargerPillar p WHERE p.station.id = :stationId")
+    List<PillarIndexRow> findIndexRowsByStationId(@Param("stationId") Long stationId);
+
+    // phase 3 của load detail: connectors của mọi pillar thuộc các station, gắn vào pillar đã có trong persistence context
+    @Query("SELECT DISTINCT p FROM ChargerPillar p LEFT JOIN FETCH p.connectors WHERE p.station.id IN :stationIds")
+    List<ChargerPillar> fetchConnectorsByStationIdIn(@Param("stationIds") Collection<Long> stationIds);
+
+    // cho StationSummaryStore: mỗi dòng một connector (pillar chưa có connector -> connectorId null)
+    @Query("SELECT p.station.id AS stationId, p.power AS power, p.pricePerKwh AS pricePerKwh, " +
+            "c.id AS connectorId, c.type AS type, c.status AS status " +
+            "FROM ChargerPillar p LEFT JOIN p.connectors c WHERE p.station.id IN :stationIds ORDER BY p.id, c.id")
+    List<SummaryRow> findSummaryRowsByStationIdIn(@Param("stationIds") Collection<Long> stationIds);
+
+    interface SummaryRow extends StationSummary.Row {
+        Long getStationId();
+    }
+
+    interface PillarIndexRow {
+        Long getStationId();
+        Double getPower();
+        Double getPricePerKwh();
+    }
 }
@@ -22,6 +22,17 @@ public interface ChargingSessionRepository extends JpaRepository<ChargingSession
     @Query("SELECT COALESCE(SUM(s.energyCount), 0) FROM ChargingSession s")
     Double sumTotalEnergy();
 
+    // session có reservation đã archive (reservation_id bị set null): loại connector lấy qua reservations_archive.session_id
+    @Query("SELECT a.sessionId AS sessionId, c.type AS connectorType FROM ReservationArchive a " +
+            "JOIN ChargingSession s ON s.id = a.sessionId JOIN Connector c ON c.id = a.connectorId " +
+            "WHERE s.driver.id = :driverId")
+    List<ArchivedConnectorRow> findArchivedConnectorTypesByDriverId(@Param("driverId") Long driverId);
+
+    interface ArchivedConnectorRow {
+        Long getSessionId();
+        String getConnectorType();
+    }
+
     @Query("SELECT COALESCE(SUM(cs.energyCount),0) FROM ChargingSession cs " +
             "WHERE cs.station.id = :stationId AND cs.status='COMPLETED'")
     BigDecimal sumEnergyByStation(Long stationId);
@@ -1,12 +1,55 @@
 package com.pham.basis.evcharging.repository;
 
 import com.pham.basis.evcharging.model.ChargingStation;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface ChargingStationRepository extends JpaRepository<ChargingStation, Long> {
+public interface ChargingStationRepository extends JpaRepository<ChargingStation, Long>, JpaSpecificationExecutor<ChargingStation> {
     Optional<ChargingStation> findByManagerId(Long managerId);
+
+    @Query("SELECT s.id AS id, s.latitude AS latitude, s.longitude AS longitude FROM ChargingStation s")
+    List<StationCoordinates> findAllCoordinates();
+
+    @Query("SELECT s.id AS id, s.latitude AS latitude, s.longitude AS longitude FROM ChargingStation s WHERE s.id = :stationId")
+    Optional<StationCoordinates> findCoordinatesById(@Param("stationId") Long stationId);
+
+    @Query("SELECT s.id FROM ChargingStation s")
+    List<Long> findAllIds();
+
+    @Query("SELECT s.id AS id, s.name AS name, s.address AS address FROM ChargingStation s")
+    List<StationText> findAllText();
+
+    @Query("SELECT s.id AS id, s.name AS name, s.address AS address FROM ChargingStation s WHERE s.id = :stationId")
+    Optional<StationText> findTextById(@Param("stationId") Long stationId);
+
+    // phase 1 của load detail: chỉ lấy id của page
+    @Query(value = "SELECT s.id FROM ChargingStation s ORDER BY s.id",
+            countQuery = "SELECT COUNT(s) FROM ChargingStation s")
+    Page<Long> findIdPage(Pageable pageable);
+
+    // phase 2: station + pillars trong một query (connectors fetch riêng, tránh MultipleBagFetchException)
+    @Query("SELECT DISTINCT s FROM ChargingStation s LEFT JOIN FETCH s.pillars WHERE s.id IN :ids")
+    List<ChargingStation> findWithPillarsByIdIn(@Param("ids") Collection<Long> ids);
+
+    interface StationCoordinates {
+        Long getId();
+        Double getLatitude();
+        Double getLongitude();
+    }
+
+    interface StationText {
+        Long getId();
+        String getName();
+        String getAddress();
+    }
 }
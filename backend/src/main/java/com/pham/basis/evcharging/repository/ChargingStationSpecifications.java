@@ -0,0 +1,212 @@
+package com.pham.basis.evcharging.repository;
+
+import com.pham.basis.evcharging.model.ChargerPillar;
+import com.pham.basis.evcharging.model.ChargingStation;
+import com.pham.basis.evcharging.model.Connector;
+import com.pham.basis.evcharging.model.Reservation;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Specification cho query tìm station gần, toàn bộ filter chạy trong DB.
+ * Bounding box chỉ để pre-filter (dùng được index lat/lng); lọc bán kính và sắp xếp dùng haversine
+ * giống calculateDistance / StationSpatialIndex nên kết quả sát biên khớp với đường in-memory:
+ * box tính cùng công thức với StationSpatialIndex.findCandidates, và giữ station có khoảng cách làm tròn 2 chữ số <= r
+ * (tức km < r + ROUNDING_SLACK_KM) như StationSpatialIndex.distances.
+ */
+public final class ChargingStationSpecifications {
+
+    private static final double EARTH_RADIUS_KM = 6371;
+    private static final double ROUNDING_SLACK_KM = 0.005;
+    private static final double BOX_EPSILON_DEG = 1e-9;
+    // giống findOverlappingReservations
+    private static final List<String> ACTIVE_RESERVATION_STATUSES =
+            List.of("PENDING", "SCHEDULED", "VERIFYING", "VERIFIED", "PLUGGED", "CHARGING");
+
+    private ChargingStationSpecifications() {
+    }
+
+    // box bao vòng tròn trên mặt cầu R (kinh độ: asin(sin(r/R) / cosφ)); qua kinh tuyến 180 thì minLon > maxLon -> tách làm hai khoảng
+    public static Specification<ChargingStation> withinBoundingBox(double latitude, double longitude, double radiusKm) {
+        double angle = (radiusKm + ROUNDING_SLACK_KM) / EARTH_RADIUS_KM;
+        double dLat = Math.toDegrees(angle) + BOX_EPSILON_DEG;
+        double minLat = latitude - dLat;
+        double maxLat = latitude + dLat;
+        double sinRatio = Math.sin(angle) / Math.cos(Math.toRadians(latitude));
+        // vòng tròn chạm cực thì mọi kinh độ đều có thể nằm trong bán kính
+        double dLon = angle >= Math.PI / 2 || minLat <= -90 || maxLat >= 90 || sinRatio >= 1
+                ? 180 : Math.toDegrees(Math.asin(sinRatio)) + BOX_EPSILON_DEG;
+        return (root, query, cb) -> {
+            Predicate lat = cb.between(root.<Double>get("latitude"), minLat, maxLat);
+            if (dLon >= 180) return lat;
+            double minLon = normalizeLongitude(longitude - dLon);
+            double maxLon = normalizeLongitude(longitude + dLon);
+            Predicate lon = minLon <= maxLon
+                    ? cb.between(root.<Double>get("longitude"), minLon, maxLon)
+                    : cb.or(cb.ge(root.<Double>get("longitude"), minLon), cb.le(root.<Double>get("longitude"), maxLon));
+            return cb.and(lat, lon);
+        };
+    }
+
+    // haversine: round(d, 2) <= r  <=>  d < floor(r, 2) + 0.005  <=>  a < sin²(d_max / 2R), khỏi cần asin / sqrt trong SQL
+    public static Specification<ChargingStation> withinRadius(double latitude, double longitude, double radiusKm) {
+        double maxKm = Math.floor(radiusKm * 100 + 1e-9) / 100 + ROUNDING_SLACK_KM;
+        double halfAngle = maxKm / (2 * EARTH_RADIUS_KM);
+        if (halfAngle >= Math.PI / 2) return (root, query, cb) -> null;
+        double limit = Math.sin(halfAngle) * Math.sin(halfAngle);
+        return (root, query, cb) -> cb.lt(haversineTerm(root, cb, latitude, longitude), limit);
+    }
+
+    // chỉ sắp xếp ở query lấy data, query count không được có ORDER BY
+    public static Specification<ChargingStation> orderByDistance(double latitude, double longitude) {
+        return (root, query, cb) -> {
+            Class<?> resultType = query.getResultType();
+            if (resultType != Long.class && resultType != long.class) {
+                query.orderBy(
+                        cb.asc(haversineTerm(root, cb, latitude, longitude)),
+                        cb.asc(root.get("id"))
+                );
+            }
+            return null;
+        };
+    }
+
+    public static Specification<ChargingStation> nameOrAddressContains(String keyword) {
+        String pattern = "%" + escapeLike(keyword.toLowerCase(Locale.ROOT)) + "%";
+        return (root, query, cb) -> cb.or(
+                cb.like(cb.lower(root.<String>get("name")), pattern, '\\'),
+                cb.like(cb.lower(root.<String>get("address")), pattern, '\\')
+        );
+    }
+
+    public static Specification<ChargingStation> hasPillarPowerAtLeast(double minPower) {
+        return (root, query, cb) -> {
+            Subquery<Long> sq = query.subquery(Long.class);
+            Root<ChargerPillar> p = sq.from(ChargerPillar.class);
+            sq.select(p.<Long>get("id")).where(cb.equal(p.get("station"), root), cb.ge(p.<Double>get("power"), minPower));
+            return cb.exists(sq);
+        };
+    }
+
+    public static Specification<ChargingStation> hasPillarPowerAtMost(double maxPower) {
+        return (root, query, cb) -> {
+            Subquery<Long> sq = query.subquery(Long.class);
+            Root<ChargerPillar> p = sq.from(ChargerPillar.class);
+            sq.select(p.<Long>get("id")).where(cb.equal(p.get("station"), root), cb.le(p.<Double>get("power"), maxPower));
+            return cb.exists(sq);
+        };
+    }
+
+    public static Specification<ChargingStation> hasPillarPriceAtLeast(double minPrice) {
+        return (root, query, cb) -> {
+            Subquery<Long> sq = query.subquery(Long.class);
+            Root<ChargerPillar> p = sq.from(ChargerPillar.class);
+            sq.select(p.<Long>get("id")).where(cb.equal(p.get("station"), root), cb.ge(p.<Double>get("pricePerKwh"), minPrice));
+            return cb.exists(sq);
+        };
+    }
+
+    public static Specification<ChargingStation> hasPillarPriceAtMost(double maxPrice) {
+        return (root, query, cb) -> {
+            Subquery<Long> sq = query.subquery(Long.class);
+            Root<ChargerPillar> p = sq.from(ChargerPillar.class);
+            sq.select(p.<Long>get("id")).where(cb.equal(p.get("station"), root), cb.le(p.<Double>get("pricePerKwh"), maxPrice));
+            return cb.exists(sq);
+        };
+    }
+
+    public static Specification<ChargingStation> hasConnectorType(List<String> types) {
+        List<String> lowered = types.stream()
+                .filter(Objects::nonNull)
+                .map(t -> t.toLowerCase(Locale.ROOT))
+                .toList();
+        return (root, query, cb) -> {
+            Subquery<Long> sq = query.subquery(Long.class);
+            Root<Connector> c = sq.from(Connector.class);
+            sq.select(c.<Long>get("id")).where(
+                    cb.equal(c.get("pillar").get("station"), root),
+                    cb.lower(c.<String>get("type")).in(lowered)
+            );
+            return cb.exists(sq);
+        };
+    }
+
+    public static Specification<ChargingStation> hasAvailableConnector() {
+        return (root, query, cb) -> {
+            Subquery<Long> sq = query.subquery(Long.class);
+            Root<Connector> c = sq.from(Connector.class);
+            sq.select(c.<Long>get("id")).where(
+                    cb.equal(c.get("pillar").get("station"), root),
+                    cb.equal(cb.upper(c.<String>get("status")), "AVAILABLE")
+            );
+            return cb.exists(sq);
+        };
+    }
+
+    // có connector (đúng loại nếu types khác null) không bảo trì và không bị reservation nào chiếm trong [start, end)
+    public static Specification<ChargingStation> hasConnectorFreeBetween(List<String> types,
+                                                                         LocalDateTime start, LocalDateTime end) {
+        List<String> lowered = types == null ? null : types.stream()
+                .filter(Objects::nonNull)
+                .map(t -> t.toLowerCase(Locale.ROOT))
+                .toList();
+        return (root, query, cb) -> {
+            Subquery<Long> sq = query.subquery(Long.class);
+            Root<Connector> c = sq.from(Connector.class);
+
+            Subquery<Long> busy = query.subquery(Long.class);
+            Root<Reservation> r = busy.from(Reservation.class);
+            busy.select(r.<Long>get("id")).where(
+                    cb.equal(r.get("connector"), c),
+                    r.<String>get("status").in(ACTIVE_RESERVATION_STATUSES),
+                    cb.lessThan(r.<LocalDateTime>get("startTime"), end),
+                    cb.greaterThan(r.<LocalDateTime>get("endTime"), start)
+            );
+
+            List<Predicate> where = new ArrayList<>();
+            where.add(cb.equal(c.get("pillar").get("station"), root));
+            where.add(cb.notEqual(cb.upper(c.<String>get("status")), "MAINTENANCE"));
+            where.add(cb.not(cb.exists(busy)));
+            if (lowered != null && !lowered.isEmpty()) {
+                where.add(cb.lower(c.<String>get("type")).in(lowered));
+            }
+            sq.select(c.<Long>get("id")).where(where.toArray(new Predicate[0]));
+            return cb.exists(sq);
+        };
+    }
+
+    //-------------helper-------
+    // a = sin²(Δφ/2) + cos φ1 cos φ2 sin²(Δλ/2), tăng đơn điệu theo khoảng cách; sin² tuần hoàn nên tự đúng khi qua kinh tuyến 180
+    private static Expression<Double> haversineTerm(Root<ChargingStation> root, CriteriaBuilder cb,
+                                                    double latitude, double longitude) {
+        Expression<Double> lat = root.get("latitude");
+        Expression<Double> lon = root.get("longitude");
+        Expression<Double> sinDLat = cb.function("sin", Double.class, cb.prod(cb.diff(lat, latitude), Math.PI / 360));
+        Expression<Double> sinDLon = cb.function("sin", Double.class, cb.prod(cb.diff(lon, longitude), Math.PI / 360));
+        Expression<Double> cosLat = cb.function("cos", Double.class, cb.prod(lat, Math.PI / 180));
+        return cb.sum(
+                cb.prod(sinDLat, sinDLat),
+                cb.prod(cb.prod(cosLat, Math.cos(Math.toRadians(latitude))), cb.prod(sinDLon, sinDLon))
+        );
+    }
+
+    private static double normalizeLongitude(double lon) {
+        if (lon < -180) return lon + 360;
+        if (lon > 180) return lon - 360;
+        return lon;
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -2,7 +2,33 @@ package com.pham.basis.evcharging.repository;
 
 import com.pham.basis.evcharging.model.Connector;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 public interface ConnectorRepository extends JpaRepository<Connector, Long> {
 
+    @Query("SELECT c.id AS id, p.station.id AS stationId, p.id AS pillarId, c.type AS type, c.status AS status FROM Connector c JOIN c.pillar p")
+    List<ConnectorIndexRow> findAllIndexRows();
+
+    @Query("SELECT c.id AS id, p.station.id AS stationId, p.id AS pillarId, c.type AS type, c.status AS status FROM Connector c JOIN c.pillar p WHERE p.station.id = :stationId")
+    List<ConnectorIndexRow> findIndexRowsByStationId(@Param("stationId") Long stationId);
+
+    // giữ UPDLOCK trên dòng connector tới hết transaction, các booking cùng connector ở node khác phải chờ
+    @Query(value = "SELECT id FROM connectors WITH (UPDLOCK, ROWLOCK) WHERE id = :id", nativeQuery = true)
+    Optional<Long> lockForBooking(@Param("id") Long id);
+
+    @Query(value = "SELECT id FROM connectors WITH (UPDLOCK, ROWLOCK) WHERE id IN (:ids) ORDER BY id", nativeQuery = true)
+    List<Long> lockForBookingIn(@Param("ids") Collection<Long> ids);
+
+    interface ConnectorIndexRow {
+        Long getId();
+        Long getStationId();
+        Long getPillarId();
+        String getType();
+        String getStatus();
+    }
 }
@@ -9,6 +9,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
@@ -93,4 +94,21 @@ WHERE pt.status = 'SUCCESS'
     Optional<PaymentTransaction> findByReferenceIdAndTypeAndStatus(Long referenceId, String type, String status);
 
     List<PaymentTransaction> findByStatus(String status);
+
+    // cho ReservationTimerService
+    @Query("SELECT p.id AS id, p.status AS status, p.createdAt AS createdAt FROM PaymentTransaction p WHERE p.status = 'PENDING'")
+    List<TimerRow> findPendingTimerRows();
+
+    @Query("SELECT p.id AS id, p.status AS status, p.createdAt AS createdAt FROM PaymentTransaction p " +
+            "WHERE p.createdAt >= :since AND p.status = 'PENDING'")
+    List<TimerRow> findPendingTimerRowsCreatedSince(@Param("since") LocalDateTime since);
+
+    @Query("SELECT p.id AS id, p.status AS status, p.createdAt AS createdAt FROM PaymentTransaction p WHERE p.id = :id")
+    Optional<TimerRow> findTimerRowById(@Param("id") Long id);
+
+    interface TimerRow {
+        Long getId();
+        String getStatus();
+        LocalDateTime getCreatedAt();
+    }
 }
@@ -2,6 +2,8 @@ package com.pham.basis.evcharging.repository;
 
 import com.pham.basis.evcharging.model.Reservation;
 import com.pham.basis.evcharging.model.User;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import org.springframework.data.jpa.repository.Modifying;
@@ -11,6 +13,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
@@ -58,5 +61,117 @@ public interface ReservationRepository extends JpaRepository<Reservation, Long>
     );
 
     long countByUserIdAndStatusAndExpiredAtBetween(Long userId, String status, LocalDateTime start, LocalDateTime end);
-}
 
+    // cho ReservationScheduleIndex
+    @Query("SELECT r.id AS id, r.connector.id AS connectorId, r.vehicle.id AS vehicleId, r.status AS status, r.startTime AS startTime, r.endTime AS endTime " +
+            "FROM Reservation r WHERE r.status IN ('PENDING', 'SCHEDULED', 'VERIFYING', 'VERIFIED', 'PLUGGED', 'CHARGING')")
+    List<ScheduleRow> findActiveScheduleRows();
+
+    @Query("SELECT r.id AS id, r.connector.id AS connectorId, r.vehicle.id AS vehicleId, r.status AS status, r.startTime AS startTime, r.endTime AS endTime " +
+            "FROM Reservation r WHERE r.id = :id")
+    Optional<ScheduleRow> findScheduleRowById(@Param("id") Long id);
+
+    // cho ReservationTimerService
+    @Query("SELECT r.id AS id, r.status AS status, r.createdAt AS createdAt, r.startTime AS startTime, " +
+            "r.endTime AS endTime, r.notifiedBeforeStart AS notifiedBeforeStart " +
+            "FROM Reservation r WHERE r.status IN ('PENDING', 'SCHEDULED', 'VERIFYING', 'VERIFIED', 'PLUGGED', 'CHARGING')")
+    List<TimerRow> findActiveTimerRows();
+
+    @Query("SELECT r.id AS id, r.status AS status, r.createdAt AS createdAt, r.startTime AS startTime, " +
+            "r.endTime AS endTime, r.notifiedBeforeStart AS notifiedBeforeStart " +
+            "FROM Reservation r WHERE r.createdAt >= :since " +
+            "AND r.status IN ('PENDING', 'SCHEDULED', 'VERIFYING', 'VERIFIED', 'PLUGGED', 'CHARGING')")
+    List<TimerRow> findActiveTimerRowsCreatedSince(@Param("since") LocalDateTime since);
+
+    @Query("SELECT r.id AS id, r.status AS status, r.createdAt AS createdAt, r.startTime AS startTime, " +
+            "r.endTime AS endTime, r.notifiedBeforeStart AS notifiedBeforeStart " +
+            "FROM Reservation r WHERE r.id = :id")
+    Optional<TimerRow> findTimerRowById(@Param("id") Long id);
+
+    @Query("SELECT r.id AS id, r.status AS status, r.createdAt AS createdAt, r.startTime AS startTime, " +
+            "r.endTime AS endTime, r.notifiedBeforeStart AS notifiedBeforeStart " +
+            "FROM Reservation r WHERE r.id IN :ids")
+    List<TimerRow> findTimerRowsByIdIn(@Param("ids") Collection<Long> ids);
+
+    interface TimerRow {
+        Long getId();
+        String getStatus();
+        LocalDateTime getCreatedAt();
+        LocalDateTime getStartTime();
+        LocalDateTime getEndTime();
+        Boolean getNotifiedBeforeStart();
+    }
+
+    @Query("SELECT r.id AS id, r.connector.id AS connectorId, r.vehicle.id AS vehicleId, r.status AS status, r.startTime AS startTime, r.endTime AS endTime " +
+            "FROM Reservation r WHERE r.id IN :ids")
+    List<ScheduleRow> findScheduleRowsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // kiểm tra trùng lịch cho cả batch bằng một query mỗi chiều, lọc chính xác trong memory
+    @Query("SELECT r.id AS id, r.connector.id AS connectorId, r.vehicle.id AS vehicleId, r.status AS status, r.startTime AS startTime, r.endTime AS endTime " +
+            "FROM Reservation r WHERE r.connector.id IN :connectorIds " +
+            "AND r.status IN ('PENDING', 'SCHEDULED', 'VERIFYING', 'VERIFIED', 'PLUGGED', 'CHARGING') " +
+            "AND r.startTime < :to AND r.endTime > :from")
+    List<ScheduleRow> findActiveScheduleRowsByConnectorIdIn(@Param("connectorIds") Collection<Long> connectorIds,
+                                                            @Param("from") LocalDateTime from,
+                                                            @Param("to") LocalDateTime to);
+
+    @Query("SELECT r.id AS id, r.connector.id AS connectorId, r.vehicle.id AS vehicleId, r.status AS status, r.startTime AS startTime, r.endTime AS endTime " +
+            "FROM Reservation r WHERE r.vehicle.id IN :vehicleIds " +
+            "AND r.status IN ('PENDING', 'SCHEDULED', 'VERIFYING', 'VERIFIED', 'PLUGGED', 'CHARGING') " +
+            "AND r.startTime <= :to AND r.endTime >= :from")
+    List<ScheduleRow> findActiveScheduleRowsByVehicleIdIn(@Param("vehicleIds") Collection<Long> vehicleIds,
+                                                          @Param("from") LocalDateTime from,
+                                                          @Param("to") LocalDateTime to);
+
+    interface ScheduleRow {
+        Long getId();
+        Long getConnectorId();
+        Long getVehicleId();
+        String getStatus();
+        LocalDateTime getStartTime();
+        LocalDateTime getEndTime();
+    }
+
+    @Query("SELECT r.id AS id, r.status AS status, r.station.id AS stationId, r.connector.type AS connectorType " +
+            "FROM Reservation r WHERE r.id IN :ids")
+    List<ReleaseRow> findReleaseRowsByIdIn(@Param("ids") Collection<Long> ids);
+
+    interface ReleaseRow {
+        Long getId();
+        String getStatus();
+        Long getStationId();
+        String getConnectorType();
+    }
+
+    // lịch sử của user gồm cả reservations_archive, mới nhất trước
+    @Query(value = "SELECT h.reservation_id AS reservationId, h.station_id AS stationId, st.name AS stationName, " +
+            "h.pillar_id AS pillarId, h.connector_id AS connectorId, h.vehicle_id AS vehicleId, h.status AS status, " +
+            "h.hold_fee AS holdFee, h.start_time AS startTime, h.end_time AS endTime, h.created_at AS createdAt, h.expired_at AS expiredAt " +
+            "FROM (" +
+            "SELECT reservation_id, station_id, pillar_id, connector_id, vehicle_id, status, hold_fee, start_time, end_time, created_at, expired_at " +
+            "FROM reservations WHERE user_id = :userId " +
+            "UNION ALL " +
+            "SELECT reservation_id, station_id, pillar_id, connector_id, vehicle_id, status, hold_fee, start_time, end_time, created_at, expired_at " +
+            "FROM reservations_archive WHERE user_id = :userId" +
+            ") h JOIN charging_stations st ON st.station_id = h.station_id " +
+            "ORDER BY h.created_at DESC, h.reservation_id DESC",
+            countQuery = "SELECT (SELECT COUNT(*) FROM reservations WHERE user_id = :userId) + " +
+                    "(SELECT COUNT(*) FROM reservations_archive WHERE user_id = :userId)",
+            nativeQuery = true)
+    Page<HistoryRow> findHistoryByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    interface HistoryRow {
+        Long getReservationId();
+        Long getStationId();
+        String getStationName();
+        Long getPillarId();
+        Long getConnectorId();
+        Long getVehicleId();
+        String getStatus();
+        BigDecimal getHoldFee();
+        LocalDateTime getStartTime();
+        LocalDateTime getEndTime();
+        LocalDateTime getCreatedAt();
+        LocalDateTime getExpiredAt();
+    }
+}
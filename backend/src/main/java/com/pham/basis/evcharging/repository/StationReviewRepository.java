@@ -2,11 +2,26 @@ package com.pham.basis.evcharging.repository;
 
 import com.pham.basis.evcharging.model.StationReview;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface StationReviewRepository extends JpaRepository<StationReview, Long> {
     List<StationReview>  findByChargingStationIdOrderByCreatedAtDesc(Long id);
     boolean existsByChargingStation_IdAndUser_Id(Long stationId, Long userId);
     List<StationReview> findByChargingStation_Id(Long chargingStationId);
+
+    @Query("SELECT r.chargingStation.id AS stationId, AVG(r.rating * 1.0) AS average, COUNT(r) AS reviewCount FROM StationReview r GROUP BY r.chargingStation.id")
+    List<StationRatingRow> findAllRatingRows();
+
+    @Query("SELECT r.chargingStation.id AS stationId, AVG(r.rating * 1.0) AS average, COUNT(r) AS reviewCount FROM StationReview r WHERE r.chargingStation.id = :stationId GROUP BY r.chargingStation.id")
+    Optional<StationRatingRow> findRatingRowByStationId(@Param("stationId") Long stationId);
+
+    interface StationRatingRow {
+        Long getStationId();
+        Double getAverage();
+        Long getReviewCount();
+    }
 }
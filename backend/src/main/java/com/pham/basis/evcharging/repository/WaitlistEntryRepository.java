@@ -0,0 +1,53 @@
+package com.pham.basis.evcharging.repository;
+
+import com.pham.basis.evcharging.model.User;
+import com.pham.basis.evcharging.model.WaitlistEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface WaitlistEntryRepository extends JpaRepository<WaitlistEntry, Long> {
+
+    List<WaitlistEntry> findByUserIdOrderByCreatedAtDesc(Long userId);
+
+    Optional<WaitlistEntry> findByIdAndUser(Long id, User user);
+
+    boolean existsByVehicleIdAndStatus(Long vehicleId, String status);
+
+    @Query("SELECT w.id AS id, w.user.id AS userId, w.vehicle.id AS vehicleId, w.station.id AS stationId, " +
+            "w.connectorType AS connectorType, w.startTime AS startTime, w.endTime AS endTime, w.createdAt AS createdAt " +
+            "FROM WaitlistEntry w WHERE w.status = 'WAITING'")
+    List<WaiterRow> findWaiterRows();
+
+    @Query("SELECT w.id AS id, w.user.id AS userId, w.vehicle.id AS vehicleId, w.station.id AS stationId, " +
+            "w.connectorType AS connectorType, w.startTime AS startTime, w.endTime AS endTime, w.createdAt AS createdAt " +
+            "FROM WaitlistEntry w WHERE w.status = 'WAITING' AND w.startTime <= :now")
+    List<WaiterRow> findStartedWaiterRows(@Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE WaitlistEntry w SET w.status = 'EXPIRED' WHERE w.status = 'WAITING' AND w.startTime <= :now")
+    int expireStarted(@Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE WaitlistEntry w SET w.status = 'MATCHED', w.reservationId = :reservationId, w.matchedAt = :now " +
+            "WHERE w.id = :id AND w.status = 'WAITING'")
+    int markMatched(@Param("id") Long id, @Param("reservationId") Long reservationId, @Param("now") LocalDateTime now);
+
+    interface WaiterRow {
+        Long getId();
+        Long getUserId();
+        Long getVehicleId();
+        Long getStationId();
+        String getConnectorType();
+        LocalDateTime getStartTime();
+        LocalDateTime getEndTime();
+        LocalDateTime getCreatedAt();
+    }
+}
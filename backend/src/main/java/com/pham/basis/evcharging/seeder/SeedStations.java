@@ -1,25 +1,21 @@
 package com.pham.basis.evcharging.seeder;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.pham.basis.evcharging.model.ChargerPillar;
-import com.pham.basis.evcharging.model.ChargingStation;
-import com.pham.basis.evcharging.model.Connector;
+import com.pham.basis.evcharging.dto.response.StationImportReport;
 import com.pham.basis.evcharging.repository.ChargingStationRepository;
+import com.pham.basis.evcharging.service.StationBulkImportService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Component;
 
 import java.io.InputStream;
-import java.util.List;
 
 @Component
 @RequiredArgsConstructor
 public class SeedStations implements CommandLineRunner {
 
     private final ChargingStationRepository stationRepository;
-    private final ObjectMapper objectMapper;
+    private final StationBulkImportService importService;
 
     @Override
     public void run(String... args) {
@@ -37,33 +33,12 @@ public class SeedStations implements CommandLineRunner {
                 return;
             }
 
+            // stream + batch insert, id trong JSON bị bỏ qua để DB tự sinh
             try (InputStream is = resource.getInputStream()) {
-                List<ChargingStation> stations = objectMapper.readValue(is, new TypeReference<List<ChargingStation>>() {});
-                System.out.println("Loaded stations from JSON: " + stations.size());
-
-                // Fix references & clear IDs to let JPA generate them
-                for (ChargingStation s : stations) {
-                    // Null out id (in case JSON had it) to avoid identity issues
-                    try {
-                        s.setId(null);
-                    } catch (Exception ignored) {}
-
-                    if (s.getPillars() != null) {
-                        for (ChargerPillar p : s.getPillars()) {
-                            p.setId(null);
-                            p.setStation(s); // back-ref
-                            if (p.getConnectors() != null) {
-                                for (Connector c : p.getConnectors()) {
-                                    c.setId(null);
-                                    c.setPillar(p); // back-ref
-                                }
-                            }
-                        }
-                    }
-                }
-
-                stationRepository.saveAll(stations);
-                System.out.println("Seeding completed: inserted " + stations.size() + " stations.");
+                StationImportReport report = importService.importJson(is);
+                System.out.println("Seeding completed: inserted " + report.getStations() + " stations, "
+                        + report.getPillars() + " pillars, " + report.getConnectors() + " connectors in "
+                        + report.getElapsedMs() + " ms (skipped " + report.getSkipped() + ").");
             }
         } catch (Exception e) {
             System.err.println("Error during seeding:");
@@ -1,18 +1,23 @@
 package com.pham.basis.evcharging.service;
 
 
+import com.pham.basis.evcharging.dto.request.RouteSearchRequest;
 import com.pham.basis.evcharging.dto.request.StationFilterRequest;
 import com.pham.basis.evcharging.dto.request.StationRequest;
 
 import com.pham.basis.evcharging.dto.response.ChargingStationDetailResponse;
 import com.pham.basis.evcharging.dto.response.ChargingStationSummaryResponse;
+import com.pham.basis.evcharging.dto.response.StationClusterResponse;
+import com.pham.basis.evcharging.dto.response.StationSuggestionResponse;
 import org.springframework.data.domain.Page;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
+import java.util.Map;
 
 public interface ChargingStationService {
     Page<ChargingStationSummaryResponse> getNearbyStations(StationFilterRequest request);
+    Page<ChargingStationSummaryResponse> getStationsAlongRoute(RouteSearchRequest request);
     ChargingStationDetailResponse getStationDetail(Long stationId, Double latitude, Double longitude);
     Double calculateDistance(Double lat1, Double lon1, Double lat2, Double lon2);
     ChargingStationDetailResponse addStation(StationRequest request, MultipartFile file);
@@ -20,4 +25,10 @@ public interface ChargingStationService {
 
     Page<ChargingStationDetailResponse> getAllStation(Integer size, Integer page);
 
+    List<StationSuggestionResponse> suggestStations(String query, Integer limit);
+
+    List<StationClusterResponse> getClusters(String bbox, Integer zoom);
+
+    Map<String, Object> getDetailCacheStats();
+
 }
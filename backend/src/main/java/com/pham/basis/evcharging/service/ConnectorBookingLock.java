@@ -0,0 +1,86 @@
+package com.pham.basis.evcharging.service;
+
+import com.pham.basis.evcharging.exception.AppException;
+import com.pham.basis.evcharging.repository.ConnectorRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Serialize các booking trên cùng một connector, booking khác connector vẫn chạy song song.
+ * - Trong JVM: striped lock theo connector id, giữ tới khi transaction commit xong (và index đã cập nhật).
+ * - Giữa các node: claim() lấy UPDLOCK trên dòng connector, giữ tới hết transaction.
+ * Hai connector có thể trùng stripe, chỉ làm chờ thêm chứ không sai.
+ * Booking nhiều connector (batch) lấy stripe và dòng connector theo thứ tự tăng dần để không deadlock.
+ */
+@Component
+@RequiredArgsConstructor
+public class ConnectorBookingLock {
+
+    private static final int STRIPES = 256; // luỹ thừa của 2
+    private static final long WAIT_SECONDS = 5;
+
+    private final ConnectorRepository connectorRepository;
+
+    private final ReentrantLock[] stripes = createStripes();
+
+    public <T> T withConnector(Long connectorId, Supplier<T> action) {
+        return withConnectors(List.of(connectorId), action);
+    }
+
+    public <T> T withConnectors(Collection<Long> connectorIds, Supplier<T> action) {
+        TreeSet<Integer> indexes = new TreeSet<>();
+        for (Long id : connectorIds) indexes.add(stripeOf(id));
+        List<ReentrantLock> held = new ArrayList<>(indexes.size());
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(WAIT_SECONDS);
+        try {
+            for (int i : indexes) {
+                ReentrantLock lock = stripes[i];
+                if (!lock.tryLock(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                    throw new AppException.ConflictException("Connector is busy, please retry");
+                }
+                held.add(lock);
+            }
+            return action.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AppException.ConflictException("Connector is busy, please retry");
+        } finally {
+            for (int i = held.size() - 1; i >= 0; i--) held.get(i).unlock();
+        }
+    }
+
+    // phải gọi trong transaction
+    public void claim(Long connectorId) {
+        connectorRepository.lockForBooking(connectorId)
+                .orElseThrow(() -> new AppException.NotFoundException("Connector not found"));
+    }
+
+    // một câu SELECT cho cả batch, seek theo khoá chính nên dòng được lock theo id tăng dần
+    public void claimAll(Collection<Long> connectorIds) {
+        TreeSet<Long> ids = new TreeSet<>(connectorIds);
+        if (connectorRepository.lockForBookingIn(ids).size() != ids.size()) {
+            throw new AppException.NotFoundException("Connector not found");
+        }
+    }
+
+    //-------------helper-------
+    private static int stripeOf(Long connectorId) {
+        int h = Long.hashCode(connectorId);
+        h ^= (h >>> 16);
+        return h & (STRIPES - 1);
+    }
+
+    private static ReentrantLock[] createStripes() {
+        ReentrantLock[] locks = new ReentrantLock[STRIPES];
+        for (int i = 0; i < STRIPES; i++) locks[i] = new ReentrantLock();
+        return locks;
+    }
+}
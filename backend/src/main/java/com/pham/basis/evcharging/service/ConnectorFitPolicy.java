@@ -0,0 +1,41 @@
+package com.pham.basis.evcharging.service;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Chọn connector cho booking tự động theo best-fit: ưu tiên connector mà booking lấp khít nhất khoảng trống
+ * giữa reservation liền trước và liền sau, để lại ít mảnh thời gian lẻ không ai đặt được.
+ * Phía không có reservation nào tính là OPEN_GAP_MINUTES (coi như còn trống cả ngày).
+ */
+public final class ConnectorFitPolicy {
+
+    public static final long OPEN_GAP_MINUTES = 24 * 60;
+
+    private ConnectorFitPolicy() {
+    }
+
+    /**
+     * Sắp connector từ khít nhất tới kém khít nhất, bằng nhau thì giữ thứ tự ban đầu.
+     * endWithTurnover: end của booking mới đã cộng turnover, giống lúc kiểm tra trùng lịch.
+     */
+    public static List<ReservationScheduleIndex.FreeConnector> rank(List<ReservationScheduleIndex.FreeConnector> free,
+                                                                   LocalDateTime start, LocalDateTime endWithTurnover) {
+        List<ReservationScheduleIndex.FreeConnector> ranked = new ArrayList<>(free);
+        ranked.sort(Comparator.comparingLong(c -> leftoverMinutes(c, start, endWithTurnover)));
+        return ranked;
+    }
+
+    // tổng khoảng trống còn lại hai bên booking nếu đặt vào connector này
+    public static long leftoverMinutes(ReservationScheduleIndex.FreeConnector c,
+                                       LocalDateTime start, LocalDateTime endWithTurnover) {
+        long before = c.previousEnd() == null ? OPEN_GAP_MINUTES
+                : Math.max(0, ChronoUnit.MINUTES.between(c.previousEnd(), start));
+        long after = c.nextStart() == null ? OPEN_GAP_MINUTES
+                : Math.max(0, ChronoUnit.MINUTES.between(endWithTurnover, c.nextStart()));
+        return before + after;
+    }
+}
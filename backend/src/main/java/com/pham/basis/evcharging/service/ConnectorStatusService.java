@@ -0,0 +1,33 @@
+package com.pham.basis.evcharging.service;
+
+import com.pham.basis.evcharging.event.ConnectorStatusChangedEvent;
+import com.pham.basis.evcharging.model.Connector;
+import com.pham.basis.evcharging.repository.ConnectorRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.util.Objects;
+
+@Service
+@RequiredArgsConstructor
+public class ConnectorStatusService {
+    private final ConnectorRepository connectorRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Mọi thay đổi Connector.status đi qua đây để các read model được cập nhật
+    public void updateStatus(Connector connector, String status) {
+        if (connector == null) return;
+        String oldStatus = connector.getStatus();
+        connector.setStatus(status);
+        connectorRepository.save(connector);
+
+        if (!Objects.equals(oldStatus, status)) {
+            Long stationId = connector.getPillar() != null && connector.getPillar().getStation() != null
+                    ? connector.getPillar().getStation().getId()
+                    : null;
+            eventPublisher.publishEvent(new ConnectorStatusChangedEvent(
+                    stationId, connector.getId(), connector.getType(), oldStatus, status));
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.pham.basis.evcharging.service;
+
+import com.pham.basis.evcharging.dto.response.ConnectorStatusDeltaResponse;
+import com.pham.basis.evcharging.event.ConnectorStatusChangedEvent;
+import com.pham.basis.evcharging.event.StationChangedEvent;
+import com.pham.basis.evcharging.event.StationsImportedEvent;
+import com.pham.basis.evcharging.exception.AppException;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Đẩy thay đổi trạng thái connector tới client qua SSE.
+ * Client đăng ký theo danh sách station id hoặc bounding box; registry theo station
+ * nên mỗi thay đổi chỉ gửi tới subscriber của đúng station đó.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ConnectorStatusStreamService {
+
+    private static final long EMITTER_TIMEOUT_MS = 30 * 60 * 1000L;
+    private static final int MAX_STATIONS_PER_SUBSCRIPTION = 2_000;
+
+    private final StationSpatialIndex spatialIndex;
+
+    private final Map<Long, Set<Subscription>> subscribersByStation = new ConcurrentHashMap<>();
+    private final Set<Subscription> boxSubscriptions = ConcurrentHashMap.newKeySet();
+    private final Set<Subscription> allSubscriptions = ConcurrentHashMap.newKeySet();
+    // gửi ngoài thread commit transaction, client chậm không làm chậm request đổi trạng thái
+    private final ExecutorService sender = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "connector-status-sse");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * stationIds và bbox ("minLon,minLat,maxLon,maxLat") có thể dùng cùng lúc, cần ít nhất một trong hai.
+     * Với bbox, station được thêm sau này trong box cũng được đăng ký.
+     */
+    public SseEmitter subscribe(List<Long> stationIds, String bbox) {
+        double[] box = bbox == null || bbox.isBlank() ? null : parseBox(bbox);
+        // index chưa load thì collectInBox trả về rỗng, subscription sẽ không có station nào
+        if (box != null && !spatialIndex.isReady()) {
+            throw new AppException.ServiceUnavailableException("Station index is warming up, please retry", 5);
+        }
+        Set<Long> stations = new HashSet<>();
+        if (stationIds != null) stationIds.stream().filter(Objects::nonNull).forEach(stations::add);
+        // collectInBox dừng ngay khi vượt cap, không duyệt hết bbox (endpoint không cần đăng nhập)
+        boolean withinCap = stations.size() <= MAX_STATIONS_PER_SUBSCRIPTION && (box == null
+                || spatialIndex.collectInBox(box[1], box[3], box[0], box[2], stations, MAX_STATIONS_PER_SUBSCRIPTION));
+        if (stations.isEmpty() && box == null) {
+            throw new AppException.BadRequestException("stationIds or bbox is required");
+        }
+        if (!withinCap) {
+            throw new AppException.BadRequestException(
+                    "Too many stations in subscription (max " + MAX_STATIONS_PER_SUBSCRIPTION + "), zoom in or narrow the bbox");
+        }
+
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT_MS);
+        Subscription sub = new Subscription(emitter, box, ConcurrentHashMap.newKeySet());
+        emitter.onCompletion(() -> unregister(sub));
+        emitter.onTimeout(() -> unregister(sub));
+        emitter.onError(e -> unregister(sub));
+
+        allSubscriptions.add(sub);
+        if (box != null) boxSubscriptions.add(sub);
+        for (Long stationId : stations) register(sub, stationId);
+        log.debug("SSE subscription: {} stations, bbox={}", stations.size(), bbox);
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onConnectorStatusChanged(ConnectorStatusChangedEvent event) {
+        publishStatus(event.getStationId(), event.getConnectorId(), event.getConnectorType(), event.getNewStatus());
+    }
+
+    // cũng dùng cho thay đổi từ node khác mà ReadModelReconciler thấy khi poll DB
+    public void publishStatus(Long stationId, Long connectorId, String connectorType, String status) {
+        Set<Subscription> subs = subscribersByStation.get(stationId);
+        if (subs == null || subs.isEmpty()) return;
+
+        ConnectorStatusDeltaResponse delta = ConnectorStatusDeltaResponse.builder()
+                .stationId(stationId)
+                .connectorId(connectorId)
+                .connectorType(connectorType)
+                .status(status)
+                .build();
+        List<Subscription> targets = new ArrayList<>(subs);
+        sender.execute(() -> {
+            for (Subscription sub : targets) {
+                send(sub, SseEmitter.event().name("connector-status").data(delta));
+            }
+        });
+    }
+
+    // station mới nằm trong bbox của subscription nào thì đăng ký thêm
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStationChanged(StationChangedEvent event) {
+        if (boxSubscriptions.isEmpty()) return;
+        double[] p = spatialIndex.getPoint(event.getStationId());
+        if (p == null) return;
+        for (Subscription sub : boxSubscriptions) {
+            double[] box = sub.box();
+            if (p[0] >= box[1] && p[0] <= box[3] && p[1] >= box[0] && p[1] <= box[2]) {
+                register(sub, event.getStationId());
+            }
+        }
+    }
+
+    // import hàng loạt không phát StationChangedEvent từng station -> đọc lại bbox của mọi subscription (index đã rebuild trước)
+    @EventListener
+    public void onStationsImported(StationsImportedEvent event) {
+        refreshBoxes();
+    }
+
+    // đăng ký thêm station mới nằm trong bbox, gọi sau khi spatial index đã rebuild
+    public void refreshBoxes() {
+        for (Subscription sub : boxSubscriptions) {
+            double[] box = sub.box();
+            Set<Long> found = new HashSet<>();
+            spatialIndex.collectInBox(box[1], box[3], box[0], box[2], found, MAX_STATIONS_PER_SUBSCRIPTION);
+            for (Long stationId : found) {
+                if (sub.stations().size() >= MAX_STATIONS_PER_SUBSCRIPTION) break;
+                register(sub, stationId);
+            }
+        }
+    }
+
+    // giữ kết nối qua proxy và dọn subscriber đã đóng
+    // subscriber nằm ở từng node nên mọi node đều chạy, không dùng JobLeaseService
+    @Scheduled(fixedRate = 25_000)
+    public void heartbeat() {
+        if (allSubscriptions.isEmpty()) return;
+        List<Subscription> targets = new ArrayList<>(allSubscriptions);
+        sender.execute(() -> {
+            for (Subscription sub : targets) {
+                send(sub, SseEmitter.event().comment("ping"));
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+    }
+
+    //-------------helper-------
+    private void register(Subscription sub, Long stationId) {
+        if (sub.stations().add(stationId)) {
+            subscribersByStation.computeIfAbsent(stationId, k -> ConcurrentHashMap.newKeySet()).add(sub);
+        }
+    }
+
+    private void unregister(Subscription sub) {
+        if (!allSubscriptions.remove(sub)) return;
+        boxSubscriptions.remove(sub);
+        for (Long stationId : sub.stations()) {
+            subscribersByStation.computeIfPresent(stationId, (k, subs) -> {
+                subs.remove(sub);
+                return subs.isEmpty() ? null : subs;
+            });
+        }
+    }
+
+    private void send(Subscription sub, SseEmitter.SseEventBuilder event) {
+        try {
+            sub.emitter().send(event);
+        } catch (IOException | IllegalStateException e) {
+            unregister(sub);
+            sub.emitter().completeWithError(e);
+        }
+    }
+
+    private static double[] parseBox(String bbox) {
+        String[] parts = bbox.split(",");
+        if (parts.length != 4) {
+            throw new AppException.BadRequestException("bbox must be minLon,minLat,maxLon,maxLat");
+        }
+        try {
+            double[] box = new double[4];
+            for (int i = 0; i < 4; i++) box[i] = Double.parseDouble(parts[i].trim());
+            if (box[0] > box[2] || box[1] > box[3]) {
+                throw new AppException.BadRequestException("Invalid bbox: " + bbox);
+            }
+            return box;
+        } catch (NumberFormatException e) {
+            throw new AppException.BadRequestException("bbox must be minLon,minLat,maxLon,maxLat");
+        }
+    }
+
+    // so sánh theo identity (stations thay đổi nên không dùng record)
+    // box = [minLon, minLat, maxLon, maxLat], null nếu chỉ đăng ký theo station id
+    private static final class Subscription {
+        private final SseEmitter emitter;
+        private final double[] box;
+        private final Set<Long> stations;
+
+        Subscription(SseEmitter emitter, double[] box, Set<Long> stations) {
+            this.emitter = emitter;
+            this.box = box;
+            this.stations = stations;
+        }
+
+        SseEmitter emitter() {
+            return emitter;
+        }
+
+        double[] box() {
+            return box;
+        }
+
+        Set<Long> stations() {
+            return stations;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.pham.basis.evcharging.service;
+
+import java.util.*;
+
+/**
+ * Timing wheel nhiều tầng: tầng L có wheelSize slot, mỗi slot rộng wheelSize^L tick.
+ * Deadline gần nằm ở tầng 0, deadline xa nằm ở tầng cao và được hạ dần xuống khi tới gần,
+ * nên mỗi tick chỉ chạm vào các entry thật sự tới hạn (cộng phần hạ tầng, mỗi entry tối đa levels lần).
+ * Mỗi key chỉ có một deadline, schedule lại thì deadline cũ bị huỷ. Không thread-safe, caller tự đồng bộ.
+ */
+public final class HierarchicalTimingWheel<K> {
+
+    private final long tickMillis;
+    private final int wheelSize;
+    private final int levels;
+    private final long[] spans;
+    private final List<List<ArrayDeque<Entry<K>>>> wheels = new ArrayList<>();
+    // deadline vượt quá tầng cao nhất, chờ tới lượt hạ tầng của tầng cao nhất
+    private final PriorityQueue<Entry<K>> overflow = new PriorityQueue<>(Comparator.comparingLong(Entry::deadline));
+    // schedule với deadline đã qua, trả về ở lần advance kế tiếp
+    private final List<Entry<K>> expired = new ArrayList<>();
+    private final Map<K, Entry<K>> entries = new HashMap<>();
+    private long currentTick;
+
+    public HierarchicalTimingWheel(long tickMillis, int wheelSize, int levels, long startMillis) {
+        if (tickMillis <= 0 || wheelSize < 2 || levels < 1) {
+            throw new IllegalArgumentException("Invalid timing wheel configuration");
+        }
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.levels = levels;
+        this.spans = new long[levels + 1];
+        spans[0] = 1;
+        for (int l = 1; l <= levels; l++) spans[l] = Math.multiplyExact(spans[l - 1], wheelSize);
+        for (int l = 0; l < levels; l++) {
+            List<ArrayDeque<Entry<K>>> slots = new ArrayList<>(wheelSize);
+            for (int i = 0; i < wheelSize; i++) slots.add(new ArrayDeque<>());
+            wheels.add(slots);
+        }
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    // deadline làm tròn lên tick kế tiếp, không bao giờ chạy sớm hơn deadline
+    public void schedule(K key, long deadlineMillis) {
+        cancel(key);
+        long tick = Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis);
+        Entry<K> entry = new Entry<>(key, tick);
+        entries.put(key, entry);
+        place(entry, expired);
+    }
+
+    public boolean cancel(K key) {
+        Entry<K> entry = entries.remove(key);
+        if (entry == null) return false;
+        entry.cancelled = true;
+        return true;
+    }
+
+    public boolean contains(K key) {
+        return entries.containsKey(key);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Tiến tới nowMillis, trả về các key tới hạn theo thứ tự deadline (cùng tick thì không xác định).
+     * Key trả về coi như đã bị gỡ khỏi wheel.
+     */
+    public List<K> advance(long nowMillis) {
+        long target = nowMillis / tickMillis;
+        List<Entry<K>> due = new ArrayList<>(expired);
+        expired.clear();
+
+        if (entries.size() == countLive(due)) {
+            // không còn gì đang chờ trong các slot -> nhảy thẳng tới target
+            currentTick = Math.max(currentTick, target);
+        }
+        while (currentTick < target) {
+            currentTick++;
+            // hạ tầng từ cao xuống thấp, entry tới hạn đúng tick này rơi thẳng vào due
+            if (currentTick % spans[levels - 1] == 0) drainOverflow(due);
+            for (int l = levels - 1; l >= 1; l--) {
+                if (currentTick % spans[l] != 0) continue;
+                ArrayDeque<Entry<K>> slot = wheels.get(l).get((int) ((currentTick / spans[l]) % wheelSize));
+                List<Entry<K>> moving = new ArrayList<>(slot);
+                slot.clear();
+                for (Entry<K> e : moving) {
+                    if (!e.cancelled) place(e, due);
+                }
+            }
+            ArrayDeque<Entry<K>> slot = wheels.get(0).get((int) (currentTick % wheelSize));
+            due.addAll(slot);
+            slot.clear();
+            if (entries.size() == countLive(due)) {
+                currentTick = Math.max(currentTick, target);
+            }
+        }
+
+        due.sort(Comparator.comparingLong(Entry::deadline));
+        List<K> keys = new ArrayList<>(due.size());
+        for (Entry<K> e : due) {
+            if (e.cancelled) continue;
+            entries.remove(e.key());
+            keys.add(e.key());
+        }
+        return keys;
+    }
+
+    //-------------helper-------
+    private void place(Entry<K> entry, List<Entry<K>> due) {
+        long delta = entry.deadline() - currentTick;
+        if (delta <= 0) {
+            due.add(entry);
+            return;
+        }
+        for (int l = 0; l < levels; l++) {
+            if (delta < spans[l + 1]) {
+                wheels.get(l).get((int) ((entry.deadline() / spans[l]) % wheelSize)).add(entry);
+                return;
+            }
+        }
+        overflow.add(entry);
+    }
+
+    private void drainOverflow(List<Entry<K>> due) {
+        while (!overflow.isEmpty() && overflow.peek().deadline() - currentTick < spans[levels]) {
+            Entry<K> e = overflow.poll();
+            if (!e.cancelled) place(e, due);
+        }
+    }
+
+    private static <K> int countLive(List<Entry<K>> due) {
+        int n = 0;
+        for (Entry<K> e : due) if (!e.cancelled) n++;
+        return n;
+    }
+
+    private static final class Entry<K> {
+        private final K key;
+        private final long deadline;
+        private boolean cancelled;
+
+        Entry(K key, long deadline) {
+            this.key = key;
+            this.deadline = deadline;
+        }
+
+        K key() {
+            return key;
+        }
+
+        long deadline() {
+            return deadline;
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.pham.basis.evcharging.dto.request.PaymentCreateRequest;
 import com.pham.basis.evcharging.dto.request.StartChargingSessionRequest;
 import com.pham.basis.evcharging.dto.request.VoucherApplyRequest;
 import com.pham.basis.evcharging.dto.response.*;
+import com.pham.basis.evcharging.event.ReservationChangedEvent;
 import com.pham.basis.evcharging.exception.AppException;
 import com.pham.basis.evcharging.model.*;
 import com.pham.basis.evcharging.repository.*;
@@ -11,6 +12,7 @@ import com.pham.basis.evcharging.service.*;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -22,7 +24,6 @@ import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -30,7 +31,6 @@ public class ChargingSessionServiceImpl implements ChargingSessionService {
 
     private final ChargingSessionRepository sessionRepo;
     private final ChargerPillarRepository pillarRepo;
-    private final ConnectorRepository connectorRepo;
     private final UserRepository userRepo;
     private final ReservationRepository reservationRepo;
     private final VehicleRepository vehicleRepo;
@@ -38,6 +38,9 @@ public class ChargingSessionServiceImpl implements ChargingSessionService {
     private final PaymentService paymentService;
     private final LoyaltyPointService loyaltyPointService;
     private final VoucherService voucherService;
+    private final ConnectorStatusService connectorStatusService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ReservationScheduleIndex scheduleIndex;
     private static final Logger log = LoggerFactory.getLogger(ChargingSessionServiceImpl.class);
 
     @Transactional
@@ -59,6 +62,7 @@ public class ChargingSessionServiceImpl implements ChargingSessionService {
         validatePaymentMethod(request.getPaymentMethod(), driver, request.getTargetSoc(), vehicle, pillar);
 
         reservationRepo.updateStatusById(request.getReservationId(),"CHARGING");
+        eventPublisher.publishEvent(new ReservationChangedEvent(request.getReservationId()));
         ChargingSession session = ChargingSession.builder()
                 .reservation(reservation)
                 .pillar(pillar)
@@ -117,6 +121,7 @@ public class ChargingSessionServiceImpl implements ChargingSessionService {
                     session.setEndTime(LocalDateTime.now());
                     session.setUpdatedAt(LocalDateTime.now());
                     reservation.setStatus("COMPLETED");
+                    eventPublisher.publishEvent(new ReservationChangedEvent(reservation.getId()));
                 }
             }
         }
@@ -148,8 +153,7 @@ public class ChargingSessionServiceImpl implements ChargingSessionService {
 
         Reservation reservation = session.getReservation();
         if (reservation != null && reservation.getConnector() != null) {
-            reservation.getConnector().setStatus("AVAILABLE");
-            connectorRepo.save(reservation.getConnector());
+            connectorStatusService.updateStatus(reservation.getConnector(), "AVAILABLE");
 
             reservation.setStatus("COMPLETED");
             LocalDateTime now = LocalDateTime.now();
@@ -160,6 +164,7 @@ public class ChargingSessionServiceImpl implements ChargingSessionService {
             reservation.setExpiredAt(expiredTime);
 
             reservationRepo.save(reservation);
+            eventPublisher.publishEvent(new ReservationChangedEvent(reservation.getId()));
         }
 
         Vehicle vehicle = session.getVehicle();
@@ -265,17 +270,23 @@ public class ChargingSessionServiceImpl implements ChargingSessionService {
         LocalDateTime expectedEnd = LocalDateTime.now().plusMinutes(minutesNeeded);
         LocalDateTime desiredEndWithGrace = expectedEnd.plusMinutes(10);
 
-        // check overlaps
-        List<Reservation> overlaps = reservationRepo.findOverlappingReservations(
-                reservation.getConnector().getId(), reservation.getStartTime(), desiredEndWithGrace);
-        overlaps = overlaps.stream()
-                .filter(r -> !r.getId().equals(reservation.getId()))
-                .collect(Collectors.toList());
+        // check overlaps (bỏ qua chính reservation này)
+        boolean overlapping;
+        if (scheduleIndex.isReady()) {
+            overlapping = scheduleIndex.findConnectorConflict(reservation.getConnector().getId(),
+                    reservation.getStartTime(), desiredEndWithGrace, reservation.getId()).isPresent();
+        } else {
+            overlapping = reservationRepo.findOverlappingReservations(
+                            reservation.getConnector().getId(), reservation.getStartTime(), desiredEndWithGrace)
+                    .stream()
+                    .anyMatch(r -> !r.getId().equals(reservation.getId()));
+        }
 
-        if (overlaps.isEmpty()) {
+        if (!overlapping) {
             reservation.setEndTime(expectedEnd);
             reservation.setExpiredAt(desiredEndWithGrace);
             Reservation saved = reservationRepo.save(reservation);
+            eventPublisher.publishEvent(new ReservationChangedEvent(saved.getId()));
             ReservationResponse reservationResponse = ReservationResponse.builder()
                     .reservationId(saved.getId())
                     .stationId(saved.getStation().getId())
@@ -297,8 +308,15 @@ public class ChargingSessionServiceImpl implements ChargingSessionService {
         }
         //
         String connectorType = reservation.getConnector() != null ? reservation.getConnector().getType() : null;
-        List<ChargerPillar> suggestions = connectorType == null ? List.of()
-                : pillarRepo.findAvailableByStationAndConnectorTypeBetween(reservation.getStation().getId(),connectorType, reservation.getStartTime(), desiredEndWithGrace);
+        List<ChargerPillar> suggestions;
+        if (connectorType == null) {
+            suggestions = List.of();
+        } else if (scheduleIndex.isReady()) {
+            suggestions = pillarRepo.findAllById(scheduleIndex.freePillarIds(reservation.getStation().getId(),
+                    connectorType, reservation.getStartTime(), desiredEndWithGrace));
+        } else {
+            suggestions = pillarRepo.findAvailableByStationAndConnectorTypeBetween(reservation.getStation().getId(),connectorType, reservation.getStartTime(), desiredEndWithGrace);
+        }
 
         return AdjustTargetSocResponse.builder()
                 .updated(false)
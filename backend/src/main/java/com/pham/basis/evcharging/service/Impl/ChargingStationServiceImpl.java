@@ -1,44 +1,76 @@
 package com.pham.basis.evcharging.service.Impl;
 
 
+import com.pham.basis.evcharging.dto.request.RouteSearchRequest;
 import com.pham.basis.evcharging.dto.request.StationFilterRequest;
 import com.pham.basis.evcharging.dto.request.StationRequest;
 
 import com.pham.basis.evcharging.dto.response.ChargingStationDetailResponse;
 import com.pham.basis.evcharging.dto.response.ChargingStationSummaryResponse;
+import com.pham.basis.evcharging.dto.response.CursorPage;
+import com.pham.basis.evcharging.dto.response.StationClusterResponse;
+import com.pham.basis.evcharging.dto.response.StationSuggestionResponse;
+import com.pham.basis.evcharging.event.StationChangedEvent;
+import com.pham.basis.evcharging.exception.AppException;
 import com.pham.basis.evcharging.mapper.StationMapper;
 import com.pham.basis.evcharging.model.ChargerPillar;
 import com.pham.basis.evcharging.model.ChargingStation;
 import com.pham.basis.evcharging.model.Connector;
+import com.pham.basis.evcharging.repository.ChargerPillarRepository;
 import com.pham.basis.evcharging.repository.ChargingStationRepository;
+import com.pham.basis.evcharging.repository.ChargingStationSpecifications;
 import com.pham.basis.evcharging.service.ChargingStationService;
 import com.pham.basis.evcharging.service.CloudinaryService;
+import com.pham.basis.evcharging.service.ReservationScheduleIndex;
+import com.pham.basis.evcharging.service.RouteCorridorFinder;
+import com.pham.basis.evcharging.service.StationClusterIndex;
+import com.pham.basis.evcharging.service.StationDetailCache;
+import com.pham.basis.evcharging.service.StationFilterIndex;
+import com.pham.basis.evcharging.service.StationRankingEngine;
+import com.pham.basis.evcharging.service.StationSpatialIndex;
+import com.pham.basis.evcharging.service.StationSummaryStore;
+import com.pham.basis.evcharging.service.StationTextIndex;
+import com.pham.basis.evcharging.service.TopKSelector;
 import jakarta.validation.ValidationException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class ChargingStationServiceImpl implements ChargingStationService {
 
+    // ids của một trang đi vào IN (...) -> giữ xa giới hạn 2100 parameter của SQL Server
+    public static final int MAX_PAGE_SIZE = 200;
+
     private final ChargingStationRepository stationRepository;
+    private final ChargerPillarRepository pillarRepository;
     private final StationMapper stationMapper;
     private final CloudinaryService cloudinaryService;
-
+    private final StationSpatialIndex spatialIndex;
+    private final StationFilterIndex filterIndex;
+    private final StationTextIndex textIndex;
+    private final StationClusterIndex clusterIndex;
+    private final StationDetailCache detailCache;
+    private final RouteCorridorFinder routeCorridorFinder;
+    private final StationRankingEngine rankingEngine;
+    private final StationSummaryStore summaryStore;
+    private final ReservationScheduleIndex scheduleIndex;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     @Transactional(readOnly = true)
@@ -54,6 +86,14 @@ public class ChargingStationServiceImpl implements ChargingStationService {
             availableOnlyParam = request.getAvailableOnly() ? 1 : 0;
         }
 
+        // startTime/endTime đi cùng nhau
+        if ((request.getStartTime() == null) != (request.getEndTime() == null)) {
+            throw new AppException.BadRequestException("startTime and endTime must be provided together");
+        }
+        if (request.getStartTime() != null && !request.getEndTime().isAfter(request.getStartTime())) {
+            throw new AppException.BadRequestException("endTime must be after startTime");
+        }
+
         Pageable pageable = PageRequest.of(request.getPage(), request.getSize());
 
         Page<ChargingStation> page = filterStations(
@@ -67,27 +107,85 @@ public class ChargingStationServiceImpl implements ChargingStationService {
                 request.getMinPrice(),
                 request.getMaxPrice(),
                 request.getAvailableOnly(),
+                request.getStartTime(),
+                request.getEndTime(),
+                StationRankingEngine.Sort.parse(request.getSort()),
+                request.getCursor(),
                 pageable
         );
 
-        return page.map(stationMapper::toSummaryResponse);
+        summaryStore.attachAll(page.getContent());
+        Page<ChargingStationSummaryResponse> mapped = page.map(stationMapper::toSummaryResponse);
+        if (page instanceof CursorPage<ChargingStation> cursorPage) {
+            return new CursorPage<>(mapped.getContent(), pageable, mapped.getTotalElements(), cursorPage.getNextCursor());
+        }
+        return mapped;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<ChargingStationSummaryResponse> getStationsAlongRoute(RouteSearchRequest request) {
+        boolean hasSearch = request.getSearch() != null && !request.getSearch().isBlank();
+        if (!spatialIndex.isReady() || !filterIndex.isReady() || (hasSearch && !textIndex.isReady())) {
+            throw new AppException.ServiceUnavailableException("Station index is warming up, please retry", 5);
+        }
+        Pageable pageable = PageRequest.of(request.getPage(), request.getSize());
+        double corridor = request.getCorridor() == null ? 2.0 : request.getCorridor();
+
+        Map<Long, RouteCorridorFinder.RouteHit> hits = new HashMap<>();
+        for (RouteCorridorFinder.RouteHit hit : routeCorridorFinder.find(request.getPolyline(), corridor)) {
+            hits.put(hit.stationId(), hit);
+        }
+
+        Collection<Long> candidates = hits.keySet();
+        if (hasSearch) {
+            Set<Long> textMatches = textIndex.search(request.getSearch());
+            candidates = candidates.stream().filter(textMatches::contains).toList();
+        }
+        List<String> connectors = request.getConnectors() == null || request.getConnectors().isEmpty()
+                ? null : request.getConnectors();
+        List<Long> matched = filterIndex.filter(candidates, connectors, Boolean.TRUE.equals(request.getAvailableOnly()),
+                request.getMinPower(), request.getMaxPower(), request.getMinPrice(), request.getMaxPrice());
+
+        // thứ tự dọc theo route, tie-break theo id
+        Comparator<RouteCorridorFinder.RouteHit> order = Comparator
+                .comparingDouble(RouteCorridorFinder.RouteHit::alongKm)
+                .thenComparing(RouteCorridorFinder.RouteHit::stationId);
+        int offset = (int) Math.min(pageable.getOffset(), Integer.MAX_VALUE - pageable.getPageSize());
+        TopKSelector<RouteCorridorFinder.RouteHit> topK = new TopKSelector<>(offset + pageable.getPageSize(), order);
+        for (Long id : matched) topK.offer(hits.get(id));
+        List<RouteCorridorFinder.RouteHit> top = topK.sorted();
+        List<RouteCorridorFinder.RouteHit> pageHits = top.subList(Math.min(offset, top.size()), top.size());
+
+        List<NearbyHit> toLoad = pageHits.stream().map(h -> new NearbyHit(h.stationId(), h.offsetKm(), h.alongKm())).toList();
+        List<ChargingStationSummaryResponse> content = new ArrayList<>(toLoad.size());
+        List<ChargingStation> stations = loadInOrder(toLoad);
+        summaryStore.attachAll(stations);
+        for (ChargingStation s : stations) {
+            ChargingStationSummaryResponse response = stationMapper.toSummaryResponse(s);
+            response.setDistanceAlongRoute(hits.get(s.getId()).alongKm());
+            content.add(response);
+        }
+        return new PageImpl<>(content, pageable, matched.size());
     }
 
     @Override
     @Transactional(readOnly = true)
     public ChargingStationDetailResponse getStationDetail(Long stationId, Double latitude, Double longitude) {
 
-        ChargingStation station = stationRepository.findById(stationId)
-                .orElseThrow(() -> new ResponseStatusException(
-                        HttpStatus.NOT_FOUND, "Station not found with id: " + stationId
-                ));
+        ChargingStationDetailResponse response = detailCache.get(stationId, this::loadStationDetail);
 
+        // distance tính theo từng request, không nằm trong cache
         Double distance = (latitude != null && longitude != null)
-                ? calculateDistance(latitude, longitude, station.getLatitude(), station.getLongitude())
+                ? calculateDistance(latitude, longitude, response.getLatitude(), response.getLongitude())
                 : null;
+        response.setDistance(distance);
+        return response;
+    }
 
-        station.setDistance(distance);
-        return stationMapper.toDetailResponse(station, distance);
+    @Override
+    public Map<String, Object> getDetailCacheStats() {
+        return detailCache.stats();
     }
 
     @Override
@@ -133,9 +231,11 @@ public class ChargingStationServiceImpl implements ChargingStationService {
 
         // Save station (cascade will save pillars and connectors)
         ChargingStation savedStation = stationRepository.save(station);
+        spatialIndex.index(savedStation);
+        eventPublisher.publishEvent(new StationChangedEvent(savedStation.getId()));
 
         // Convert to DTO using mapper (without distance parameter)
-        return stationMapper.toDetailResponse(savedStation);
+        return stationMapper.toDetailResponse(summaryStore.attach(savedStation));
     }
 
     @Override
@@ -184,18 +284,102 @@ public class ChargingStationServiceImpl implements ChargingStationService {
         }
 
         ChargingStation saved = stationRepository.save(station);
-        return stationMapper.toDetailResponse(saved);
+        spatialIndex.index(saved);
+        eventPublisher.publishEvent(new StationChangedEvent(saved.getId()));
+        return stationMapper.toDetailResponse(summaryStore.attach(saved));
     }
 
     @Override
     @Transactional(readOnly = true)
     public Page<ChargingStationDetailResponse> getAllStation(Integer size, Integer page) {
-        Pageable pageable = PageRequest.of(page, size);
-        Page<ChargingStation> stations = stationRepository.findAll(pageable);
-        return stations.map(stationMapper::toDetailResponse);
+        Pageable pageable = PageRequest.of(page, Math.min(size, MAX_PAGE_SIZE));
+        Page<Long> ids = stationRepository.findIdPage(pageable);
+        List<ChargingStation> stations = fetchWithPillarsAndConnectors(ids.getContent());
+        summaryStore.attachAll(stations);
+        List<ChargingStationDetailResponse> content = stations.stream()
+                .map(stationMapper::toDetailResponse)
+                .toList();
+        return new PageImpl<>(content, pageable, ids.getTotalElements());
+    }
+
+    @Override
+    public List<StationSuggestionResponse> suggestStations(String query, Integer limit) {
+        int max = (limit == null || limit <= 0) ? 10 : Math.min(limit, 50);
+        return textIndex.suggest(query, max).stream()
+                .map(s -> StationSuggestionResponse.builder()
+                        .id(s.getStationId())
+                        .name(s.getName())
+                        .address(s.getAddress())
+                        .score(s.getScore())
+                        .build())
+                .toList();
+    }
+
+    // bbox = "minLon,minLat,maxLon,maxLat"
+    @Override
+    public List<StationClusterResponse> getClusters(String bbox, Integer zoom) {
+        if (bbox == null || zoom == null) {
+            throw new AppException.BadRequestException("bbox and zoom are required");
+        }
+        String[] parts = bbox.split(",");
+        if (parts.length != 4) {
+            throw new AppException.BadRequestException("bbox must be minLon,minLat,maxLon,maxLat");
+        }
+        double minLon, minLat, maxLon, maxLat;
+        try {
+            minLon = Double.parseDouble(parts[0].trim());
+            minLat = Double.parseDouble(parts[1].trim());
+            maxLon = Double.parseDouble(parts[2].trim());
+            maxLat = Double.parseDouble(parts[3].trim());
+        } catch (NumberFormatException e) {
+            throw new AppException.BadRequestException("bbox must be minLon,minLat,maxLon,maxLat");
+        }
+        if (minLat > maxLat || minLat < -90 || maxLat > 90 || minLon < -180 || maxLon > 180) {
+            throw new AppException.BadRequestException("Invalid bbox: " + bbox);
+        }
+        if (!clusterIndex.isReady()) {
+            throw new AppException.ServiceUnavailableException("Cluster index is warming up, please retry", 5);
+        }
+
+        return clusterIndex.clusters(minLat, minLon, maxLat, maxLon, zoom).stream()
+                .map(c -> StationClusterResponse.builder()
+                        .latitude(c.getLatitude())
+                        .longitude(c.getLongitude())
+                        .count(c.getCount())
+                        .availableConnectors(c.getAvailableConnectors())
+                        .minPrice(c.getMinPrice())
+                        .stationId(c.getStationId())
+                        .build())
+                .toList();
     }
 
     //-------------helper-------
+    private ChargingStationDetailResponse loadStationDetail(Long stationId) {
+        ChargingStation station = fetchWithPillarsAndConnectors(List.of(stationId)).stream()
+                .findFirst()
+                .orElseThrow(() -> new ResponseStatusException(
+                        HttpStatus.NOT_FOUND, "Station not found with id: " + stationId
+                ));
+        return stationMapper.toDetailResponse(summaryStore.attach(station), null);
+    }
+
+    // station + pillars + connectors trong 2 query bất kể số station, giữ thứ tự của ids
+    private List<ChargingStation> fetchWithPillarsAndConnectors(List<Long> ids) {
+        if (ids.isEmpty()) return Collections.emptyList();
+        List<ChargingStation> stations = stationRepository.findWithPillarsByIdIn(ids);
+        if (stations.stream().anyMatch(s -> !s.getPillars().isEmpty())) {
+            pillarRepository.fetchConnectorsByStationIdIn(ids);
+        }
+        Map<Long, ChargingStation> byId = new HashMap<>();
+        for (ChargingStation s : stations) byId.put(s.getId(), s);
+        List<ChargingStation> ordered = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            ChargingStation s = byId.get(id);
+            if (s != null) ordered.add(s);
+        }
+        return ordered;
+    }
+
     private void validatePillarRequest(StationRequest.PillarRequest pillarReq) {
         if (pillarReq.getCode() == null || pillarReq.getCode().trim().isEmpty()) {
             throw new ValidationException("Pillar code is required");
@@ -244,7 +428,9 @@ public class ChargingStationServiceImpl implements ChargingStationService {
         return Math.round(R * c * 100.0) / 100.0;
     }
 
-    //
+    // Index đã warm -> lọc trong memory; ngược lại toàn bộ filter, phân trang và count chạy trong DB
+    // (sort và cursor chỉ áp dụng cho đường in-memory, DB fallback luôn sắp theo khoảng cách và phân trang theo page)
+    // freeFrom/freeUntil khác null -> chỉ giữ station có connector (đúng loại trong connectors) trống trong khung giờ đó
     public Page<ChargingStation> filterStations(
             Double latitude, Double longitude, Double radiusKm,
             String search,
@@ -252,85 +438,157 @@ public class ChargingStationServiceImpl implements ChargingStationService {
             Double minPower, Double maxPower,
             Double minPrice, Double maxPrice,
             Boolean availableOnly,
+            LocalDateTime freeFrom, LocalDateTime freeUntil,
+            StationRankingEngine.Sort sort,
+            String cursor,
             Pageable pageable
     ) {
-        List<ChargingStation> all = stationRepository.findAll();
-        Stream<ChargingStation> stream = all.stream();
+        boolean hasLocation = latitude != null && longitude != null;
+        boolean hasWindow = freeFrom != null && freeUntil != null;
+        boolean hasSearch = search != null && !search.isBlank();
+
+        if (hasLocation && spatialIndex.isReady() && filterIndex.isReady()
+                && (!hasWindow || scheduleIndex.isReady()) && (!hasSearch || textIndex.isReady())) {
+            return filterInMemory(latitude, longitude, radiusKm, search, connectors,
+                    minPower, maxPower, minPrice, maxPrice, availableOnly, freeFrom, freeUntil, sort, cursor, pageable);
+        }
+
+        // không có station nào trong vùng -> khỏi query DB
+        if (hasLocation && radiusKm != null && spatialIndex.isReady()
+                && spatialIndex.findCandidates(latitude, longitude, radiusKm).isEmpty()) {
+            return new PageImpl<>(Collections.emptyList(), pageable, 0);
+        }
 
-        // search name/address
+        List<Specification<ChargingStation>> specs = new ArrayList<>();
+        if (hasLocation && radiusKm != null) {
+            specs.add(ChargingStationSpecifications.withinBoundingBox(latitude, longitude, radiusKm));
+            specs.add(ChargingStationSpecifications.withinRadius(latitude, longitude, radiusKm));
+        }
         if (search != null && !search.isBlank()) {
-            String keyword = search.toLowerCase(Locale.ROOT);
-            stream = stream.filter(s ->
-                    (s.getName() != null && s.getName().toLowerCase(Locale.ROOT).contains(keyword))
-                            || (s.getAddress() != null && s.getAddress().toLowerCase(Locale.ROOT).contains(keyword))
-            );
+            specs.add(ChargingStationSpecifications.nameOrAddressContains(search.trim()));
+        }
+        if (minPower != null) specs.add(ChargingStationSpecifications.hasPillarPowerAtLeast(minPower));
+        if (maxPower != null) specs.add(ChargingStationSpecifications.hasPillarPowerAtMost(maxPower));
+        if (minPrice != null) specs.add(ChargingStationSpecifications.hasPillarPriceAtLeast(minPrice));
+        if (maxPrice != null) specs.add(ChargingStationSpecifications.hasPillarPriceAtMost(maxPrice));
+        if (connectors != null && !connectors.isEmpty()) {
+            specs.add(ChargingStationSpecifications.hasConnectorType(connectors));
+        }
+        if (availableOnly != null && availableOnly) {
+            specs.add(ChargingStationSpecifications.hasAvailableConnector());
+        }
+        if (hasWindow) {
+            specs.add(ChargingStationSpecifications.hasConnectorFreeBetween(connectors, freeFrom,
+                    freeUntil.plusMinutes(ReservationScheduleIndex.TURNOVER_MINUTES)));
+        }
+        if (hasLocation) {
+            specs.add(ChargingStationSpecifications.orderByDistance(latitude, longitude));
         }
 
-        // power
-        if (minPower != null) stream = stream.filter(s ->
-                s.getPillars().stream().anyMatch(p -> p.getPower() != null && p.getPower() >= minPower)
-        );
-        if (maxPower != null) stream = stream.filter(s ->
-                s.getPillars().stream().anyMatch(p -> p.getPower() != null && p.getPower() <= maxPower)
-        );
+        Page<ChargingStation> page = stationRepository.findAll(Specification.allOf(specs), pageable);
 
-        // price
-        if (minPrice != null) stream = stream.filter(s ->
-                s.getPillars().stream().anyMatch(p -> p.getPricePerKwh() != null && p.getPricePerKwh() >= minPrice)
-        );
-        if (maxPrice != null) stream = stream.filter(s ->
-                s.getPillars().stream().anyMatch(p -> p.getPricePerKwh() != null && p.getPricePerKwh() <= maxPrice)
-        );
+        if (hasLocation) {
+            for (ChargingStation s : page.getContent()) {
+                s.setDistance(calculateDistance(latitude, longitude, s.getLatitude(), s.getLongitude()));
+            }
+        }
+        return page;
+    }
 
-        // connectors
-        if (connectors != null && !connectors.isEmpty()) {
-            List<String> connectorList = connectors.stream()
-                    .filter(Objects::nonNull)
-                    .map(String::toLowerCase)
-                    .toList();
+    private Page<ChargingStation> filterInMemory(
+            double latitude, double longitude, Double radiusKm,
+            String search,
+            List<String> connectors,
+            Double minPower, Double maxPower,
+            Double minPrice, Double maxPrice,
+            Boolean availableOnly,
+            LocalDateTime freeFrom, LocalDateTime freeUntil,
+            StationRankingEngine.Sort sort,
+            String cursor,
+            Pageable pageable
+    ) {
+        List<Long> candidates = radiusKm != null
+                ? spatialIndex.findCandidates(latitude, longitude, radiusKm)
+                : filterIndex.allStationIds();
 
-            stream = stream.filter(s ->
-                    s.getPillars().stream()
-                            .flatMap(p -> Optional.ofNullable(p.getConnectors()).orElse(List.of()).stream())
-                            .anyMatch(c -> c.getType() != null && connectorList.contains(c.getType().toLowerCase()))
-            );
+        // search: giao với kết quả của trigram index (bỏ dấu), thứ tự vẫn theo khoảng cách
+        if (search != null && !search.isBlank()) {
+            Set<Long> textMatches = textIndex.search(search);
+            candidates = candidates.stream().filter(textMatches::contains).toList();
         }
 
-        // availableOnly
-        if (availableOnly != null && availableOnly) {
-            stream = stream.filter(s ->
-                    s.getPillars().stream()
-                            .flatMap(p -> Optional.ofNullable(p.getConnectors()).orElse(List.of()).stream())
-                            .anyMatch(c -> c.getStatus() != null && "AVAILABLE".equalsIgnoreCase(c.getStatus()))
-            );
-        }
+        List<Long> matched = filterIndex.filter(candidates, connectors, Boolean.TRUE.equals(availableOnly),
+                minPower, maxPower, minPrice, maxPrice);
 
-        // compute distance and filter by radius
-        List<ChargingStation> filtered = stream.collect(Collectors.toList());
+        // khung giờ: kiểm tra interval theo từng connector, làm sau cùng vì tốn nhất
+        if (freeFrom != null && freeUntil != null) {
+            matched = scheduleIndex.filterFree(matched, connectors, freeFrom, freeUntil);
+        }
 
-        if (latitude != null && longitude != null) {
-            for (ChargingStation s : filtered) {
-                Double dist = calculateDistance(latitude, longitude, s.getLatitude(), s.getLongitude());
-                s.setDistance(dist);
-            }
+        // có cursor -> chỉ lấy các station đứng sau (sort key, id) của cursor, bỏ qua offset
+        NearbyHit after = decodeCursor(cursor);
+        int offset = after == null ? (int) Math.min(pageable.getOffset(), Integer.MAX_VALUE - pageable.getPageSize()) : 0;
+        TopKSelector<NearbyHit> topK = new TopKSelector<>(offset + pageable.getPageSize(), NEARBY_ORDER);
+
+        StationSpatialIndex.Distances distances = spatialIndex.distances(latitude, longitude, matched, radiusKm);
+        int total = distances.count();
+        double[] keys = rankingEngine.keys(sort, distances.ids(), distances.km(), total);
+        int remaining = 0;
+        for (int i = 0; i < total; i++) {
+            NearbyHit hit = new NearbyHit(distances.ids()[i], distances.km()[i], keys[i]);
+            if (after != null && NEARBY_ORDER.compare(hit, after) <= 0) continue;
+            remaining++;
+            topK.offer(hit);
+        }
 
-            if (radiusKm != null) {
-                filtered = filtered.stream()
-                        .filter(s -> s.getDistance() != null && s.getDistance() <= radiusKm)
-                        .collect(Collectors.toList());
-            }
+        List<NearbyHit> top = topK.sorted();
+        List<NearbyHit> pageHits = top.subList(Math.min(offset, top.size()), top.size());
 
-            // sort by distance asc
-            filtered.sort(Comparator.comparing(ChargingStation::getDistance, Comparator.nullsLast(Double::compareTo)));
+        String nextCursor = null;
+        if (!pageHits.isEmpty() && offset + pageHits.size() < remaining) {
+            nextCursor = encodeCursor(pageHits.get(pageHits.size() - 1));
         }
 
-        // pagination
-        int total = filtered.size();
-        int start = (int) pageable.getOffset();
-        int end = Math.min(start + pageable.getPageSize(), total);
-        List<ChargingStation> pageContent = start <= end ? filtered.subList(start, end) : Collections.emptyList();
+        // chỉ load entity của page hiện tại
+        return new CursorPage<>(loadInOrder(pageHits), pageable, total, nextCursor);
+    }
+
+    // sort key tăng dần, cùng key thì theo id để thứ tự luôn xác định
+    private static final Comparator<NearbyHit> NEARBY_ORDER =
+            Comparator.comparingDouble(NearbyHit::key).thenComparing(NearbyHit::id);
 
-        return new PageImpl<>(pageContent, pageable, total);
+    private record NearbyHit(Long id, double distance, double key) {
+    }
+
+    // cursor dạng "<sortKey>_<stationId>"
+    private static String encodeCursor(NearbyHit hit) {
+        return hit.key() + "_" + hit.id();
     }
-}
 
+    private static NearbyHit decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) return null;
+        int sep = cursor.lastIndexOf('_');
+        try {
+            if (sep <= 0) throw new NumberFormatException();
+            return new NearbyHit(Long.parseLong(cursor.substring(sep + 1)), Double.NaN, Double.parseDouble(cursor.substring(0, sep)));
+        } catch (NumberFormatException e) {
+            throw new AppException.BadRequestException("Invalid cursor: " + cursor);
+        }
+    }
+
+    private List<ChargingStation> loadInOrder(List<NearbyHit> hits) {
+        if (hits.isEmpty()) return Collections.emptyList();
+        Map<Long, ChargingStation> byId = new HashMap<>();
+        for (ChargingStation s : stationRepository.findAllById(hits.stream().map(NearbyHit::id).toList())) {
+            byId.put(s.getId(), s);
+        }
+        List<ChargingStation> result = new ArrayList<>(hits.size());
+        for (NearbyHit hit : hits) {
+            ChargingStation s = byId.get(hit.id());
+            if (s == null) continue;
+            s.setDistance(hit.distance());
+            result.add(s);
+        }
+        return result;
+    }
+}
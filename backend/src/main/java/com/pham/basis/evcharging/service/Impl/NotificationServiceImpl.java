@@ -8,8 +8,10 @@ import com.pham.basis.evcharging.repository.NotificationRepository;
 import com.pham.basis.evcharging.repository.UserRepository;
 import com.pham.basis.evcharging.service.NotificationService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.Comparator;
 import java.util.List;
@@ -19,6 +21,9 @@ import java.util.List;
 public class NotificationServiceImpl implements NotificationService {
     private final NotificationRepository notificationRepository;
     private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    private static final int INSERT_BATCH = 1_000;
 
 
     @Override
@@ -37,6 +42,20 @@ public class NotificationServiceImpl implements NotificationService {
         return notification;
     }
 
+    @Override
+    public void createNotifications(String type, List<Draft> drafts) {
+        if (drafts.isEmpty()) return;
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO notifications (type, message, is_read, created_at, user_id) VALUES (?, ?, 0, ?, ?)",
+                drafts, INSERT_BATCH, (ps, d) -> {
+                    ps.setString(1, type);
+                    ps.setString(2, d.message());
+                    ps.setTimestamp(3, now);
+                    ps.setLong(4, d.userId());
+                });
+    }
+
     @Override
     public List<NotificationResponse> getNotification(Long userId) {
         User user = userRepository.findById(userId)
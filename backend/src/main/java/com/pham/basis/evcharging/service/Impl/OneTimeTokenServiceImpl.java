@@ -2,6 +2,7 @@ package com.pham.basis.evcharging.service.Impl;
 
 import com.pham.basis.evcharging.dto.response.OneTimeTokenResponse;
 import com.pham.basis.evcharging.dto.response.VerifyTokenResponse;
+import com.pham.basis.evcharging.event.ReservationChangedEvent;
 import com.pham.basis.evcharging.exception.AppException;
 import com.pham.basis.evcharging.model.OneTimeToken;
 import com.pham.basis.evcharging.model.Reservation;
@@ -11,6 +12,7 @@ import com.pham.basis.evcharging.repository.ReservationRepository;
 import com.pham.basis.evcharging.repository.UserRepository;
 import com.pham.basis.evcharging.service.OneTimeTokenService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -24,6 +26,7 @@ public class OneTimeTokenServiceImpl implements OneTimeTokenService {
     private final OneTimeTokenRepository tokenRepo;
     private final ReservationRepository reservationRepo;
     private final UserRepository userRepo;
+    private final ApplicationEventPublisher eventPublisher;
 
     // EMINUTES for token
     private static final int EMINUTES = 5;
@@ -106,6 +109,7 @@ public class OneTimeTokenServiceImpl implements OneTimeTokenService {
 
         reservation.setStatus("VERIFIED");
         reservationRepo.save(reservation);
+        eventPublisher.publishEvent(new ReservationChangedEvent(reservation.getId()));
 
         VerifyTokenResponse resp = VerifyTokenResponse.builder()
                 .reservationId(reservation.getId())
@@ -5,6 +5,8 @@ import com.pham.basis.evcharging.dto.request.PaymentCreateRequest;
 import com.pham.basis.evcharging.dto.response.PaymentResponse;
 import com.pham.basis.evcharging.dto.response.PaymentResultResponse;
 import com.pham.basis.evcharging.dto.response.PaymentTransactionResponse;
+import com.pham.basis.evcharging.event.PaymentPendingEvent;
+import com.pham.basis.evcharging.event.ReservationChangedEvent;
 import com.pham.basis.evcharging.exception.AppException;
 import com.pham.basis.evcharging.mapper.PaymentTransactionMapper;
 import com.pham.basis.evcharging.model.*;
@@ -19,6 +21,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
@@ -51,6 +54,7 @@ public class PaymentServiceImpl implements PaymentService {
     private final LoyaltyPointService loyaltyPointService;
     private final VoucherService voucherService;
     private final PaymentTransactionMapper mapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     private static final int MAX_TXN_REF_GENERATION_ATTEMPTS = 10;
 
@@ -172,6 +176,7 @@ public class PaymentServiceImpl implements PaymentService {
         PaymentTransaction tx = createPaymentTransaction(req, userId, amountInVND, txnRef);
         tx.setStatus("PENDING");
         txRepo.save(tx);
+        eventPublisher.publishEvent(new PaymentPendingEvent(tx.getId()));
         log.info("Created VNPAY payment transaction: {}", txnRef);
 
         // Build VNPay URL
@@ -239,6 +244,7 @@ public class PaymentServiceImpl implements PaymentService {
         PaymentTransaction tx = createPaymentTransaction(req, userId, amountInVND, txnRef);
         tx.setStatus("PENDING");
         txRepo.save(tx);
+        eventPublisher.publishEvent(new PaymentPendingEvent(tx.getId()));
 
         //
         notificationService.createNotification(
@@ -541,6 +547,7 @@ public class PaymentServiceImpl implements PaymentService {
         reservationRepo.updateStatusById(tx.getReferenceId(),"SCHEDULED");
         //noti
         reservationRepo.updateStatusById(tx.getReferenceId(), "SCHEDULED");
+        eventPublisher.publishEvent(new ReservationChangedEvent(tx.getReferenceId()));
         notificationService.createNotification(
                 tx.getUser().getId(),
                 "PAYMENT",
@@ -594,6 +601,7 @@ public class PaymentServiceImpl implements PaymentService {
         }
         if (changed) {
             reservationRepo.save(res);
+            eventPublisher.publishEvent(new ReservationChangedEvent(res.getId()));
             //noti
             notificationService.createNotification(
                     tx.getUser().getId(),
@@ -1,24 +1,40 @@
 package com.pham.basis.evcharging.service.Impl;
 
+import com.pham.basis.evcharging.dto.request.AutoReservationRequest;
+import com.pham.basis.evcharging.dto.request.BatchReservationRequest;
 import com.pham.basis.evcharging.dto.request.ReservationRequest;
+import com.pham.basis.evcharging.dto.response.BatchReservationResponse;
+import com.pham.basis.evcharging.dto.response.ChargingStationDetailResponse;
 import com.pham.basis.evcharging.dto.response.ReservationResponse;
+import com.pham.basis.evcharging.dto.response.StationAvailabilityResponse;
+import com.pham.basis.evcharging.event.ReservationChangedEvent;
+import com.pham.basis.evcharging.event.ReservationsChangedEvent;
 import com.pham.basis.evcharging.exception.AppException;
 import com.pham.basis.evcharging.model.*;
 import com.pham.basis.evcharging.repository.*;
-import com.pham.basis.evcharging.service.NotificationService;
+import com.pham.basis.evcharging.service.ChargingStationService;
+import com.pham.basis.evcharging.service.ConnectorBookingLock;
+import com.pham.basis.evcharging.service.ConnectorFitPolicy;
+import com.pham.basis.evcharging.service.ReservationScheduleIndex;
 import com.pham.basis.evcharging.service.ReservationService;
 import lombok.RequiredArgsConstructor;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.sql.Timestamp;
 import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
-import java.util.List;
+import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 
@@ -32,11 +48,18 @@ public class ReservationServiceImpl implements ReservationService {
     private final ConnectorRepository connectorRepository;
     private final VehicleRepository vehicleRepository;
     private final WalletRepository walletRepository;
-    private final NotificationService notificationService;
     private final PaymentTransactionRepository paymentTransactionRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ReservationScheduleIndex scheduleIndex;
+    private final ConnectorBookingLock bookingLock;
+    private final TransactionTemplate transactionTemplate;
+    private final ChargingStationService chargingStationService;
+    private final JdbcTemplate jdbcTemplate;
 
     private static final long GRACE_MINUTES = 15;
     private static final BigDecimal HOLD_FEE_PER_MINUTE = BigDecimal.valueOf(300);
+    // 9 tham số mỗi dòng, giữ dưới giới hạn 2100 tham số của SQL Server
+    private static final int BATCH_INSERT_ROWS = 200;
 
     @Override
     public ReservationResponse createReservation(ReservationRequest request) {
@@ -63,18 +86,17 @@ public class ReservationServiceImpl implements ReservationService {
         //validate time
         validateTime(request);
 
-        //kiểm tra chồng reservation
-        checkForOverlappingReservations(request);
+        //kiểm tra chồng reservation (index, loại sớm mà không cần lock)
+        checkForOverlappingReservations(request, false);
 
         // check vehicle overlapping
-        checkVehicleOverlappingReservations(request);
+        checkVehicleOverlappingReservations(request, false);
 
         LocalDateTime now = LocalDateTime.now();
         LocalDateTime expiredAt = request.getEndTime().plusMinutes(10);
 
         //tinhs holdFee 300d/p
-        long minutes = ChronoUnit.MINUTES.between(request.getStartTime(), request.getEndTime());
-        BigDecimal holdFee = BigDecimal.valueOf(minutes).multiply(HOLD_FEE_PER_MINUTE);
+        BigDecimal holdFee = holdFeeOf(request.getStartTime(), request.getEndTime());
 
         //lưu db với status pending
         Reservation reservation = Reservation.builder()
@@ -90,23 +112,148 @@ public class ReservationServiceImpl implements ReservationService {
                 .createdAt(now)
                 .expiredAt(expiredAt)
                 .build();
-        Reservation saved = reservationRepository.save(reservation);
+        // chỉ serialize các booking cùng connector: stripe lock trong JVM + UPDLOCK dòng connector cho nhiều node
+        Reservation saved = bookingLock.withConnector(connector.getId(), () -> transactionTemplate.execute(status -> {
+            bookingLock.claim(connector.getId());
+            // đang giữ lock -> kiểm tra lại bằng DB, index (nhất là của node khác) có thể chưa thấy booking vừa commit
+            checkForOverlappingReservations(request, true);
+            checkVehicleOverlappingReservations(request, true);
+            Reservation r = reservationRepository.save(reservation);
+            eventPublisher.publishEvent(new ReservationChangedEvent(r.getId()));
+            return r;
+        }));
 
         //trả về theo response
         return toResponse(saved);
     }
 
+    /**
+     * Driver chỉ chọn station + loại connector + khung giờ, server chọn connector theo ConnectorFitPolicy (best-fit)
+     * rồi đặt qua createReservation. Connector vừa bị người khác lấy thì thử connector kế tiếp.
+     */
+    @Override
+    public ReservationResponse createAutoReservation(AutoReservationRequest request) {
+        if (!scheduleIndex.isReady()) {
+            throw new AppException.ServiceUnavailableException("Availability is warming up, please retry shortly", 5);
+        }
+        validateTime(request.getStartTime(), request.getEndTime());
+        chargingStationRepository.findById(request.getStationId())
+                .orElseThrow(() -> new AppException.BadRequestException("Station not found"));
+        // lỗi không phụ thuộc connector kiểm tra trước, phần còn lại để createReservation lo
+        Vehicle vehicle = vehicleRepository.findById(request.getVehicleId())
+                .orElseThrow(() -> new AppException.BadRequestException("Vehicle not found"));
+        if (!vehicle.getUser().getId().equals(request.getUserId())) {
+            throw new AppException.BadRequestException("Vehicle does not belong to this user");
+        }
+
+        LocalDateTime endWithTurnover = request.getEndTime().plusMinutes(ReservationScheduleIndex.TURNOVER_MINUTES);
+        List<ReservationScheduleIndex.FreeConnector> ranked = ConnectorFitPolicy.rank(
+                scheduleIndex.freeConnectors(request.getStationId(), request.getConnectorType(),
+                        request.getStartTime(), endWithTurnover),
+                request.getStartTime(), endWithTurnover);
+        if (ranked.isEmpty()) {
+            throw new AppException.BadRequestException(String.format(
+                    "No %s connector is available at this station in the selected time range", request.getConnectorType()));
+        }
+
+        checkVehicleOverlappingReservations(new ReservationRequest(request.getUserId(), request.getStationId(),
+                null, null, request.getStartTime(), request.getEndTime(), request.getVehicleId()), false);
+
+        RuntimeException last = null;
+        for (ReservationScheduleIndex.FreeConnector c : ranked) {
+            try {
+                return createReservation(new ReservationRequest(request.getUserId(), request.getStationId(),
+                        c.pillarId(), c.connectorId(), request.getStartTime(), request.getEndTime(), request.getVehicleId()));
+            } catch (AppException.BadRequestException | AppException.ConflictException e) {
+                // connector vừa bị booking khác lấy -> thử connector kế tiếp
+                last = e;
+            }
+        }
+        throw last;
+    }
+
+    /**
+     * Đặt nhiều reservation một lần, kết quả trả về theo từng item (item lỗi không làm hỏng cả batch).
+     * Entity load bằng một query IN mỗi loại, trùng lịch kiểm tra bằng một query cho connector và một cho vehicle
+     * (đang giữ lock của mọi connector trong batch), insert bằng MERGE nhiều dòng lấy id qua OUTPUT.
+     */
+    @Override
+    public BatchReservationResponse createReservations(BatchReservationRequest request) {
+        User user = userRepository.findById(request.getUserId())
+                .orElseThrow(() -> new AppException.BadRequestException("User not found"));
+        List<BatchReservationRequest.Item> items = request.getItems();
+
+        Map<Long, ChargingStation> stations = byId(
+                chargingStationRepository.findAllById(idsOf(items, BatchReservationRequest.Item::getStationId)), ChargingStation::getId);
+        Map<Long, ChargerPillar> pillars = byId(
+                chargerPillarRepository.findAllById(idsOf(items, BatchReservationRequest.Item::getPillarId)), ChargerPillar::getId);
+        Map<Long, Connector> connectors = byId(
+                connectorRepository.findAllById(idsOf(items, BatchReservationRequest.Item::getConnectorId)), Connector::getId);
+        Map<Long, Vehicle> vehicles = byId(
+                vehicleRepository.findAllById(idsOf(items, BatchReservationRequest.Item::getVehicleId)), Vehicle::getId);
+
+        String[] errors = new String[items.size()];
+        List<Integer> pending = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            errors[i] = validateItem(items.get(i), user, stations, pillars, connectors, vehicles);
+            if (errors[i] == null) pending.add(i);
+        }
+        rejectBatchOverlaps(items, pending, errors);
+
+        Map<Integer, Long> createdIds = new HashMap<>();
+        // cùng một mốc cho created_at trong DB và createdAt trả về
+        LocalDateTime now = LocalDateTime.now();
+        if (!pending.isEmpty()) {
+            Set<Long> connectorIds = new HashSet<>();
+            for (int i : pending) connectorIds.add(items.get(i).getConnectorId());
+            createdIds = bookingLock.withConnectors(connectorIds, () -> transactionTemplate.execute(status -> {
+                bookingLock.claimAll(connectorIds);
+                rejectExistingOverlaps(items, pending, errors, connectors);
+                Map<Integer, Long> ids = insertReservations(user, items, pending, now);
+                if (!ids.isEmpty()) eventPublisher.publishEvent(new ReservationsChangedEvent(new ArrayList<>(ids.values())));
+                return ids;
+            }));
+        }
+
+        List<BatchReservationResponse.ItemResult> results = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            Long id = createdIds.get(i);
+            BatchReservationRequest.Item item = items.get(i);
+            results.add(BatchReservationResponse.ItemResult.builder()
+                    .index(i)
+                    .success(id != null)
+                    .error(id != null ? null : errors[i])
+                    .reservation(id == null ? null : ReservationResponse.builder()
+                            .reservationId(id)
+                            .vehicleId(item.getVehicleId())
+                            .stationId(item.getStationId())
+                            .stationName(stations.get(item.getStationId()).getName())
+                            .pillarId(item.getPillarId())
+                            .connectorId(item.getConnectorId())
+                            .status("PENDING")
+                            .holdFee(holdFeeOf(item.getStartTime(), item.getEndTime()))
+                            .startTime(item.getStartTime())
+                            .endTime(item.getEndTime())
+                            .createdAt(now)
+                            .expiredAt(item.getEndTime().plusMinutes(10))
+                            .build())
+                    .build());
+        }
+        return BatchReservationResponse.builder()
+                .requested(items.size())
+                .created(createdIds.size())
+                .results(results)
+                .build();
+    }
+
     @Override
-    public List<ReservationResponse> getReservationsByUser(Long userId) {
+    public Page<ReservationResponse> getReservationsByUser(Long userId, Pageable pageable) {
         userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        List<Reservation> reservations = reservationRepository
-                .findByUserIdOrderByCreatedAtDesc(userId);
-
-        return reservations.stream()
-                .map(this::toResponse)
-                .collect(Collectors.toList());
+        // gồm cả reservation đã chuyển sang reservations_archive
+        return reservationRepository.findHistoryByUserId(userId, pageable)
+                .map(this::toResponse);
     }
 
     @Override
@@ -115,6 +262,7 @@ public class ReservationServiceImpl implements ReservationService {
                 .orElseThrow(() -> new AppException.BadRequestException("Reservation not found"));
         reservation.setStatus("PLUGGED");
         Reservation saved = reservationRepository.save(reservation);
+        eventPublisher.publishEvent(new ReservationChangedEvent(saved.getId()));
         return toResponse(saved);
     }
 
@@ -182,6 +330,7 @@ public class ReservationServiceImpl implements ReservationService {
         reservation.setHoldFee(systemEarn);
         reservation.setExpiredAt(now);
         reservationRepository.save(reservation);
+        eventPublisher.publishEvent(new ReservationChangedEvent(reservation.getId()));
     }
 
 
@@ -198,6 +347,82 @@ public class ReservationServiceImpl implements ReservationService {
                 .collect(Collectors.toList());
     }
 
+    // cấu trúc pillar / connector lấy từ detail cache, slot bận lấy từ bitmap của schedule index
+    @Override
+    public StationAvailabilityResponse getStationAvailability(Long stationId) {
+        if (!scheduleIndex.isReady()) {
+            throw new AppException.ServiceUnavailableException("Availability is warming up, please retry shortly", 5);
+        }
+        ChargingStationDetailResponse detail = chargingStationService.getStationDetail(stationId, null, null);
+        List<ChargingStationDetailResponse.PillarDto> pillars =
+                detail.getPillars() == null ? List.of() : detail.getPillars();
+
+        List<Long> connectorIds = new ArrayList<>();
+        for (ChargingStationDetailResponse.PillarDto p : pillars) {
+            if (p.getConnectors() == null) continue;
+            for (ChargingStationDetailResponse.ConnectorDto c : p.getConnectors()) connectorIds.add(c.getId());
+        }
+        ReservationScheduleIndex.SlotGrid grid = scheduleIndex.slotGrid(connectorIds);
+
+        // slot đã bắt đầu (start <= now) không đặt được nữa
+        long slotMinutes = ReservationScheduleIndex.SLOT_MINUTES;
+        long elapsed = ChronoUnit.MINUTES.between(grid.start(), LocalDateTime.now());
+        int firstOpen = (int) Math.min(ReservationScheduleIndex.GRID_SLOTS, Math.max(0, elapsed / slotMinutes + 1));
+
+        List<StationAvailabilityResponse.PillarSlots> pillarSlots = new ArrayList<>(pillars.size());
+        for (ChargingStationDetailResponse.PillarDto p : pillars) {
+            List<StationAvailabilityResponse.ConnectorSlots> connectors = new ArrayList<>();
+            if (p.getConnectors() != null) {
+                for (ChargingStationDetailResponse.ConnectorDto c : p.getConnectors()) {
+                    boolean outOfService = "MAINTENANCE".equalsIgnoreCase(c.getStatus());
+                    char[] slots = new char[ReservationScheduleIndex.GRID_SLOTS];
+                    for (int i = 0; i < slots.length; i++) {
+                        slots[i] = !outOfService && i >= firstOpen && !grid.isBusy(c.getId(), i) ? '1' : '0';
+                    }
+                    connectors.add(StationAvailabilityResponse.ConnectorSlots.builder()
+                            .id(c.getId())
+                            .type(c.getType())
+                            .status(c.getStatus())
+                            .slots(new String(slots))
+                            .build());
+                }
+            }
+            pillarSlots.add(StationAvailabilityResponse.PillarSlots.builder()
+                    .id(p.getId())
+                    .code(p.getCode())
+                    .power(p.getPower())
+                    .pricePerKwh(p.getPricePerKwh())
+                    .connectors(connectors)
+                    .build());
+        }
+
+        return StationAvailabilityResponse.builder()
+                .stationId(stationId)
+                .from(grid.start())
+                .slotMinutes(ReservationScheduleIndex.SLOT_MINUTES)
+                .slotsPerDay(ReservationScheduleIndex.SLOTS_PER_DAY)
+                .days(ReservationScheduleIndex.GRID_DAYS)
+                .pillars(pillarSlots)
+                .build();
+    }
+
+    private ReservationResponse toResponse(ReservationRepository.HistoryRow row) {
+        return ReservationResponse.builder()
+                .reservationId(row.getReservationId())
+                .vehicleId(row.getVehicleId())
+                .stationId(row.getStationId())
+                .stationName(row.getStationName())
+                .pillarId(row.getPillarId())
+                .connectorId(row.getConnectorId())
+                .status(row.getStatus())
+                .holdFee(row.getHoldFee())
+                .startTime(row.getStartTime())
+                .endTime(row.getEndTime())
+                .createdAt(row.getCreatedAt())
+                .expiredAt(row.getExpiredAt())
+                .build();
+    }
+
     private ReservationResponse toResponse(Reservation saved) {
         // Null-guard cho vehicle
         Vehicle vehicle = saved.getVehicle();
@@ -219,36 +444,197 @@ public class ReservationServiceImpl implements ReservationService {
                 .build();
     }
 
+    //-------------batch helper-------
+    private String validateItem(BatchReservationRequest.Item item, User user,
+                                Map<Long, ChargingStation> stations, Map<Long, ChargerPillar> pillars,
+                                Map<Long, Connector> connectors, Map<Long, Vehicle> vehicles) {
+        if (!stations.containsKey(item.getStationId())) return "Station not found";
+        ChargerPillar pillar = pillars.get(item.getPillarId());
+        if (pillar == null) return "Pillar not found";
+        Connector connector = connectors.get(item.getConnectorId());
+        if (connector == null) return "Connector not found";
+        Vehicle vehicle = vehicles.get(item.getVehicleId());
+        if (vehicle == null) return "Vehicle not found";
+        if (!vehicle.getUser().getId().equals(user.getId())) return "Vehicle does not belong to this user";
+        if (!connector.getPillar().getId().equals(pillar.getId())) return "Connector does not belong to the selected pillar";
+        try {
+            validateTime(item.getStartTime(), item.getEndTime());
+        } catch (AppException.BadRequestException e) {
+            return e.getMessage();
+        }
+        return null;
+    }
+
+    // trùng lịch giữa các item trong batch, item đứng trước được ưu tiên; cùng rule với checkFor...Reservations
+    private void rejectBatchOverlaps(List<BatchReservationRequest.Item> items, List<Integer> pending, String[] errors) {
+        Map<Long, List<BatchReservationRequest.Item>> byConnector = new HashMap<>();
+        Map<Long, List<BatchReservationRequest.Item>> byVehicle = new HashMap<>();
+        Iterator<Integer> it = pending.iterator();
+        while (it.hasNext()) {
+            int i = it.next();
+            BatchReservationRequest.Item item = items.get(i);
+            LocalDateTime endWithTurnover = item.getEndTime().plusMinutes(ReservationScheduleIndex.TURNOVER_MINUTES);
+            LocalDateTime endWithGrace = item.getEndTime().plusMinutes(GRACE_MINUTES);
+            List<BatchReservationRequest.Item> sameConnector = byConnector.computeIfAbsent(item.getConnectorId(), k -> new ArrayList<>());
+            List<BatchReservationRequest.Item> sameVehicle = byVehicle.computeIfAbsent(item.getVehicleId(), k -> new ArrayList<>());
+            if (sameConnector.stream().anyMatch(o ->
+                    item.getStartTime().isBefore(o.getEndTime()) && endWithTurnover.isAfter(o.getStartTime()))) {
+                errors[i] = "Connector is already booked by another item in this batch";
+                it.remove();
+            } else if (sameVehicle.stream().anyMatch(o ->
+                    !item.getStartTime().isAfter(o.getEndTime()) && !endWithGrace.isBefore(o.getStartTime()))) {
+                errors[i] = "This vehicle already has a reservation in the selected time range";
+                it.remove();
+            } else {
+                sameConnector.add(item);
+                sameVehicle.add(item);
+            }
+        }
+    }
+
+    // gọi khi đang giữ lock connector: một query lấy reservation của mọi connector / vehicle trong khoảng của batch
+    private void rejectExistingOverlaps(List<BatchReservationRequest.Item> items, List<Integer> pending, String[] errors,
+                                        Map<Long, Connector> connectors) {
+        Set<Long> connectorIds = new HashSet<>(), vehicleIds = new HashSet<>();
+        LocalDateTime from = null, to = null;
+        for (int i : pending) {
+            BatchReservationRequest.Item item = items.get(i);
+            connectorIds.add(item.getConnectorId());
+            vehicleIds.add(item.getVehicleId());
+            if (from == null || item.getStartTime().isBefore(from)) from = item.getStartTime();
+            LocalDateTime end = item.getEndTime().plusMinutes(Math.max(ReservationScheduleIndex.TURNOVER_MINUTES, GRACE_MINUTES));
+            if (to == null || end.isAfter(to)) to = end;
+        }
+        if (from == null) return;
+
+        Map<Long, List<ReservationRepository.ScheduleRow>> byConnector = new HashMap<>();
+        for (ReservationRepository.ScheduleRow row : reservationRepository.findActiveScheduleRowsByConnectorIdIn(connectorIds, from, to)) {
+            byConnector.computeIfAbsent(row.getConnectorId(), k -> new ArrayList<>()).add(row);
+        }
+        Map<Long, List<ReservationRepository.ScheduleRow>> byVehicle = new HashMap<>();
+        for (ReservationRepository.ScheduleRow row : reservationRepository.findActiveScheduleRowsByVehicleIdIn(vehicleIds, from, to)) {
+            byVehicle.computeIfAbsent(row.getVehicleId(), k -> new ArrayList<>()).add(row);
+        }
+
+        DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("HH:mm");
+        Iterator<Integer> it = pending.iterator();
+        while (it.hasNext()) {
+            int i = it.next();
+            BatchReservationRequest.Item item = items.get(i);
+            LocalDateTime endWithTurnover = item.getEndTime().plusMinutes(ReservationScheduleIndex.TURNOVER_MINUTES);
+            LocalDateTime endWithGrace = item.getEndTime().plusMinutes(GRACE_MINUTES);
+            Optional<ReservationRepository.ScheduleRow> conflict = byConnector.getOrDefault(item.getConnectorId(), List.of()).stream()
+                    .filter(r -> item.getStartTime().isBefore(r.getEndTime()) && endWithTurnover.isAfter(r.getStartTime()))
+                    .findFirst();
+            if (conflict.isPresent()) {
+                errors[i] = String.format("Pillar %d (Connector %s) is already booked from %s to %s",
+                        item.getPillarId(), connectors.get(item.getConnectorId()).getType(),
+                        conflict.get().getStartTime().format(timeFormatter), conflict.get().getEndTime().format(timeFormatter));
+                it.remove();
+            } else if (byVehicle.getOrDefault(item.getVehicleId(), List.of()).stream()
+                    .anyMatch(r -> !item.getStartTime().isAfter(r.getEndTime()) && !endWithGrace.isBefore(r.getStartTime()))) {
+                errors[i] = "This vehicle already has a reservation in the selected time range";
+                it.remove();
+            }
+        }
+    }
+
+    // MERGE ... ON 1 = 0 để OUTPUT được cả index của item lẫn id vừa sinh (INSERT ... OUTPUT không trả cột nguồn)
+    private Map<Integer, Long> insertReservations(User user, List<BatchReservationRequest.Item> items,
+                                                  List<Integer> pending, LocalDateTime now) {
+        Map<Integer, Long> ids = new HashMap<>();
+        for (int from = 0; from < pending.size(); from += BATCH_INSERT_ROWS) {
+            List<Integer> chunk = pending.subList(from, Math.min(pending.size(), from + BATCH_INSERT_ROWS));
+            String values = String.join(", ", Collections.nCopies(chunk.size(), "(?, ?, ?, ?, ?, ?, ?, ?, ?)"));
+            String sql = "MERGE INTO reservations AS t USING (VALUES " + values + ")"
+                    + " AS src (idx, hold_fee, start_time, end_time, expired_at, station_id, pillar_id, connector_id, vehicle_id) ON 1 = 0"
+                    + " WHEN NOT MATCHED THEN INSERT (status, hold_fee, created_at, start_time, end_time, expired_at,"
+                    + " notified_before_start, user_id, station_id, pillar_id, connector_id, vehicle_id)"
+                    + " VALUES ('PENDING', src.hold_fee, ?, src.start_time, src.end_time, src.expired_at,"
+                    + " 0, ?, src.station_id, src.pillar_id, src.connector_id, src.vehicle_id)"
+                    + " OUTPUT src.idx, INSERTED.reservation_id;";
+            List<Object> params = new ArrayList<>(chunk.size() * 9 + 2);
+            for (int i : chunk) {
+                BatchReservationRequest.Item item = items.get(i);
+                params.add(i);
+                params.add(holdFeeOf(item.getStartTime(), item.getEndTime()));
+                params.add(Timestamp.valueOf(item.getStartTime()));
+                params.add(Timestamp.valueOf(item.getEndTime()));
+                params.add(Timestamp.valueOf(item.getEndTime().plusMinutes(10)));
+                params.add(item.getStationId());
+                params.add(item.getPillarId());
+                params.add(item.getConnectorId());
+                params.add(item.getVehicleId());
+            }
+            params.add(Timestamp.valueOf(now));
+            params.add(user.getId());
+            jdbcTemplate.query(sql, rs -> {
+                ids.put(rs.getInt(1), rs.getLong(2));
+            }, params.toArray());
+        }
+        return ids;
+    }
+
+    private static Set<Long> idsOf(List<BatchReservationRequest.Item> items, Function<BatchReservationRequest.Item, Long> id) {
+        Set<Long> ids = new HashSet<>();
+        for (BatchReservationRequest.Item item : items) ids.add(id.apply(item));
+        return ids;
+    }
+
+    private static <T> Map<Long, T> byId(List<T> entities, Function<T, Long> id) {
+        Map<Long, T> map = new HashMap<>();
+        for (T e : entities) map.put(id.apply(e), e);
+        return map;
+    }
+
+    private static BigDecimal holdFeeOf(LocalDateTime start, LocalDateTime end) {
+        long minutes = ChronoUnit.MINUTES.between(start, end);
+        return BigDecimal.valueOf(minutes).multiply(HOLD_FEE_PER_MINUTE);
+    }
+
     private void validateTime(ReservationRequest req){
+        validateTime(req.getStartTime(), req.getEndTime());
+    }
+
+    private void validateTime(LocalDateTime startTime, LocalDateTime endTime){
         LocalDateTime now = LocalDateTime.now();
         LocalDate today = LocalDate.now();
         LocalDate maxDateAllowed = today.plusDays(7);
 
         //kiem tra end va start time
-        if (!req.getEndTime().isAfter(req.getStartTime())) throw new AppException.BadRequestException("End time must be after start time");
+        if (!endTime.isAfter(startTime)) throw new AppException.BadRequestException("End time must be after start time");
 
-            if (!req.getStartTime().isAfter(now)) throw new AppException.BadRequestException("Start time must be after current time");
+            if (!startTime.isAfter(now)) throw new AppException.BadRequestException("Start time must be after current time");
 
-        if (req.getStartTime().toLocalDate().isAfter(maxDateAllowed) ||
-                req.getEndTime().toLocalDate().isAfter(maxDateAllowed)) {
+        if (startTime.toLocalDate().isAfter(maxDateAllowed) ||
+                endTime.toLocalDate().isAfter(maxDateAllowed)) {
             throw new AppException.BadRequestException("Reservations can only be made within 7 days from today");
         }
 
     }
 
-    private void checkForOverlappingReservations(ReservationRequest req) {
+    // index đã load -> index báo trống thì cho qua luôn; index có thể cũ (vd reservation đã huỷ ở node khác)
+    // nên báo trùng thì hỏi lại DB trước khi từ chối và đọc lại entry đó vào index. Chưa load hoặc fromDb thì chỉ query DB
+    private void checkForOverlappingReservations(ReservationRequest req, boolean fromDb) {
+        LocalDateTime conflictStart = null, conflictEnd = null;
+        LocalDateTime endWithTurnover = req.getEndTime().plusMinutes(ReservationScheduleIndex.TURNOVER_MINUTES);
+        if (!fromDb && scheduleIndex.isReady()) {
+            Optional<ReservationScheduleIndex.Conflict> conflict = scheduleIndex.findConnectorConflict(
+                    req.getConnectorId(), req.getStartTime(), endWithTurnover, null);
+            if (conflict.isEmpty()) return;
+            scheduleIndex.refresh(conflict.get().reservationId());
+        }
         List<Reservation> existingReservations = reservationRepository
-                .findOverlappingReservations(
-                        req.getConnectorId(),
-                        req.getStartTime(),
-                        req.getEndTime().plusMinutes(10)
-                );
-
+                .findOverlappingReservations(req.getConnectorId(), req.getStartTime(), endWithTurnover);
         if (!existingReservations.isEmpty()) {
-            Reservation conflict = existingReservations.get(0);
+            conflictStart = existingReservations.get(0).getStartTime();
+            conflictEnd = existingReservations.get(0).getEndTime();
+        }
+
+        if (conflictStart != null) {
             DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("HH:mm");
-            String start = conflict.getStartTime().format(timeFormatter);
-            String end = conflict.getEndTime().format(timeFormatter);
+            String start = conflictStart.format(timeFormatter);
+            String end = conflictEnd.format(timeFormatter);
 
             throw new AppException.BadRequestException(String.format(
                     "Pillar %d (Connector %s) is already booked from %s to %s",
@@ -259,137 +645,21 @@ public class ReservationServiceImpl implements ReservationService {
             ));
         }
     }
-    private void checkVehicleOverlappingReservations(ReservationRequest req) {
-        List<Reservation> reservations = reservationRepository
-                .findVehicleOverlappingReservations(
-                        req.getVehicleId(),
-                        req.getStartTime(),
-                        req.getEndTime().plusMinutes(GRACE_MINUTES)
-                );
+    private void checkVehicleOverlappingReservations(ReservationRequest req, boolean fromDb) {
+        LocalDateTime endWithGrace = req.getEndTime().plusMinutes(GRACE_MINUTES);
+        if (!fromDb && scheduleIndex.isReady()) {
+            Optional<ReservationScheduleIndex.Conflict> conflict =
+                    scheduleIndex.findVehicleConflict(req.getVehicleId(), req.getStartTime(), endWithGrace);
+            if (conflict.isEmpty()) return;
+            scheduleIndex.refresh(conflict.get().reservationId());
+        }
+        boolean overlapping = !reservationRepository.findVehicleOverlappingReservations(
+                req.getVehicleId(), req.getStartTime(), endWithGrace).isEmpty();
 
-        if (!reservations.isEmpty()) {
+        if (overlapping) {
             throw new AppException.BadRequestException(
                     "This vehicle already has a reservation in the selected time range"
             );
         }
     }
-
-    @Transactional
-    @Scheduled(fixedRate = 60000)
-    public void autoUpdateConnectorStatus() {
-        LocalDateTime now = LocalDateTime.now();
-
-        // PENDING > 5 phút -> EXPIRED
-        reservationRepository.findByStatus("PENDING").stream()
-                .filter(r -> r.getCreatedAt().isBefore(now.minusMinutes(5)))
-                .forEach(r -> {
-                    r.setStatus("EXPIRED");
-                    reservationRepository.save(r);
-                    if (r.getConnector() != null) {
-                        r.getConnector().setStatus("AVAILABLE");
-                        connectorRepository.save(r.getConnector());
-                    }
-                });
-
-        // SCHEDULED tới giờ -> VERIFYING + OCCUPIED
-        reservationRepository.findByStatus("SCHEDULED").stream()
-                .filter(r -> r.getStartTime().isBefore(now))
-                .forEach(r -> {
-                    r.setStatus("VERIFYING");
-                    reservationRepository.save(r);
-                    if (r.getConnector() != null) {
-                        r.getConnector().setStatus("OCCUPIED");
-                        connectorRepository.save(r.getConnector());
-                    }
-                });
-        //Trễ > GRACE_MINUTES phút sau start cho VERIFYING / VERIFIED / PLUGGED → EXPIRED
-        List<String> middleStates = List.of("VERIFYING", "VERIFIED", "PLUGGED");
-        LocalDateTime expireBefore = now.minusMinutes(GRACE_MINUTES);
-        List<Reservation> toExpire = reservationRepository.findByStatusInAndStartTimeBefore(middleStates, expireBefore);
-        toExpire.forEach(r -> {
-            r.setStatus("EXPIRED");
-            r.setExpiredAt(now);
-            reservationRepository.save(r);
-
-            if (r.getConnector() != null) {
-                r.getConnector().setStatus("AVAILABLE");
-                connectorRepository.save(r.getConnector());
-            }
-            String msg = String.format("Your reservation at %s has been canceled because you did not start charging within %d minutes after the scheduled start.",
-                    r.getStation().getName(), GRACE_MINUTES);
-            notificationService.createNotification(r.getUser().getId(), "RESERVATION_EXPIRED", msg);
-        });
-
-        reservationRepository.findByStatusIn(
-                        List.of("VERIFYING", "VERIFIED", "PLUGGED", "CHARGING", "SCHEDULED"))
-                .stream()
-                .filter(r -> r.getEndTime() != null && r.getEndTime().isBefore(now))
-                .forEach(r -> {
-                    r.setStatus("EXPIRED");
-                    r.setExpiredAt(now);
-                    reservationRepository.save(r);
-                    if (r.getConnector() != null) {
-                        r.getConnector().setStatus("AVAILABLE");
-                        connectorRepository.save(r.getConnector());
-                    }
-                    String msg = String.format(
-                            "Your reservation at %s has expired because the end time has passed.",
-                            r.getStation().getName()
-                    );
-                    notificationService.createNotification(
-                            r.getUser().getId(),
-                            "RESERVATION_EXPIRED",
-                            msg
-                    );
-                });
-        //Gửi 1 notification trước start 5 phút
-        reservationRepository.findByStatus("SCHEDULED").stream()
-                .filter(r -> !Boolean.TRUE.equals(r.getNotifiedBeforeStart()))
-                .filter(r -> {
-                    LocalDateTime reminderTime = r.getStartTime().minusMinutes(5);
-                    return !now.isBefore(reminderTime) && now.isBefore(r.getStartTime());
-                })
-                .forEach(r -> {
-                    notificationService.createNotification(
-                            r.getUser().getId(),
-                            "Reservation Reminder",
-                            "Your charging reservation will start in less than 5 minutes. If you are more than 15 minutes late after the start time, the system will automatically cancel your reservation."
-                    );
-                    r.setNotifiedBeforeStart(true);
-                    reservationRepository.save(r);
-                });
-        paymentTransactionRepository.findByStatus("PENDING").forEach(p -> {
-            LocalDateTime createdAt = p.getCreatedAt();
-            if (createdAt == null) return;
-
-            if (createdAt.isBefore(now.minusMinutes(60)) && createdAt.isAfter(now.minusMinutes(61))) {
-                notificationService.createNotification(
-                        p.getUser().getId(),
-                        "PAYMENT_PENDING_REMINDER",
-                        "Your payment has been pending for more than 60 minutes. Please complete it within 24 hours."
-                );
-            }
-
-            if (createdAt.isBefore(now.minusHours(24))) {
-                User user = p.getUser();
-                if (user != null && Boolean.TRUE.equals(user.getStatus())) {
-                    user.setStatus(false);
-                    userRepository.save(user);
-
-                    notificationService.createNotification(
-                            user.getId(),
-                            "ACCOUNT_LOCKED",
-                            "Your account has been locked because a payment was pending for over 24 hours."
-                    );
-                }
-
-                p.setStatus("CANCELLED");
-                paymentTransactionRepository.save(p);
-            }
-        });
-
-    }
-
-
-
 }
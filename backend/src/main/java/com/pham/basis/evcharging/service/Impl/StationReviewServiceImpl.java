@@ -1,6 +1,7 @@
 package com.pham.basis.evcharging.service.Impl;
 
 import com.pham.basis.evcharging.dto.response.StationReviewResponse;
+import com.pham.basis.evcharging.event.StationReviewChangedEvent;
 import com.pham.basis.evcharging.exception.AppException;
 import com.pham.basis.evcharging.mapper.StationReviewMapper;
 import com.pham.basis.evcharging.model.StationReview;
@@ -9,6 +10,7 @@ import com.pham.basis.evcharging.repository.StationReviewRepository;
 import com.pham.basis.evcharging.repository.UserRepository;
 import com.pham.basis.evcharging.service.StationReviewService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -23,6 +25,7 @@ public class StationReviewServiceImpl implements StationReviewService {
     private final StationReviewRepository stationReviewRepository;
     private final ChargingStationRepository chargingStationRepository;
     private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     @Transactional
@@ -46,6 +49,7 @@ public class StationReviewServiceImpl implements StationReviewService {
                 .build();
 
         StationReview savedReview = stationReviewRepository.save(review);
+        eventPublisher.publishEvent(new StationReviewChangedEvent(stationId));
 
         return StationReviewMapper.toResponse(savedReview);
     }
@@ -62,6 +66,7 @@ public class StationReviewServiceImpl implements StationReviewService {
         review.setRating(rating);
         review.setComment(comment);
         stationReviewRepository.save(review);
+        eventPublisher.publishEvent(new StationReviewChangedEvent(review.getChargingStation().getId()));
         return StationReviewMapper.toResponse(review);
     }
 
@@ -74,7 +79,9 @@ public class StationReviewServiceImpl implements StationReviewService {
             throw new AppException.BadRequestException("You are not allowed to delete this review");
         }
 
+        Long stationId = review.getChargingStation().getId();
         stationReviewRepository.delete(review);
+        eventPublisher.publishEvent(new StationReviewChangedEvent(stationId));
     }
 
     @Override
@@ -16,6 +16,7 @@ import java.math.RoundingMode;
 import java.time.Duration;
 import java.time.YearMonth;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -104,7 +105,7 @@ public class UserAnalyticsServiceImpl implements UserAnalyticsService {
         Map<Long, List<ChargingSession>> sessionsByStation = groupSessionsByStation(sessions);
         List<UserAnalyticsResponse.StationAnalytics> topStations = buildTopStations(sessionsByStation);
         //
-        List<UserAnalyticsResponse.ConnectorAnalytics> connectorAnalytics = buildConnectorAnalytics(sessions);
+        List<UserAnalyticsResponse.ConnectorAnalytics> connectorAnalytics = buildConnectorAnalytics(user.getId(), sessions);
         List<UserAnalyticsResponse.HourlyUsage> hourlyUsage = buildHourlyUsage(sessions);
         //
         return UserAnalyticsResponse.builder()
@@ -159,8 +160,8 @@ public class UserAnalyticsServiceImpl implements UserAnalyticsService {
     }
 
     //Connector
-    private List<UserAnalyticsResponse.ConnectorAnalytics> buildConnectorAnalytics(List<ChargingSession> sessions) {
-        Map<String, List<ChargingSession>> sessionsByConnector = groupSessionsByConnectorType(sessions);
+    private List<UserAnalyticsResponse.ConnectorAnalytics> buildConnectorAnalytics(Long userId, List<ChargingSession> sessions) {
+        Map<String, List<ChargingSession>> sessionsByConnector = groupSessionsByConnectorType(sessions, archivedConnectorTypes(userId, sessions));
 
         double totalEnergyAllConnectors = sumEnergy(sessions);
 
@@ -248,16 +249,31 @@ public class UserAnalyticsServiceImpl implements UserAnalyticsService {
                 .filter(s -> s.getStation() != null)
                 .collect(Collectors.groupingBy(s -> s.getStation().getId()));
     }
-    //gom session theo connector type
-    private Map<String, List<ChargingSession>> groupSessionsByConnectorType(List<ChargingSession> sessions) {
+    //gom session theo connector type, reservation đã archive thì lấy type qua archivedTypes
+    private Map<String, List<ChargingSession>> groupSessionsByConnectorType(List<ChargingSession> sessions,
+                                                                          Map<Long, String> archivedTypes) {
         return sessions.stream()
-                .filter(s -> s.getReservation() != null)
-                .filter(s -> s.getReservation().getConnector() != null)
-                .filter(s -> s.getReservation().getConnector().getType() != null)
+                .filter(s -> connectorTypeOf(s, archivedTypes) != null)
                 .collect(Collectors.groupingBy(
-                        s -> s.getReservation().getConnector().getType()
+                        s -> connectorTypeOf(s, archivedTypes)
                 ));
     }
+
+    private static String connectorTypeOf(ChargingSession session, Map<Long, String> archivedTypes) {
+        if (session.getReservation() == null) return archivedTypes.get(session.getId());
+        return session.getReservation().getConnector() != null ? session.getReservation().getConnector().getType() : null;
+    }
+
+    // chỉ query khi có session mất reservation (đã archive)
+    private Map<Long, String> archivedConnectorTypes(Long userId, List<ChargingSession> sessions) {
+        if (sessions.stream().allMatch(s -> s.getReservation() != null)) return Map.of();
+        Map<Long, String> types = new HashMap<>();
+        for (ChargingSessionRepository.ArchivedConnectorRow row :
+                chargingSessionRepository.findArchivedConnectorTypesByDriverId(userId)) {
+            if (row.getConnectorType() != null) types.put(row.getSessionId(), row.getConnectorType());
+        }
+        return types;
+    }
     //gom session theo giờ
     private Map<Integer, List<ChargingSession>> groupSessionsByHour(List<ChargingSession> sessions) {
         return sessions.stream()
@@ -0,0 +1,406 @@
+package com.pham.basis.evcharging.service.Impl;
+
+import com.pham.basis.evcharging.dto.request.ReservationRequest;
+import com.pham.basis.evcharging.dto.request.WaitlistRequest;
+import com.pham.basis.evcharging.dto.response.ReservationResponse;
+import com.pham.basis.evcharging.dto.response.WaitlistResponse;
+import com.pham.basis.evcharging.event.ConnectorStatusChangedEvent;
+import com.pham.basis.evcharging.event.JobLeaseAcquiredEvent;
+import com.pham.basis.evcharging.event.ReservationChangedEvent;
+import com.pham.basis.evcharging.event.ReservationsChangedEvent;
+import com.pham.basis.evcharging.exception.AppException;
+import com.pham.basis.evcharging.model.ChargingStation;
+import com.pham.basis.evcharging.model.User;
+import com.pham.basis.evcharging.model.Vehicle;
+import com.pham.basis.evcharging.model.WaitlistEntry;
+import com.pham.basis.evcharging.repository.ChargingStationRepository;
+import com.pham.basis.evcharging.repository.ConnectorRepository;
+import com.pham.basis.evcharging.repository.ReservationRepository;
+import com.pham.basis.evcharging.repository.VehicleRepository;
+import com.pham.basis.evcharging.repository.WaitlistEntryRepository;
+import com.pham.basis.evcharging.service.ConnectorBookingLock;
+import com.pham.basis.evcharging.service.JobLeaseService;
+import com.pham.basis.evcharging.service.NotificationService;
+import com.pham.basis.evcharging.service.ReservationScheduleIndex;
+import com.pham.basis.evcharging.service.ReservationService;
+import com.pham.basis.evcharging.service.ReservationTransitionService;
+import com.pham.basis.evcharging.service.WaitlistService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Hàng chờ theo (station, connector type): booking bị trùng lịch có thể vào hàng chờ thay vì client tự retry.
+ * Mỗi hàng là TreeSet sắp theo (createdAt, id) nằm trong memory, DB (waitlist_entries) là bản gốc để dựng lại lúc start.
+ * Khi reservation của station bị huỷ / hết hạn / kết thúc, hàng tương ứng được match trên thread riêng:
+ * duyệt theo thứ tự ưu tiên, mỗi người chờ kiểm tra connector trống bằng ReservationScheduleIndex (O(log n) mỗi connector),
+ * người đầu tiên vừa khung giờ được tạo reservation PENDING qua createReservation và nhận notification.
+ * Chạy nhiều node: chỉ node giữ lease MATCH_LEASE mới match. Người chờ vào hàng / reservation được trả ở node khác
+ * không tới node đó qua event, nên node giữ lease dựng lại hàng từ DB và match lại mỗi RESYNC_MS (và ngay khi nhận lease).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class WaitlistServiceImpl implements WaitlistService {
+
+    private static final Set<String> RELEASED_STATUSES = Set.of("CANCELLED", "EXPIRED", "COMPLETED");
+    private static final String EXPIRY_LEASE = "waitlist-expiry";
+    private static final String MATCH_LEASE = "waitlist-matcher";
+    private static final long RESYNC_MS = 30_000;
+
+    private final WaitlistEntryRepository waitlistRepository;
+    private final ReservationRepository reservationRepository;
+    private final VehicleRepository vehicleRepository;
+    private final ChargingStationRepository chargingStationRepository;
+    private final ConnectorRepository connectorRepository;
+    private final ReservationService reservationService;
+    private final ReservationScheduleIndex scheduleIndex;
+    private final NotificationService notificationService;
+    private final TransactionTemplate transactionTemplate;
+    private final JobLeaseService jobLeaseService;
+    private final ConnectorBookingLock bookingLock;
+
+    // guarded by queues
+    private final Map<QueueKey, TreeSet<Waiter>> queues = new HashMap<>();
+    private final Map<Long, Waiter> waitersById = new HashMap<>();
+    // match ngoài thread commit, createReservation cần transaction mới
+    private final ExecutorService matcher = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "waitlist-matcher");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private record QueueKey(Long stationId, String connectorType) {
+        static QueueKey of(Long stationId, String connectorType) {
+            return new QueueKey(stationId, connectorType.trim().toLowerCase(Locale.ROOT));
+        }
+    }
+
+    private record Waiter(Long id, Long userId, Long vehicleId, QueueKey key, String connectorType,
+                          LocalDateTime startTime, LocalDateTime endTime, LocalDateTime createdAt) {
+    }
+
+    private static final Comparator<Waiter> PRIORITY =
+            Comparator.comparing(Waiter::createdAt).thenComparing(Waiter::id);
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        LocalDateTime now = LocalDateTime.now();
+        List<WaitlistEntryRepository.WaiterRow> rows = waitlistRepository.findWaiterRows();
+        Set<QueueKey> keys;
+        int waiting;
+        synchronized (queues) {
+            queues.clear();
+            waitersById.clear();
+            for (WaitlistEntryRepository.WaiterRow row : rows) {
+                // đã tới giờ: expireStarted sẽ đánh dấu EXPIRED và báo cho user
+                if (!row.getStartTime().isAfter(now)) continue;
+                enqueue(new Waiter(row.getId(), row.getUserId(), row.getVehicleId(),
+                        QueueKey.of(row.getStationId(), row.getConnectorType()), row.getConnectorType(),
+                        row.getStartTime(), row.getEndTime(), row.getCreatedAt()));
+            }
+            keys = new HashSet<>(queues.keySet());
+            waiting = waitersById.size();
+        }
+        log.info("Waitlist rebuilt: {} waiting entries in {} queues", waiting, keys.size());
+        // slot có thể đã trống trong lúc downtime
+        for (QueueKey key : keys) submitMatch(key);
+    }
+
+    @Override
+    public WaitlistResponse join(WaitlistRequest request, User user) {
+        Vehicle vehicle = vehicleRepository.findById(request.getVehicleId())
+                .orElseThrow(() -> new AppException.BadRequestException("Vehicle not found"));
+        if (!vehicle.getUser().getId().equals(user.getId())) {
+            throw new AppException.BadRequestException("Vehicle does not belong to this user");
+        }
+        ChargingStation station = chargingStationRepository.findById(request.getStationId())
+                .orElseThrow(() -> new AppException.BadRequestException("Station not found"));
+        validateTime(request);
+
+        String type = request.getConnectorType().trim();
+        boolean hasType = connectorRepository.findIndexRowsByStationId(station.getId()).stream()
+                .anyMatch(c -> c.getType() != null && c.getType().trim().equalsIgnoreCase(type));
+        if (!hasType) {
+            throw new AppException.BadRequestException("Station has no connector of type " + type);
+        }
+        if (waitlistRepository.existsByVehicleIdAndStatus(vehicle.getId(), "WAITING")) {
+            throw new AppException.ConflictException("This vehicle is already on a waitlist");
+        }
+
+        WaitlistEntry saved = waitlistRepository.save(WaitlistEntry.builder()
+                .user(user)
+                .vehicle(vehicle)
+                .station(station)
+                .connectorType(type)
+                .startTime(request.getStartTime())
+                .endTime(request.getEndTime())
+                .status("WAITING")
+                .createdAt(LocalDateTime.now())
+                .build());
+
+        Waiter waiter = new Waiter(saved.getId(), user.getId(), vehicle.getId(), QueueKey.of(station.getId(), type), type,
+                saved.getStartTime(), saved.getEndTime(), saved.getCreatedAt());
+        synchronized (queues) {
+            enqueue(waiter);
+        }
+        // slot có thể vừa trống giữa lúc booking bị từ chối và lúc vào hàng chờ
+        submitMatch(waiter.key());
+        return toResponse(saved);
+    }
+
+    @Override
+    public void cancel(Long id, User user) {
+        WaitlistEntry entry = waitlistRepository.findByIdAndUser(id, user)
+                .orElseThrow(() -> new AppException.BadRequestException("Waitlist entry not found"));
+        if (!"WAITING".equals(entry.getStatus())) {
+            throw new AppException.BadRequestException("Waitlist entry cannot be cancelled");
+        }
+        entry.setStatus("CANCELLED");
+        waitlistRepository.save(entry);
+        synchronized (queues) {
+            dequeue(entry.getId());
+        }
+    }
+
+    @Override
+    public List<WaitlistResponse> getByUser(Long userId) {
+        return waitlistRepository.findByUserIdOrderByCreatedAtDesc(userId).stream()
+                .map(this::toResponse)
+                .toList();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReservationChanged(ReservationChangedEvent event) {
+        onReleased(List.of(event.getReservationId()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReservationsChanged(ReservationsChangedEvent event) {
+        onReleased(event.getReservationIds());
+    }
+
+    // connector hết bảo trì
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onConnectorStatusChanged(ConnectorStatusChangedEvent event) {
+        if (!"MAINTENANCE".equalsIgnoreCase(event.getOldStatus()) || event.getConnectorType() == null) return;
+        submitMatch(QueueKey.of(event.getStationId(), event.getConnectorType()));
+    }
+
+    @EventListener
+    public void onLeaseAcquired(JobLeaseAcquiredEvent event) {
+        if (MATCH_LEASE.equals(event.getJobName())) resync();
+    }
+
+    // bắt người chờ / slot trống từ node khác; chạy trên thread matcher để không chen vào một lượt match đang dở
+    @Scheduled(initialDelay = RESYNC_MS, fixedDelay = RESYNC_MS)
+    public void resync() {
+        if (!jobLeaseService.holds(MATCH_LEASE)) return;
+        matcher.execute(() -> {
+            try {
+                rebuild();
+            } catch (Exception e) {
+                log.error("Waitlist resync failed", e);
+            }
+        });
+    }
+
+    // người chờ tới giờ bắt đầu mà chưa được match; hàng trong memory dọn ở mọi node,
+    // cập nhật DB + notification chỉ node giữ lease làm (đọc từ DB để gồm cả người chờ vào hàng ở node khác)
+    @Scheduled(fixedRate = 60_000)
+    public void expireStarted() {
+        LocalDateTime now = LocalDateTime.now();
+        synchronized (queues) {
+            Iterator<TreeSet<Waiter>> it = queues.values().iterator();
+            while (it.hasNext()) {
+                TreeSet<Waiter> queue = it.next();
+                queue.removeIf(w -> {
+                    if (w.startTime().isAfter(now)) return false;
+                    waitersById.remove(w.id());
+                    return true;
+                });
+                if (queue.isEmpty()) it.remove();
+            }
+        }
+        if (!jobLeaseService.holds(EXPIRY_LEASE)) return;
+
+        List<WaitlistEntryRepository.WaiterRow> expired = transactionTemplate.execute(status -> {
+            List<WaitlistEntryRepository.WaiterRow> rows = waitlistRepository.findStartedWaiterRows(now);
+            if (!rows.isEmpty()) waitlistRepository.expireStarted(now);
+            return rows;
+        });
+        if (expired == null || expired.isEmpty()) return;
+
+        DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("HH:mm dd/MM");
+        List<NotificationService.Draft> drafts = new ArrayList<>(expired.size());
+        for (WaitlistEntryRepository.WaiterRow w : expired) {
+            drafts.add(new NotificationService.Draft(w.getUserId(), String.format(
+                    "No %s connector became available for your waitlist request starting at %s.",
+                    w.getConnectorType(), w.getStartTime().format(timeFormatter))));
+        }
+        notificationService.createNotifications("WAITLIST_EXPIRED", drafts);
+    }
+
+    //-------------helper-------
+    private void onReleased(Collection<Long> reservationIds) {
+        if (reservationIds.isEmpty() || !jobLeaseService.holds(MATCH_LEASE)) return;
+        synchronized (queues) {
+            if (queues.isEmpty()) return;
+        }
+        Set<QueueKey> keys = new HashSet<>();
+        for (ReservationRepository.ReleaseRow row : reservationRepository.findReleaseRowsByIdIn(reservationIds)) {
+            if (!RELEASED_STATUSES.contains(row.getStatus()) || row.getConnectorType() == null) continue;
+            keys.add(QueueKey.of(row.getStationId(), row.getConnectorType()));
+        }
+        for (QueueKey key : keys) submitMatch(key);
+    }
+
+    // node không giữ lease bỏ qua, node giữ lease sẽ thấy người chờ này ở lần resync kế tiếp
+    private void submitMatch(QueueKey key) {
+        synchronized (queues) {
+            if (!queues.containsKey(key)) return;
+        }
+        if (!jobLeaseService.holds(MATCH_LEASE)) return;
+        matcher.execute(() -> {
+            try {
+                match(key);
+            } catch (Exception e) {
+                log.error("Waitlist match failed for {}", key, e);
+            }
+        });
+    }
+
+    // match lần lượt tới khi không còn người chờ nào vừa slot trống; chỉ chạy trên thread matcher
+    private void match(QueueKey key) {
+        Set<Long> tried = new HashSet<>();
+        while (jobLeaseService.holds(MATCH_LEASE)) {
+            Waiter waiter = null;
+            List<ReservationScheduleIndex.FreeConnector> free = List.of();
+            LocalDateTime now = LocalDateTime.now();
+            synchronized (queues) {
+                TreeSet<Waiter> queue = queues.get(key);
+                if (queue == null) return;
+                for (Waiter w : queue) {
+                    if (tried.contains(w.id()) || !w.startTime().isAfter(now)) continue;
+                    free = scheduleIndex.freeConnectors(key.stationId(), w.connectorType(), w.startTime(),
+                            w.endTime().plusMinutes(ReservationScheduleIndex.TURNOVER_MINUTES));
+                    if (!free.isEmpty()) {
+                        waiter = w;
+                        break;
+                    }
+                }
+                if (waiter == null) return;
+                // lấy ra khỏi hàng trong lúc tạo reservation để không match trùng
+                dequeue(waiter.id());
+            }
+            tried.add(waiter.id());
+
+            Long reservationId;
+            try {
+                reservationId = assign(waiter, free);
+            } catch (WaiterGoneException e) {
+                // người chờ vừa huỷ, reservation đã rollback
+                continue;
+            }
+            if (reservationId == null) {
+                // connector vừa bị lấy hoặc vehicle đã có lịch khác -> giữ chỗ trong hàng, thử người kế tiếp
+                synchronized (queues) {
+                    enqueue(waiter);
+                }
+                continue;
+            }
+            notifyMatched(waiter, reservationId);
+        }
+    }
+
+    // tạo reservation và đánh dấu MATCHED trong cùng transaction; null nếu không connector nào nhận.
+    // createReservation tham gia transaction ngoài nên stripe lock của nó nhả trước lúc commit -> giữ stripe (reentrant)
+    // bao cả transaction ngoài, booking khác cùng connector ở node này chỉ thấy slot sau khi đã commit
+    private Long assign(Waiter waiter, List<ReservationScheduleIndex.FreeConnector> free) {
+        for (ReservationScheduleIndex.FreeConnector c : free) {
+            ReservationRequest request = new ReservationRequest(waiter.userId(), waiter.key().stationId(),
+                    c.pillarId(), c.connectorId(), waiter.startTime(), waiter.endTime(), waiter.vehicleId());
+            try {
+                return bookingLock.withConnector(c.connectorId(), () -> transactionTemplate.execute(status -> {
+                    ReservationResponse created = reservationService.createReservation(request);
+                    if (waitlistRepository.markMatched(waiter.id(), created.getReservationId(), LocalDateTime.now()) == 0) {
+                        throw new WaiterGoneException();
+                    }
+                    return created.getReservationId();
+                }));
+            } catch (AppException.BadRequestException | AppException.ConflictException e) {
+                log.debug("Waitlist {} could not take connector {}: {}", waiter.id(), c.connectorId(), e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    private void notifyMatched(Waiter waiter, Long reservationId) {
+        DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("HH:mm dd/MM");
+        String stationName = chargingStationRepository.findById(waiter.key().stationId())
+                .map(ChargingStation::getName)
+                .orElse("the station");
+        notificationService.createNotification(waiter.userId(), "WAITLIST_MATCHED", String.format(
+                "A %s connector at %s is now available from %s to %s. Reservation #%d has been created for you, please complete payment within %d minutes.",
+                waiter.connectorType(), stationName,
+                waiter.startTime().format(timeFormatter), waiter.endTime().format(timeFormatter),
+                reservationId, ReservationTransitionService.PENDING_TIMEOUT_MINUTES));
+    }
+
+    // gọi khi đang giữ lock queues
+    private void enqueue(Waiter waiter) {
+        waitersById.put(waiter.id(), waiter);
+        queues.computeIfAbsent(waiter.key(), k -> new TreeSet<>(PRIORITY)).add(waiter);
+    }
+
+    private void dequeue(Long waiterId) {
+        Waiter waiter = waitersById.remove(waiterId);
+        if (waiter == null) return;
+        TreeSet<Waiter> queue = queues.get(waiter.key());
+        if (queue == null) return;
+        queue.remove(waiter);
+        if (queue.isEmpty()) queues.remove(waiter.key());
+    }
+
+    // entry không còn WAITING lúc đánh dấu match, rollback reservation vừa tạo
+    private static final class WaiterGoneException extends RuntimeException {
+    }
+
+    private void validateTime(WaitlistRequest req) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDate maxDateAllowed = LocalDate.now().plusDays(7);
+        if (!req.getEndTime().isAfter(req.getStartTime())) throw new AppException.BadRequestException("End time must be after start time");
+        if (!req.getStartTime().isAfter(now)) throw new AppException.BadRequestException("Start time must be after current time");
+        if (req.getStartTime().toLocalDate().isAfter(maxDateAllowed) ||
+                req.getEndTime().toLocalDate().isAfter(maxDateAllowed)) {
+            throw new AppException.BadRequestException("Reservations can only be made within 7 days from today");
+        }
+    }
+
+    private WaitlistResponse toResponse(WaitlistEntry entry) {
+        return WaitlistResponse.builder()
+                .waitlistId(entry.getId())
+                .stationId(entry.getStation().getId())
+                .stationName(entry.getStation().getName())
+                .connectorType(entry.getConnectorType())
+                .vehicleId(entry.getVehicle().getId())
+                .status(entry.getStatus())
+                .startTime(entry.getStartTime())
+                .endTime(entry.getEndTime())
+                .createdAt(entry.getCreatedAt())
+                .reservationId(entry.getReservationId())
+                .build();
+    }
+}
@@ -0,0 +1,140 @@
+package com.pham.basis.evcharging.service;
+
+import com.pham.basis.evcharging.event.JobLeaseAcquiredEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lease theo tên job trong bảng job_leases: mỗi job chỉ một node giữ, node giữ gia hạn bằng heartbeat.
+ * Node chết thì lease hết hạn sau LEASE_SECONDS và node khác nhận ở heartbeat kế tiếp.
+ * Hạn lease so bằng giờ của DB nên không phụ thuộc đồng hồ từng node; phía node chỉ tin lease tới
+ * (lúc bắt đầu gia hạn + LEASE_SECONDS - SAFETY_SECONDS) theo nanoTime, nên không bao giờ tin lâu hơn DB.
+ * Job chỉ cần gọi holds(name) trước khi chạy; lần gọi đầu đăng ký job để heartbeat gia hạn.
+ * Heartbeat chạy trên thread riêng, không dùng scheduler mặc định của @Scheduled (chỉ một thread): job nào chạy
+ * lâu hơn LEASE_SECONDS ở đó sẽ làm mọi lease hết hạn. Listener của JobLeaseAcquiredEvent (thường dựng lại state,
+ * có thể lâu) cũng chạy trên thread riêng để không chặn heartbeat.
+ * Event do job trên node giữ lease phát ra chỉ tới read model in-memory của node đó; node khác bắt kịp qua
+ * ReadModelReconciler (poll DB định kỳ), nên trễ một khoảng chứ không tức thì.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class JobLeaseService {
+
+    private static final long LEASE_SECONDS = 15;
+    private static final long HEARTBEAT_MS = 5_000;
+    // bù thời gian round-trip tới DB lúc gia hạn
+    private static final long SAFETY_SECONDS = 2;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final String owner = ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID();
+    private final Set<String> jobs = ConcurrentHashMap.newKeySet();
+    // job -> nanoTime tới lúc đó node này còn chắc chắn giữ lease
+    private final Map<String, Long> heldUntil = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService heartbeatExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "job-lease-heartbeat");
+        t.setDaemon(true);
+        return t;
+    });
+    private final ExecutorService notifier = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "job-lease-events");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public boolean holds(String jobName) {
+        if (jobs.add(jobName)) renewAndNotify(jobName);
+        Long until = heldUntil.get(jobName);
+        return until != null && System.nanoTime() - until < 0;
+    }
+
+    @PostConstruct
+    public void startHeartbeat() {
+        heartbeatExecutor.scheduleAtFixedRate(this::heartbeat, HEARTBEAT_MS, HEARTBEAT_MS, TimeUnit.MILLISECONDS);
+    }
+
+    // trả lease ngay khi tắt để node khác nhận mà không phải chờ hết hạn
+    @PreDestroy
+    public void releaseAll() {
+        heartbeatExecutor.shutdownNow();
+        notifier.shutdownNow();
+        if (heldUntil.isEmpty()) return;
+        try {
+            jdbcTemplate.update("UPDATE job_leases SET expires_at = SYSUTCDATETIME() WHERE owner = ?", owner);
+        } catch (DataAccessException e) {
+            log.warn("Could not release job leases: {}", e.getMessage());
+        }
+        heldUntil.clear();
+    }
+
+    //-------------helper-------
+    private void heartbeat() {
+        // exception lọt ra sẽ huỷ các lần chạy sau của scheduleAtFixedRate
+        try {
+            for (String job : jobs) {
+                if (renew(job)) notifier.execute(() -> eventPublisher.publishEvent(new JobLeaseAcquiredEvent(job)));
+            }
+        } catch (RuntimeException e) {
+            log.error("Job lease heartbeat failed", e);
+        }
+    }
+
+    // listener chạy ngoài synchronized, job khác vẫn gọi holds() được trong lúc nó dựng lại state
+    private void renewAndNotify(String jobName) {
+        if (renew(jobName)) eventPublisher.publishEvent(new JobLeaseAcquiredEvent(jobName));
+    }
+
+    // true nếu vừa nhận lease (trước đó không giữ)
+    private synchronized boolean renew(String jobName) {
+        long startedAt = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = tryAcquire(jobName);
+        } catch (DataAccessException e) {
+            // không gia hạn được thì để lease local tự hết hạn, không tin thêm
+            log.warn("Job lease {} renewal failed: {}", jobName, e.getMessage());
+            return false;
+        }
+        if (!acquired) {
+            if (heldUntil.remove(jobName) != null) log.info("Job lease {} lost", jobName);
+            return false;
+        }
+        Long previous = heldUntil.put(jobName,
+                startedAt + TimeUnit.SECONDS.toNanos(LEASE_SECONDS - SAFETY_SECONDS));
+        if (previous != null && startedAt - previous < 0) return false;
+        log.info("Job lease {} acquired by {}", jobName, owner);
+        return true;
+    }
+
+    // gia hạn nếu đang giữ hoặc lease cũ đã hết hạn; chưa có dòng thì tạo
+    private boolean tryAcquire(String jobName) {
+        int updated = jdbcTemplate.update(
+                "UPDATE job_leases SET owner = ?, expires_at = DATEADD(second, ?, SYSUTCDATETIME()), renewed_at = SYSUTCDATETIME()"
+                        + " WHERE job_name = ? AND (owner = ? OR expires_at < SYSUTCDATETIME())",
+                owner, LEASE_SECONDS, jobName, owner);
+        if (updated > 0) return true;
+        return jdbcTemplate.update(
+                "INSERT INTO job_leases (job_name, owner, expires_at, renewed_at)"
+                        + " SELECT ?, ?, DATEADD(second, ?, SYSUTCDATETIME()), SYSUTCDATETIME()"
+                        + " WHERE NOT EXISTS (SELECT 1 FROM job_leases WITH (UPDLOCK, HOLDLOCK) WHERE job_name = ?)",
+                jobName, owner, LEASE_SECONDS, jobName) > 0;
+    }
+}
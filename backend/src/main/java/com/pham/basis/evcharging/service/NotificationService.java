@@ -7,6 +7,11 @@ import java.util.List;
 
 public interface NotificationService {
     Notification createNotification(Long userId, String type, String message);
+    // batch insert, không load User; dùng cho các job xử lý hàng loạt
+    void createNotifications(String type, List<Draft> drafts);
     List<NotificationResponse> getNotification(Long userId);
     void updateNotification(Long notificationId);
+
+    record Draft(Long userId, String message) {
+    }
 }
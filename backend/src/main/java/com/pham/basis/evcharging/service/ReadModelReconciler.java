@@ -0,0 +1,132 @@
+package com.pham.basis.evcharging.service;
+
+import com.pham.basis.evcharging.event.ConnectorStatusChangedEvent;
+import com.pham.basis.evcharging.event.StationChangedEvent;
+import com.pham.basis.evcharging.repository.ConnectorRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Event (StationChangedEvent, ConnectorStatusChangedEvent...) chỉ tới listener trong JVM phát ra nó, nên thay đổi ở node
+ * khác (nhất là từ job chỉ chạy trên node giữ lease) không tới các read model trong memory của node này:
+ * StationSummaryStore, StationFilterIndex, StationClusterIndex, StationTextIndex, StationSpatialIndex,
+ * StationDetailCache và subscriber SSE. Chạy trên mọi node, không dùng JobLeaseService:
+ * - mỗi POLL_MS đọc trạng thái mọi connector, so với lần trước: connector đổi trạng thái thì đẩy delta SSE,
+ *   station có connector đổi / thêm / xoá thì phát StationChangedEvent local để các read model đọc lại station đó
+ *   (không phát ConnectorStatusChangedEvent: summary có thể đã load sau thay đổi, áp delta sẽ đếm hai lần)
+ * - mỗi FULL_REBUILD_MS dựng lại toàn bộ index và bỏ cache, bắt cả thay đổi không đụng tới connector (tên, toạ độ, giá)
+ * Nên read model ở node khác trễ tối đa POLL_MS với trạng thái connector và FULL_REBUILD_MS với phần còn lại.
+ * ReservationScheduleIndex tự resync (ReservationScheduleIndex.resync).
+ * Poll và rebuild chạy tuần tự trên thread riêng, không chiếm scheduler mặc định (chỉ một thread).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReadModelReconciler {
+
+    private static final long POLL_MS = 30_000;
+    private static final long FULL_REBUILD_MS = 10 * 60_000;
+
+    private final ConnectorRepository connectorRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final StationSpatialIndex spatialIndex;
+    private final StationTextIndex textIndex;
+    private final StationFilterIndex filterIndex;
+    private final StationClusterIndex clusterIndex;
+    private final StationDetailCache detailCache;
+    private final StationSummaryStore summaryStore;
+    private final ConnectorStatusStreamService streamService;
+
+    // trạng thái connector lần poll trước; rỗng -> lần poll đầu chỉ ghi lại, không phát gì
+    private final Map<Long, ConnectorState> lastSeen = new ConcurrentHashMap<>();
+    private volatile boolean primed = false;
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "read-model-reconcile");
+        t.setDaemon(true);
+        return t;
+    });
+
+    @Scheduled(initialDelay = POLL_MS, fixedDelay = POLL_MS)
+    public void schedulePoll() {
+        worker.execute(this::pollConnectors);
+    }
+
+    @Scheduled(initialDelay = FULL_REBUILD_MS, fixedDelay = FULL_REBUILD_MS)
+    public void scheduleRebuild() {
+        worker.execute(this::rebuildAll);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdownNow();
+    }
+
+    public void pollConnectors() {
+        try {
+            List<ConnectorRepository.ConnectorIndexRow> rows = connectorRepository.findAllIndexRows();
+            Set<Long> changedStations = new LinkedHashSet<>();
+            Set<Long> present = new HashSet<>();
+            for (ConnectorRepository.ConnectorIndexRow row : rows) {
+                present.add(row.getId());
+                ConnectorState now = new ConnectorState(row.getStationId(), row.getType(), row.getStatus());
+                ConnectorState before = lastSeen.put(row.getId(), now);
+                if (!primed || now.equals(before)) continue;
+                if (row.getStationId() != null) changedStations.add(row.getStationId());
+                if (before != null && !Objects.equals(before.status(), now.status())) {
+                    streamService.publishStatus(row.getStationId(), row.getId(), row.getType(), row.getStatus());
+                }
+            }
+            Iterator<Map.Entry<Long, ConnectorState>> it = lastSeen.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Long, ConnectorState> e = it.next();
+                if (present.contains(e.getKey())) continue;
+                if (primed && e.getValue().stationId() != null) changedStations.add(e.getValue().stationId());
+                it.remove();
+            }
+            primed = true;
+
+            for (Long stationId : changedStations) eventPublisher.publishEvent(new StationChangedEvent(stationId));
+            if (!changedStations.isEmpty()) {
+                log.debug("Read model reconcile: {} stations changed on other nodes", changedStations.size());
+            }
+        } catch (Exception e) {
+            log.error("Read model connector poll failed", e);
+        }
+    }
+
+    public void rebuildAll() {
+        try {
+            // spatial trước: refreshBoxes đọc bbox từ spatial index
+            spatialIndex.rebuild();
+            textIndex.rebuild();
+            filterIndex.rebuild();
+            clusterIndex.rebuild();
+            detailCache.invalidateAll();
+            summaryStore.invalidateAll();
+            streamService.refreshBoxes();
+        } catch (Exception e) {
+            log.error("Read model full rebuild failed", e);
+        }
+    }
+
+    // thay đổi của chính node này đã tới read model qua event, ghi lại để lần poll sau không phát lần nữa
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onConnectorStatusChanged(ConnectorStatusChangedEvent event) {
+        lastSeen.computeIfPresent(event.getConnectorId(),
+                (id, s) -> new ConnectorState(s.stationId(), s.type(), event.getNewStatus()));
+    }
+
+    //-------------helper-------
+    private record ConnectorState(Long stationId, String type, String status) {
+    }
+}
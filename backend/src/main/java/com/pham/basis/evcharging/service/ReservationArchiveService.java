@@ -0,0 +1,119 @@
+package com.pham.basis.evcharging.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Hot/cold split: reservation đã kết thúc (COMPLETED / EXPIRED / CANCELLED) quá retention ngày được chuyển
+ * sang reservations_archive, token của nó sang one_time_token_archive, để bảng reservations chỉ còn dữ liệu nóng.
+ * Mỗi chunk là một transaction riêng (copy + delete trong cùng một batch SQL) nên lock ngắn và dừng giữa chừng vẫn đúng.
+ * Charging session vẫn ở bảng chính (loyalty_point và analytics đọc nó), chỉ bỏ FK reservation_id;
+ * liên kết được giữ ở reservations_archive.session_id.
+ * Chạy trên thread riêng (scheduler mặc định của @Scheduled chỉ một thread, chạy lâu sẽ chặn tick / sync / waitlist)
+ * và mỗi lượt dừng sau MAX_RUN_MS, phần còn lại để đêm sau.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReservationArchiveService {
+
+    public static final String LEASE = "reservation-archive";
+    private static final int CHUNK_SIZE = 1_000;
+    private static final long MAX_RUN_MS = 30 * 60_000;
+
+    private static final String ARCHIVE_CHUNK_SQL = """
+            SET NOCOUNT ON;
+            DECLARE @ids TABLE (id BIGINT PRIMARY KEY);
+            DECLARE @now DATETIME2 = SYSDATETIME();
+
+            INSERT INTO @ids (id)
+            SELECT TOP (?) r.reservation_id FROM reservations r
+            WHERE r.status IN ('COMPLETED', 'EXPIRED', 'CANCELLED') AND r.end_time < ?
+            ORDER BY r.reservation_id;
+
+            INSERT INTO reservations_archive (reservation_id, status, hold_fee, created_at, start_time, end_time, expired_at,
+                notified_before_start, user_id, station_id, pillar_id, connector_id, vehicle_id, session_id, archived_at)
+            SELECT r.reservation_id, r.status, r.hold_fee, r.created_at, r.start_time, r.end_time, r.expired_at,
+                r.notified_before_start, r.user_id, r.station_id, r.pillar_id, r.connector_id, r.vehicle_id, s.session_id, @now
+            FROM reservations r
+            JOIN @ids i ON i.id = r.reservation_id
+            OUTER APPLY (SELECT TOP (1) cs.session_id FROM charging_sessions cs
+                         WHERE cs.reservation_id = r.reservation_id ORDER BY cs.session_id) s;
+
+            INSERT INTO one_time_token_archive (token, user_id, reservation_id, created_at, expiry_date, used, used_at, archived_at)
+            SELECT t.token, t.user_id, t.reservation_id, t.created_at, t.expiry_date, t.used, t.used_at, @now
+            FROM one_time_token t JOIN @ids i ON i.id = t.reservation_id;
+
+            DELETE t FROM one_time_token t JOIN @ids i ON i.id = t.reservation_id;
+            UPDATE cs SET reservation_id = NULL FROM charging_sessions cs JOIN @ids i ON i.id = cs.reservation_id;
+            DELETE r FROM reservations r JOIN @ids i ON i.id = r.reservation_id;
+
+            SELECT COUNT(*) FROM @ids;
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final JobLeaseService jobLeaseService;
+
+    private final ExecutorService archiver = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "reservation-archive");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Value("${app.archive.reservation-retention-days:90}")
+    private int retentionDays;
+
+    // chỉ đẩy việc sang thread archiver rồi trả scheduler ngay; lượt trước chưa xong thì bỏ lượt này
+    @Scheduled(cron = "0 30 3 * * *")
+    public void archiveNightly() {
+        if (!jobLeaseService.holds(LEASE) || !running.compareAndSet(false, true)) return;
+        archiver.execute(() -> {
+            try {
+                int archived = archiveOlderThan(LocalDateTime.now().minusDays(retentionDays));
+                if (archived > 0) log.info("Archived {} reservations older than {} days", archived, retentionDays);
+            } catch (Exception e) {
+                log.error("Reservation archive failed", e);
+            } finally {
+                running.set(false);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        archiver.shutdownNow();
+    }
+
+    // chuyển theo từng chunk tới khi hết hoặc hết MAX_RUN_MS; mất lease giữa chừng thì dừng, node giữ lease chạy tiếp đêm sau
+    public int archiveOlderThan(LocalDateTime cutoff) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(MAX_RUN_MS);
+        int total = 0;
+        int moved;
+        do {
+            if (!jobLeaseService.holds(LEASE)) break;
+            if (System.nanoTime() - deadline > 0) {
+                log.info("Reservation archive stopped after {} ms, {} archived so far; continuing next run", MAX_RUN_MS, total);
+                break;
+            }
+            Integer count = transactionTemplate.execute(status ->
+                    jdbcTemplate.queryForObject(ARCHIVE_CHUNK_SQL, Integer.class, CHUNK_SIZE, cutoff));
+            moved = count == null ? 0 : count;
+            total += moved;
+        } while (moved == CHUNK_SIZE);
+        return total;
+    }
+}
@@ -0,0 +1,135 @@
+package com.pham.basis.evcharging.service;
+
+import com.pham.basis.evcharging.event.ConnectorStatusChangedEvent;
+import com.pham.basis.evcharging.event.ReservationsChangedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * Chuyển trạng thái reservation hàng loạt bằng SQL, dùng khi có nhiều deadline tới hạn cùng lúc
+ * (start lại sau khi downtime, hoặc một tick có quá nhiều timer).
+ * Mỗi chunk là một transaction: UPDATE TOP (n) ... OUTPUT lấy id vừa đổi, reset connector bằng một UPDATE ... IN,
+ * notification insert theo batch. Rule và thứ tự giống ReservationTransitionService.advanceReservation
+ * (trừ notification nhắc trước giờ, vẫn chạy theo từng reservation).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReservationBulkTransitionService {
+
+    private static final int CHUNK = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final NotificationService notificationService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // condition so sánh với bound(now)
+    private record Transition(String name, String fromStatuses, String condition,
+                              UnaryOperator<LocalDateTime> bound, boolean setExpiredAt,
+                              String newStatus, String connectorStatus,
+                              String notificationType, Function<String, String> message) {
+    }
+
+    private record Row(Long reservationId, Long connectorId, Long userId, String stationName) {
+    }
+
+    private static final List<Transition> TRANSITIONS = List.of(
+            // PENDING > 5 phút -> EXPIRED
+            new Transition("pending-timeout", "'PENDING'", "r.created_at < ?",
+                    now -> now.minusMinutes(ReservationTransitionService.PENDING_TIMEOUT_MINUTES), false,
+                    "EXPIRED", "AVAILABLE", null, null),
+            // trễ quá GRACE_MINUTES sau start (SCHEDULED cũng vậy: sweep cũ cho nó qua VERIFYING rồi expire luôn)
+            new Transition("grace-expired", "'SCHEDULED', 'VERIFYING', 'VERIFIED', 'PLUGGED'", "r.start_time < ?",
+                    now -> now.minusMinutes(ReservationTransitionService.GRACE_MINUTES), true,
+                    "EXPIRED", "AVAILABLE", "RESERVATION_EXPIRED",
+                    station -> String.format("Your reservation at %s has been canceled because you did not start charging within %d minutes after the scheduled start.",
+                            station, ReservationTransitionService.GRACE_MINUTES)),
+            // quá end time
+            new Transition("end-expired", "'VERIFYING', 'VERIFIED', 'PLUGGED', 'CHARGING', 'SCHEDULED'", "r.end_time < ?",
+                    UnaryOperator.identity(), true,
+                    "EXPIRED", "AVAILABLE", "RESERVATION_EXPIRED",
+                    station -> String.format("Your reservation at %s has expired because the end time has passed.", station)),
+            // SCHEDULED tới giờ -> VERIFYING + OCCUPIED
+            new Transition("start", "'SCHEDULED'", "r.start_time < ?",
+                    UnaryOperator.identity(), false,
+                    "VERIFYING", "OCCUPIED", null, null)
+    );
+
+    /**
+     * Chạy toàn bộ rule tới thời điểm now, trả về id các reservation đã đổi trạng thái.
+     */
+    public Set<Long> run(LocalDateTime now) {
+        Set<Long> changed = new HashSet<>();
+        for (Transition t : TRANSITIONS) {
+            LocalDateTime bound = t.bound().apply(now);
+            int total = 0;
+            List<Row> rows;
+            do {
+                rows = transactionTemplate.execute(status -> applyChunk(t, bound, now));
+                for (Row row : rows) changed.add(row.reservationId());
+                total += rows.size();
+            } while (rows.size() == CHUNK);
+            if (total > 0) log.info("Bulk reservation transition {}: {} reservations", t.name(), total);
+        }
+        return changed;
+    }
+
+    //-------------helper-------
+    private List<Row> applyChunk(Transition t, LocalDateTime bound, LocalDateTime now) {
+        String sql = "UPDATE TOP (" + CHUNK + ") r SET r.status = ?"
+                + (t.setExpiredAt() ? ", r.expired_at = ?" : "")
+                + " OUTPUT INSERTED.reservation_id, INSERTED.connector_id, INSERTED.user_id, s.name"
+                + " FROM reservations r JOIN charging_stations s ON s.station_id = r.station_id"
+                + " WHERE r.status IN (" + t.fromStatuses() + ") AND " + t.condition();
+        List<Object> params = new ArrayList<>(3);
+        params.add(t.newStatus());
+        if (t.setExpiredAt()) params.add(Timestamp.valueOf(now));
+        params.add(Timestamp.valueOf(bound));
+
+        List<Row> rows = jdbcTemplate.query(sql,
+                (rs, i) -> new Row(rs.getLong(1), rs.getLong(2), rs.getLong(3), rs.getString(4)),
+                params.toArray());
+        if (rows.isEmpty()) return rows;
+
+        resetConnectors(rows.stream().map(Row::connectorId).distinct().toList(), t.connectorStatus());
+
+        if (t.notificationType() != null) {
+            List<NotificationService.Draft> drafts = new ArrayList<>(rows.size());
+            for (Row row : rows) drafts.add(new NotificationService.Draft(row.userId(), t.message().apply(row.stationName())));
+            notificationService.createNotifications(t.notificationType(), drafts);
+        }
+
+        // listener chạy sau khi chunk commit
+        eventPublisher.publishEvent(new ReservationsChangedEvent(rows.stream().map(Row::reservationId).toList()));
+        return rows;
+    }
+
+    // chỉ connector thật sự đổi trạng thái mới có trong OUTPUT và mới bắn event
+    private void resetConnectors(List<Long> connectorIds, String status) {
+        String placeholders = String.join(", ", Collections.nCopies(connectorIds.size(), "?"));
+        String sql = "UPDATE c SET c.status = ?"
+                + " OUTPUT INSERTED.id, DELETED.status, INSERTED.type, p.station_id"
+                + " FROM connectors c JOIN charger_pillars p ON p.id = c.pillar_id"
+                + " WHERE c.id IN (" + placeholders + ") AND c.status <> ?";
+        List<Object> params = new ArrayList<>(connectorIds.size() + 2);
+        params.add(status);
+        params.addAll(connectorIds);
+        params.add(status);
+
+        jdbcTemplate.query(sql, rs -> {
+            eventPublisher.publishEvent(new ConnectorStatusChangedEvent(
+                    rs.getLong(4), rs.getLong(1), rs.getString(3), rs.getString(2), status));
+        }, params.toArray());
+    }
+}
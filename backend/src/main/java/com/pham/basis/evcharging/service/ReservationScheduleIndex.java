@@ -0,0 +1,502 @@
+package com.pham.basis.evcharging.service;
+
+import com.pham.basis.evcharging.event.ConnectorStatusChangedEvent;
+import com.pham.basis.evcharging.event.ReservationChangedEvent;
+import com.pham.basis.evcharging.event.ReservationsChangedEvent;
+import com.pham.basis.evcharging.event.StationChangedEvent;
+import com.pham.basis.evcharging.event.StationsImportedEvent;
+import com.pham.basis.evcharging.repository.ConnectorRepository;
+import com.pham.basis.evcharging.repository.ReservationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Lịch reservation đang giữ chỗ theo từng connector và từng vehicle, nằm trong memory.
+ * Mỗi connector / vehicle là một TreeSet interval sắp theo start kèm maxSpan (interval dài nhất đã thấy):
+ * interval giao [s, e) phải có start trong [s - maxSpan, e) nên kiểm tra giao là O(log n + k).
+ * Dùng cho search "station có connector trống trong khung giờ" và kiểm tra trùng lịch khi đặt chỗ,
+ * thay cho các range query lên bảng reservations.
+ * Ngoài ra mỗi connector có một bitmap slot 15 phút (GRID_DAYS ngày tính từ 00:00 hôm nay) cập nhật
+ * mỗi khi interval của connector đổi, để trả lưới trống / bận của cả station mà không phải duyệt lại interval.
+ * Event chỉ tới từ node phát ra nên index của node khác có thể cũ: mọi node dựng lại từ DB mỗi RESYNC_MS,
+ * và kiểm tra lúc đặt chỗ chỉ tin index khi nó báo "trống", còn báo trùng thì hỏi lại DB.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ReservationScheduleIndex {
+
+    // trạng thái còn giữ connector, giống findOverlappingReservations
+    public static final Set<String> ACTIVE_STATUSES =
+            Set.of("PENDING", "SCHEDULED", "VERIFYING", "VERIFIED", "PLUGGED", "CHARGING");
+    // thời gian dọn sau mỗi lượt sạc, booking mới phải cách reservation trước đó ít nhất chừng này
+    public static final long TURNOVER_MINUTES = 10;
+    public static final int SLOT_MINUTES = 15;
+    public static final int SLOTS_PER_DAY = 24 * 60 / SLOT_MINUTES;
+    // hôm nay + 7 ngày, đúng khoảng validateTime cho phép đặt
+    public static final int GRID_DAYS = 8;
+    public static final int GRID_SLOTS = GRID_DAYS * SLOTS_PER_DAY;
+
+    private static final int GRID_WORDS = (GRID_SLOTS + 63) / 64;
+    private static final long SLOT_NANOS = SLOT_MINUTES * 60_000_000_000L;
+    private static final long TURNOVER_NANOS = TURNOVER_MINUTES * 60_000_000_000L;
+    // chạy trên mọi node, không cần lease
+    private static final long RESYNC_MS = 5 * 60_000L;
+
+    private final ReservationRepository reservationRepository;
+    private final ConnectorRepository connectorRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, IntervalSet> byConnector = new HashMap<>();
+    private final Map<Long, IntervalSet> byVehicle = new HashMap<>();
+    private final Map<Long, Slot> slotsById = new HashMap<>();
+    private final Map<Long, List<ConnectorRef>> connectorsByStation = new HashMap<>();
+    private final Set<Long> outOfService = new HashSet<>();
+    // bit i = 1 nếu slot i bận (có reservation giao [slot, slot + 15 phút + turnover)); connector không có bit nào thì không có entry
+    private final Map<Long, long[]> busyGrid = new HashMap<>();
+    private volatile LocalDate gridDay = LocalDate.now();
+    private volatile boolean ready = false;
+
+    @EventListener({ApplicationReadyEvent.class, StationsImportedEvent.class})
+    public void rebuild() {
+        List<ConnectorRepository.ConnectorIndexRow> connectors = connectorRepository.findAllIndexRows();
+        List<ReservationRepository.ScheduleRow> rows = reservationRepository.findActiveScheduleRows();
+
+        lock.writeLock().lock();
+        try {
+            byConnector.clear();
+            byVehicle.clear();
+            slotsById.clear();
+            connectorsByStation.clear();
+            outOfService.clear();
+            for (ConnectorRepository.ConnectorIndexRow c : connectors) addConnector(c);
+            for (ReservationRepository.ScheduleRow row : rows) upsert(row);
+            rebuildGrid(LocalDate.now());
+        } finally {
+            lock.writeLock().unlock();
+        }
+        ready = true;
+        log.info("Reservation schedule index built: {} connectors, {} active reservations",
+                connectors.size(), rows.size());
+    }
+
+    // bắt thay đổi từ node khác (event không đi qua node)
+    @Scheduled(initialDelay = RESYNC_MS, fixedDelay = RESYNC_MS)
+    public void resync() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.error("Reservation schedule index resync failed", e);
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Giữ lại các station (theo thứ tự của stationIds) có ít nhất một connector đúng loại
+     * (types null/rỗng = mọi loại), không bảo trì và không vướng reservation nào trong [start, end).
+     * Khung giờ được cộng thêm TURNOVER_MINUTES giống kiểm tra lúc đặt chỗ.
+     */
+    public List<Long> filterFree(Collection<Long> stationIds, List<String> types,
+                                 LocalDateTime start, LocalDateTime end) {
+        Set<String> wanted = null;
+        if (types != null && !types.isEmpty()) {
+            wanted = new HashSet<>();
+            for (String t : types) if (t != null) wanted.add(normalizeType(t));
+        }
+        long s = toKey(start);
+        long e = toKey(end.plusMinutes(TURNOVER_MINUTES));
+
+        List<Long> result = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Long stationId : stationIds) {
+                List<ConnectorRef> refs = connectorsByStation.get(stationId);
+                if (refs == null) continue;
+                for (ConnectorRef ref : refs) {
+                    if (wanted != null && !wanted.contains(ref.type())) continue;
+                    if (outOfService.contains(ref.connectorId())) continue;
+                    IntervalSet set = byConnector.get(ref.connectorId());
+                    if (set == null || set.find(s, e, false, null) == null) {
+                        result.add(stationId);
+                        break;
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    /**
+     * Reservation đang giữ connector và giao [start, end), bỏ qua excludeReservationId (null = không bỏ).
+     * Giống findOverlappingReservations: interval nửa mở, chạm nhau không tính là trùng.
+     */
+    public Optional<Conflict> findConnectorConflict(Long connectorId, LocalDateTime start, LocalDateTime end,
+                                                    Long excludeReservationId) {
+        lock.readLock().lock();
+        try {
+            IntervalSet set = byConnector.get(connectorId);
+            if (set == null) return Optional.empty();
+            return Optional.ofNullable(set.find(toKey(start), toKey(end), false, excludeReservationId))
+                    .map(ReservationScheduleIndex::toConflict);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Reservation của vehicle giao [start, end].
+     * Giống findVehicleOverlappingReservations: interval đóng, chạm nhau cũng tính là trùng.
+     */
+    public Optional<Conflict> findVehicleConflict(Long vehicleId, LocalDateTime start, LocalDateTime end) {
+        lock.readLock().lock();
+        try {
+            IntervalSet set = byVehicle.get(vehicleId);
+            if (set == null) return Optional.empty();
+            return Optional.ofNullable(set.find(toKey(start), toKey(end), true, null))
+                    .map(ReservationScheduleIndex::toConflict);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Pillar của station có connector loại connectorType và không connector nào của pillar bị giữ trong [start, end).
+     * Thay cho ChargerPillarRepository.findAvailableByStationAndConnectorTypeBetween.
+     */
+    public List<Long> freePillarIds(Long stationId, String connectorType, LocalDateTime start, LocalDateTime end) {
+        String type = normalizeType(connectorType);
+        long s = toKey(start), e = toKey(end);
+        lock.readLock().lock();
+        try {
+            List<ConnectorRef> refs = connectorsByStation.get(stationId);
+            if (refs == null) return List.of();
+            Set<Long> withType = new LinkedHashSet<>();
+            Set<Long> busy = new HashSet<>();
+            for (ConnectorRef ref : refs) {
+                if (ref.type().equals(type)) withType.add(ref.pillarId());
+                IntervalSet set = byConnector.get(ref.connectorId());
+                if (set != null && set.find(s, e, false, null) != null) busy.add(ref.pillarId());
+            }
+            withType.removeAll(busy);
+            return new ArrayList<>(withType);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Bitmap slot bận của các connector, bản copy nên caller dùng tự do.
+     * Connector không có reservation nào trong lưới trả về mảng toàn 0.
+     * Qua ngày mới thì lưới được dựng lại lần đầu có người đọc.
+     */
+    public SlotGrid slotGrid(Collection<Long> connectorIds) {
+        LocalDate today = LocalDate.now();
+        if (!today.equals(gridDay)) {
+            lock.writeLock().lock();
+            try {
+                if (!today.equals(gridDay)) rebuildGrid(today);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        lock.readLock().lock();
+        try {
+            Map<Long, long[]> bits = new HashMap<>();
+            for (Long id : connectorIds) {
+                long[] busy = busyGrid.get(id);
+                bits.put(id, busy == null ? new long[GRID_WORDS] : busy.clone());
+            }
+            return new SlotGrid(gridDay.atStartOfDay(), bits);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Connector loại connectorType của station, không bảo trì và không vướng reservation nào trong [start, end)
+     * (caller tự cộng turnover giống findConnectorConflict). Theo thứ tự connector của station.
+     * Kèm end của reservation liền trước và start của reservation liền sau (null nếu không có) để chấm độ khít.
+     */
+    public List<FreeConnector> freeConnectors(Long stationId, String connectorType, LocalDateTime start, LocalDateTime end) {
+        String type = normalizeType(connectorType);
+        long s = toKey(start), e = toKey(end);
+        lock.readLock().lock();
+        try {
+            List<ConnectorRef> refs = connectorsByStation.get(stationId);
+            if (refs == null) return List.of();
+            List<FreeConnector> result = new ArrayList<>();
+            for (ConnectorRef ref : refs) {
+                if (!ref.type().equals(type) || outOfService.contains(ref.connectorId())) continue;
+                IntervalSet set = byConnector.get(ref.connectorId());
+                if (set == null) {
+                    result.add(new FreeConnector(ref.connectorId(), ref.pillarId(), null, null));
+                } else if (set.find(s, e, false, null) == null) {
+                    Slot prev = set.previous(s), next = set.next(e);
+                    result.add(new FreeConnector(ref.connectorId(), ref.pillarId(),
+                            prev == null ? null : fromKey(prev.end()), next == null ? null : fromKey(next.start())));
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public record FreeConnector(Long connectorId, Long pillarId, LocalDateTime previousEnd, LocalDateTime nextStart) {
+    }
+
+    public record Conflict(Long reservationId, LocalDateTime startTime, LocalDateTime endTime) {
+    }
+
+    // start = thời điểm bắt đầu slot 0; bit i của busy[connectorId] ứng với slot [start + 15i, start + 15(i+1))
+    public record SlotGrid(LocalDateTime start, Map<Long, long[]> busy) {
+        public boolean isBusy(Long connectorId, int slot) {
+            long[] bits = busy.get(connectorId);
+            return bits != null && (bits[slot >>> 6] & (1L << slot)) != 0;
+        }
+    }
+
+    // chạy trước các listener khác đọc index sau commit (vd waitlist)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReservationChanged(ReservationChangedEvent event) {
+        refresh(event.getReservationId());
+    }
+
+    // đọc lại một reservation từ DB, vd khi index báo trùng mà DB không thấy
+    public void refresh(Long reservationId) {
+        Optional<ReservationRepository.ScheduleRow> row = reservationRepository.findScheduleRowById(reservationId);
+        lock.writeLock().lock();
+        try {
+            removeSlot(reservationId);
+            row.ifPresent(this::upsert);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReservationsChanged(ReservationsChangedEvent event) {
+        if (event.getReservationIds().isEmpty()) return;
+        List<ReservationRepository.ScheduleRow> rows = reservationRepository.findScheduleRowsByIdIn(event.getReservationIds());
+        lock.writeLock().lock();
+        try {
+            for (Long id : event.getReservationIds()) removeSlot(id);
+            for (ReservationRepository.ScheduleRow row : rows) upsert(row);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onConnectorStatusChanged(ConnectorStatusChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (isOutOfService(event.getNewStatus())) {
+                outOfService.add(event.getConnectorId());
+            } else {
+                outOfService.remove(event.getConnectorId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // connector của station có thể đã thêm / đổi loại
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStationChanged(StationChangedEvent event) {
+        List<ConnectorRepository.ConnectorIndexRow> connectors =
+                connectorRepository.findIndexRowsByStationId(event.getStationId());
+        lock.writeLock().lock();
+        try {
+            List<ConnectorRef> old = connectorsByStation.remove(event.getStationId());
+            if (old != null) {
+                for (ConnectorRef ref : old) outOfService.remove(ref.connectorId());
+            }
+            for (ConnectorRepository.ConnectorIndexRow c : connectors) addConnector(c);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //-------------helper------- (gọi khi đang giữ write lock)
+    private void addConnector(ConnectorRepository.ConnectorIndexRow c) {
+        if (c.getStationId() == null) return;
+        String type = c.getType() == null ? "" : normalizeType(c.getType());
+        connectorsByStation.computeIfAbsent(c.getStationId(), k -> new ArrayList<>())
+                .add(new ConnectorRef(c.getId(), c.getPillarId(), type));
+        if (isOutOfService(c.getStatus())) outOfService.add(c.getId());
+    }
+
+    private void upsert(ReservationRepository.ScheduleRow row) {
+        if (row.getConnectorId() == null || row.getStartTime() == null || row.getEndTime() == null) return;
+        if (!ACTIVE_STATUSES.contains(row.getStatus())) return;
+        Slot slot = new Slot(row.getId(), row.getConnectorId(), row.getVehicleId(),
+                toKey(row.getStartTime()), toKey(row.getEndTime()));
+        slotsById.put(slot.id(), slot);
+        byConnector.computeIfAbsent(slot.connectorId(), k -> new IntervalSet()).add(slot);
+        if (slot.vehicleId() != null) {
+            byVehicle.computeIfAbsent(slot.vehicleId(), k -> new IntervalSet()).add(slot);
+        }
+        refreshGrid(slot.connectorId());
+    }
+
+    private void removeSlot(Long reservationId) {
+        Slot slot = slotsById.remove(reservationId);
+        if (slot == null) return;
+        removeFrom(byConnector, slot.connectorId(), slot);
+        if (slot.vehicleId() != null) removeFrom(byVehicle, slot.vehicleId(), slot);
+        refreshGrid(slot.connectorId());
+    }
+
+    private void rebuildGrid(LocalDate day) {
+        gridDay = day;
+        busyGrid.clear();
+        for (Long connectorId : byConnector.keySet()) refreshGrid(connectorId);
+    }
+
+    // tính lại bitmap của một connector từ các interval giao lưới
+    private void refreshGrid(Long connectorId) {
+        IntervalSet set = byConnector.get(connectorId);
+        if (set == null) {
+            busyGrid.remove(connectorId);
+            return;
+        }
+        long base = toKey(gridDay.atStartOfDay());
+        long[] bits = new long[GRID_WORDS];
+        boolean any = false;
+        // slot i bận nếu interval [a, b) giao [t, t + SLOT + TURNOVER) với t = base + i * SLOT
+        for (Slot slot : set.overlapping(base, base + GRID_SLOTS * SLOT_NANOS + TURNOVER_NANOS)) {
+            long first = Math.floorDiv(slot.start() - SLOT_NANOS - TURNOVER_NANOS - base, SLOT_NANOS) + 1;
+            long last = Math.floorDiv(slot.end() - base - 1, SLOT_NANOS);
+            int from = (int) Math.max(0, first);
+            int to = (int) Math.min(GRID_SLOTS - 1, last);
+            for (int i = from; i <= to; i++) bits[i >>> 6] |= 1L << i;
+            any |= from <= to;
+        }
+        if (any) {
+            busyGrid.put(connectorId, bits);
+        } else {
+            busyGrid.remove(connectorId);
+        }
+    }
+
+    private static void removeFrom(Map<Long, IntervalSet> sets, Long key, Slot slot) {
+        IntervalSet set = sets.get(key);
+        if (set != null && set.remove(slot) && set.isEmpty()) sets.remove(key);
+    }
+
+    private static boolean isOutOfService(String status) {
+        return status != null && "MAINTENANCE".equalsIgnoreCase(status.trim());
+    }
+
+    private static String normalizeType(String type) {
+        return type.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // nano giây, chỉ dùng để so sánh nên không cần timezone thật
+    private static long toKey(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + time.getNano();
+    }
+
+    private static LocalDateTime fromKey(long key) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(key, 1_000_000_000L),
+                (int) Math.floorMod(key, 1_000_000_000L), ZoneOffset.UTC);
+    }
+
+    private static Conflict toConflict(Slot slot) {
+        return new Conflict(slot.id(), fromKey(slot.start()), fromKey(slot.end()));
+    }
+
+    private record ConnectorRef(Long connectorId, Long pillarId, String type) {
+    }
+
+    private record Slot(Long id, Long connectorId, Long vehicleId, long start, long end) {
+    }
+
+    // interval của một connector / vehicle, sắp theo (start, id)
+    private static final class IntervalSet {
+        private static final Comparator<Slot> ORDER =
+                Comparator.comparingLong(Slot::start).thenComparing(Slot::id);
+
+        private final TreeSet<Slot> slots = new TreeSet<>(ORDER);
+        // chỉ tăng, đủ để chặn dưới khoảng start cần duyệt
+        private long maxSpan = 0;
+
+        void add(Slot slot) {
+            slots.add(slot);
+            maxSpan = Math.max(maxSpan, slot.end() - slot.start());
+        }
+
+        boolean remove(Slot slot) {
+            return slots.remove(slot);
+        }
+
+        boolean isEmpty() {
+            return slots.isEmpty();
+        }
+
+        // mọi interval giao [s, e), theo thứ tự start
+        List<Slot> overlapping(long s, long e) {
+            List<Slot> result = new ArrayList<>();
+            if (slots.isEmpty() || e <= s) return result;
+            Slot from = new Slot(Long.MIN_VALUE, null, null, s - maxSpan, 0);
+            Slot to = new Slot(Long.MIN_VALUE, null, null, e, 0);
+            for (Slot slot : slots.subSet(from, true, to, false)) {
+                if (slot.end() > s) result.add(slot);
+            }
+            return result;
+        }
+
+        // interval kết thúc muộn nhất trong các interval bắt đầu trước s
+        Slot previous(long s) {
+            Slot best = null;
+            Slot probe = new Slot(Long.MIN_VALUE, null, null, s, 0);
+            for (Slot slot : slots.headSet(probe, false).descendingSet()) {
+                // start đã quá xa, không interval nào trước nó kết thúc muộn hơn best
+                if (best != null && slot.start() + maxSpan <= best.end()) break;
+                if (best == null || slot.end() > best.end()) best = slot;
+            }
+            return best;
+        }
+
+        // interval bắt đầu sớm nhất từ e trở đi
+        Slot next(long e) {
+            return slots.ceiling(new Slot(Long.MIN_VALUE, null, null, e, 0));
+        }
+
+        // interval đầu tiên (theo start) giao [s, e), hoặc [s, e] nếu closed; null nếu không có
+        Slot find(long s, long e, boolean closed, Long excludeId) {
+            if (slots.isEmpty() || e < s || (!closed && e == s)) return null;
+            Slot from = new Slot(Long.MIN_VALUE, null, null, s - maxSpan, 0);
+            Slot to = new Slot(closed ? Long.MAX_VALUE : Long.MIN_VALUE, null, null, e, 0);
+            for (Slot slot : slots.subSet(from, true, to, closed)) {
+                if (excludeId != null && excludeId.equals(slot.id())) continue;
+                if (closed ? slot.end() >= s : slot.end() > s) return slot;
+            }
+            return null;
+        }
+    }
+}
@@ -1,8 +1,14 @@
 package com.pham.basis.evcharging.service;
 
+import com.pham.basis.evcharging.dto.request.AutoReservationRequest;
+import com.pham.basis.evcharging.dto.request.BatchReservationRequest;
 import com.pham.basis.evcharging.dto.request.ReservationRequest;
+import com.pham.basis.evcharging.dto.response.BatchReservationResponse;
 import com.pham.basis.evcharging.dto.response.ReservationResponse;
+import com.pham.basis.evcharging.dto.response.StationAvailabilityResponse;
 import com.pham.basis.evcharging.model.User;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -10,8 +16,11 @@ import java.util.List;
 
 public interface ReservationService {
     ReservationResponse createReservation(ReservationRequest reservationRequest);
-    List<ReservationResponse> getReservationsByUser(Long userId);
+    BatchReservationResponse createReservations(BatchReservationRequest request);
+    ReservationResponse createAutoReservation(AutoReservationRequest request);
+    Page<ReservationResponse> getReservationsByUser(Long userId, Pageable pageable);
     ReservationResponse updateStatus(Long reservationId);
     void cancel(Long id, User user);
     List<ReservationResponse> getReservationByStation(Long stationId);
+    StationAvailabilityResponse getStationAvailability(Long stationId);
 }
@@ -0,0 +1,216 @@
+package com.pham.basis.evcharging.service;
+
+import com.pham.basis.evcharging.event.JobLeaseAcquiredEvent;
+import com.pham.basis.evcharging.event.PaymentPendingEvent;
+import com.pham.basis.evcharging.event.ReservationChangedEvent;
+import com.pham.basis.evcharging.event.ReservationsChangedEvent;
+import com.pham.basis.evcharging.repository.PaymentTransactionRepository;
+import com.pham.basis.evcharging.repository.ReservationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Deadline của reservation / payment PENDING đặt trên HierarchicalTimingWheel (tick 1s, 4 tầng x 64 slot ~ 194 ngày).
+ * Mỗi bản ghi có đúng một timer trỏ tới mốc kế tiếp của nó; mỗi tick chỉ xử lý các timer tới hạn
+ * qua ReservationTransitionService rồi đặt lại timer theo trạng thái mới.
+ * Wheel nằm trong memory nên được dựng lại từ DB lúc start và định kỳ đối soát lại (reconcile).
+ * Chạy nhiều node: chỉ node giữ lease LEASE (JobLeaseService) mới giữ wheel, tick và reconcile, nên mỗi reservation
+ * chỉ được chuyển trạng thái và gửi notification một lần. Node khác bỏ qua event, tick chỉ advance rồi bỏ
+ * (dọn timer còn sót từ lúc còn giữ lease).
+ * Reservation / payment tạo ở node khác không tới node giữ lease qua event: mỗi SYNC_MS chỉ đọc các dòng tạo từ lần
+ * sync trước (lùi SYNC_OVERLAP_SECONDS cho transaction commit muộn / lệch giờ giữa node). Đổi trạng thái ở node khác
+ * không cần: timer cũ tới hạn sẽ đọc lại DB. Reconcile toàn bộ chỉ chạy mỗi FULL_RECONCILE_MS và khi nhận lease.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReservationTimerService {
+
+    private static final long TICK_MS = 1_000;
+    private static final int WHEEL_SIZE = 64;
+    private static final int LEVELS = 4;
+    // rule chưa áp dụng được dù đã tới mốc (lệch giờ, lỗi DB...) -> thử lại sau
+    private static final long RETRY_SECONDS = 30;
+    // một tick có từ chừng này timer tới hạn trở lên thì chuyển trạng thái bằng SQL hàng loạt trước
+    private static final int BULK_THRESHOLD = 100;
+    public static final String LEASE = "reservation-timer";
+    private static final long FULL_RECONCILE_MS = 15 * 60_000;
+    private static final long SYNC_MS = 60_000;
+    private static final long SYNC_OVERLAP_SECONDS = 120;
+
+    private final ReservationRepository reservationRepository;
+    private final PaymentTransactionRepository paymentTransactionRepository;
+    private final ReservationTransitionService transitionService;
+    private final ReservationBulkTransitionService bulkTransitionService;
+    private final JobLeaseService jobLeaseService;
+
+    private final HierarchicalTimingWheel<TimerKey> wheel =
+            new HierarchicalTimingWheel<>(TICK_MS, WHEEL_SIZE, LEVELS, System.currentTimeMillis());
+    // mốc của lần reconcile / sync gần nhất khi đang giữ lease; null -> lần sync kế tiếp phải reconcile toàn bộ
+    private volatile LocalDateTime syncedAt;
+
+    private enum Kind {RESERVATION, PAYMENT}
+
+    private record TimerKey(Kind kind, Long id) {
+    }
+
+    @EventListener
+    public void onLeaseAcquired(JobLeaseAcquiredEvent event) {
+        if (LEASE.equals(event.getJobName())) reconcile();
+    }
+
+    // dựng lại toàn bộ timer từ DB; lưới an toàn cho thay đổi không đi qua event và không bắt được bằng sync
+    // phần đã quá hạn (vd sau downtime) được xử lý hàng loạt trước khi đặt timer
+    @Scheduled(initialDelay = FULL_RECONCILE_MS, fixedRate = FULL_RECONCILE_MS)
+    public void reconcile() {
+        if (!jobLeaseService.holds(LEASE)) return;
+        LocalDateTime now = LocalDateTime.now();
+        bulkTransitionService.run(now);
+        List<ReservationRepository.TimerRow> reservations = reservationRepository.findActiveTimerRows();
+        List<PaymentTransactionRepository.TimerRow> payments = paymentTransactionRepository.findPendingTimerRows();
+        for (ReservationRepository.TimerRow row : reservations) {
+            schedule(new TimerKey(Kind.RESERVATION, row.getId()), ReservationTransitionService.nextReservationDeadline(row));
+        }
+        for (PaymentTransactionRepository.TimerRow row : payments) {
+            schedule(new TimerKey(Kind.PAYMENT, row.getId()), ReservationTransitionService.nextPaymentDeadline(row, now));
+        }
+        syncedAt = now;
+        log.debug("Reservation timers reconciled: {} reservations, {} pending payments, {} timers",
+                reservations.size(), payments.size(), size());
+    }
+
+    // đặt timer cho reservation / payment tạo từ lần sync trước (gồm cả ở node khác), không quét toàn bộ
+    @Scheduled(initialDelay = SYNC_MS, fixedRate = SYNC_MS)
+    public void syncRecent() {
+        if (!jobLeaseService.holds(LEASE)) {
+            syncedAt = null;
+            return;
+        }
+        LocalDateTime since = syncedAt;
+        if (since == null) {
+            reconcile();
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime from = since.minusSeconds(SYNC_OVERLAP_SECONDS);
+        List<ReservationRepository.TimerRow> reservations = reservationRepository.findActiveTimerRowsCreatedSince(from);
+        List<PaymentTransactionRepository.TimerRow> payments = paymentTransactionRepository.findPendingTimerRowsCreatedSince(from);
+        for (ReservationRepository.TimerRow row : reservations) {
+            schedule(new TimerKey(Kind.RESERVATION, row.getId()), ReservationTransitionService.nextReservationDeadline(row));
+        }
+        for (PaymentTransactionRepository.TimerRow row : payments) {
+            schedule(new TimerKey(Kind.PAYMENT, row.getId()), ReservationTransitionService.nextPaymentDeadline(row, now));
+        }
+        syncedAt = now;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReservationChanged(ReservationChangedEvent event) {
+        if (!jobLeaseService.holds(LEASE)) return;
+        rescheduleReservation(event.getReservationId(), LocalDateTime.now(), false);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReservationsChanged(ReservationsChangedEvent event) {
+        if (event.getReservationIds().isEmpty() || !jobLeaseService.holds(LEASE)) return;
+        Set<Long> remaining = new HashSet<>(event.getReservationIds());
+        for (ReservationRepository.TimerRow row : reservationRepository.findTimerRowsByIdIn(event.getReservationIds())) {
+            remaining.remove(row.getId());
+            schedule(new TimerKey(Kind.RESERVATION, row.getId()), ReservationTransitionService.nextReservationDeadline(row));
+        }
+        for (Long id : remaining) schedule(new TimerKey(Kind.RESERVATION, id), null);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPaymentPending(PaymentPendingEvent event) {
+        if (!jobLeaseService.holds(LEASE)) return;
+        reschedulePayment(event.getPaymentId(), LocalDateTime.now(), false);
+    }
+
+    @Scheduled(fixedRate = TICK_MS)
+    public void tick() {
+        boolean leader = jobLeaseService.holds(LEASE);
+        List<TimerKey> due;
+        synchronized (wheel) {
+            due = wheel.advance(System.currentTimeMillis());
+        }
+        // không giữ lease: chỉ bỏ timer tới hạn, node giữ lease sẽ xử lý
+        if (!leader) return;
+        Set<Long> bulkChanged = Set.of();
+        if (due.size() >= BULK_THRESHOLD) {
+            try {
+                bulkChanged = bulkTransitionService.run(LocalDateTime.now());
+            } catch (Exception e) {
+                log.error("Bulk reservation transition failed, falling back to per-reservation", e);
+            }
+        }
+        for (TimerKey key : due) {
+            LocalDateTime now = LocalDateTime.now();
+            // đã xử lý hàng loạt, timer mới được đặt qua ReservationsChangedEvent
+            if (key.kind() == Kind.RESERVATION && bulkChanged.contains(key.id())) continue;
+            try {
+                if (key.kind() == Kind.RESERVATION) {
+                    transitionService.advanceReservation(key.id(), now);
+                    rescheduleReservation(key.id(), now, true);
+                } else {
+                    transitionService.advancePayment(key.id(), now);
+                    reschedulePayment(key.id(), now, true);
+                }
+            } catch (Exception e) {
+                log.error("Timer {} failed, retrying in {}s", key, RETRY_SECONDS, e);
+                schedule(key, now.plusSeconds(RETRY_SECONDS));
+            }
+        }
+    }
+
+    public int size() {
+        synchronized (wheel) {
+            return wheel.size();
+        }
+    }
+
+    //-------------helper-------
+    private void rescheduleReservation(Long id, LocalDateTime now, boolean justFired) {
+        LocalDateTime deadline = reservationRepository.findTimerRowById(id)
+                .map(ReservationTransitionService::nextReservationDeadline)
+                .orElse(null);
+        schedule(new TimerKey(Kind.RESERVATION, id), guard(deadline, now, justFired));
+    }
+
+    private void reschedulePayment(Long id, LocalDateTime now, boolean justFired) {
+        LocalDateTime deadline = paymentTransactionRepository.findTimerRowById(id)
+                .map(row -> ReservationTransitionService.nextPaymentDeadline(row, now))
+                .orElse(null);
+        schedule(new TimerKey(Kind.PAYMENT, id), guard(deadline, now, justFired));
+    }
+
+    // vừa chạy xong mà mốc kế tiếp vẫn ở quá khứ -> rule không áp dụng được, lùi lại để không chạy vòng
+    private static LocalDateTime guard(LocalDateTime deadline, LocalDateTime now, boolean justFired) {
+        if (deadline != null && justFired && !deadline.isAfter(now)) {
+            return now.plusSeconds(RETRY_SECONDS);
+        }
+        return deadline;
+    }
+
+    private void schedule(TimerKey key, LocalDateTime deadline) {
+        synchronized (wheel) {
+            if (deadline == null) {
+                wheel.cancel(key);
+                return;
+            }
+            // các rule so sánh chặt nên chạy sau mốc một tick
+            long millis = deadline.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() + TICK_MS;
+            wheel.schedule(key, millis);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.pham.basis.evcharging.service;
+
+import com.pham.basis.evcharging.event.ReservationChangedEvent;
+import com.pham.basis.evcharging.model.PaymentTransaction;
+import com.pham.basis.evcharging.model.Reservation;
+import com.pham.basis.evcharging.model.User;
+import com.pham.basis.evcharging.repository.PaymentTransactionRepository;
+import com.pham.basis.evcharging.repository.ReservationRepository;
+import com.pham.basis.evcharging.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Các chuyển trạng thái theo thời gian của reservation / payment (trước đây nằm trong sweep 60s).
+ * Mỗi lần gọi xử lý đúng một bản ghi trong transaction riêng; rule kiểm tra lại trạng thái + thời gian
+ * nên gọi sớm, gọi trễ hay gọi lặp đều an toàn.
+ * nextReservationDeadline / nextPaymentDeadline cho biết lúc nào cần gọi lại, dùng cho ReservationTimerService.
+ */
+@Service
+@RequiredArgsConstructor
+public class ReservationTransitionService {
+
+    public static final long PENDING_TIMEOUT_MINUTES = 5;
+    public static final long GRACE_MINUTES = 15;
+    public static final long REMINDER_MINUTES = 5;
+    public static final long PAYMENT_REMINDER_MINUTES = 60;
+    public static final long PAYMENT_LOCK_HOURS = 24;
+
+    private static final Set<String> MIDDLE_STATES = Set.of("VERIFYING", "VERIFIED", "PLUGGED");
+    private static final Set<String> ENDABLE_STATES = Set.of("VERIFYING", "VERIFIED", "PLUGGED", "CHARGING", "SCHEDULED");
+
+    private final ReservationRepository reservationRepository;
+    private final PaymentTransactionRepository paymentTransactionRepository;
+    private final UserRepository userRepository;
+    private final ConnectorStatusService connectorStatusService;
+    private final NotificationService notificationService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // áp các rule theo đúng thứ tự của sweep cũ, một reservation có thể đi qua nhiều bước trong một lần
+    @Transactional
+    public void advanceReservation(Long reservationId, LocalDateTime now) {
+        Reservation r = reservationRepository.findById(reservationId).orElse(null);
+        if (r == null) return;
+        boolean changed = false;
+
+        // PENDING > 5 phút -> EXPIRED
+        if ("PENDING".equals(r.getStatus()) && r.getCreatedAt().isBefore(now.minusMinutes(PENDING_TIMEOUT_MINUTES))) {
+            r.setStatus("EXPIRED");
+            connectorStatusService.updateStatus(r.getConnector(), "AVAILABLE");
+            changed = true;
+        }
+
+        // SCHEDULED tới giờ -> VERIFYING + OCCUPIED
+        if ("SCHEDULED".equals(r.getStatus()) && r.getStartTime().isBefore(now)) {
+            r.setStatus("VERIFYING");
+            connectorStatusService.updateStatus(r.getConnector(), "OCCUPIED");
+            changed = true;
+        }
+
+        //Trễ > GRACE_MINUTES phút sau start cho VERIFYING / VERIFIED / PLUGGED → EXPIRED
+        if (MIDDLE_STATES.contains(r.getStatus()) && r.getStartTime().isBefore(now.minusMinutes(GRACE_MINUTES))) {
+            r.setStatus("EXPIRED");
+            r.setExpiredAt(now);
+            connectorStatusService.updateStatus(r.getConnector(), "AVAILABLE");
+            String msg = String.format("Your reservation at %s has been canceled because you did not start charging within %d minutes after the scheduled start.",
+                    r.getStation().getName(), GRACE_MINUTES);
+            notificationService.createNotification(r.getUser().getId(), "RESERVATION_EXPIRED", msg);
+            changed = true;
+        }
+
+        // quá end time -> EXPIRED
+        if (ENDABLE_STATES.contains(r.getStatus()) && r.getEndTime() != null && r.getEndTime().isBefore(now)) {
+            r.setStatus("EXPIRED");
+            r.setExpiredAt(now);
+            connectorStatusService.updateStatus(r.getConnector(), "AVAILABLE");
+            String msg = String.format(
+                    "Your reservation at %s has expired because the end time has passed.",
+                    r.getStation().getName()
+            );
+            notificationService.createNotification(r.getUser().getId(), "RESERVATION_EXPIRED", msg);
+            changed = true;
+        }
+
+        //Gửi 1 notification trước start 5 phút
+        if ("SCHEDULED".equals(r.getStatus()) && !Boolean.TRUE.equals(r.getNotifiedBeforeStart())
+                && !now.isBefore(r.getStartTime().minusMinutes(REMINDER_MINUTES)) && now.isBefore(r.getStartTime())) {
+            notificationService.createNotification(
+                    r.getUser().getId(),
+                    "Reservation Reminder",
+                    "Your charging reservation will start in less than 5 minutes. If you are more than 15 minutes late after the start time, the system will automatically cancel your reservation."
+            );
+            r.setNotifiedBeforeStart(true);
+            changed = true;
+        }
+
+        if (changed) {
+            reservationRepository.save(r);
+            eventPublisher.publishEvent(new ReservationChangedEvent(r.getId()));
+        }
+    }
+
+    // payment PENDING: nhắc sau 60 phút, quá 24h thì khoá tài khoản và huỷ payment
+    @Transactional
+    public void advancePayment(Long paymentId, LocalDateTime now) {
+        PaymentTransaction p = paymentTransactionRepository.findById(paymentId).orElse(null);
+        if (p == null || !"PENDING".equals(p.getStatus())) return;
+        LocalDateTime createdAt = p.getCreatedAt();
+        if (createdAt == null) return;
+
+        if (createdAt.isBefore(now.minusMinutes(PAYMENT_REMINDER_MINUTES))
+                && createdAt.isAfter(now.minusMinutes(PAYMENT_REMINDER_MINUTES + 1))) {
+            notificationService.createNotification(
+                    p.getUser().getId(),
+                    "PAYMENT_PENDING_REMINDER",
+                    "Your payment has been pending for more than 60 minutes. Please complete it within 24 hours."
+            );
+        }
+
+        if (createdAt.isBefore(now.minusHours(PAYMENT_LOCK_HOURS))) {
+            User user = p.getUser();
+            if (user != null && Boolean.TRUE.equals(user.getStatus())) {
+                user.setStatus(false);
+                userRepository.save(user);
+
+                notificationService.createNotification(
+                        user.getId(),
+                        "ACCOUNT_LOCKED",
+                        "Your account has been locked because a payment was pending for over 24 hours."
+                );
+            }
+
+            p.setStatus("CANCELLED");
+            paymentTransactionRepository.save(p);
+        }
+    }
+
+    /**
+     * Thời điểm sớm nhất một rule của advanceReservation có thể áp dụng, null nếu không còn rule nào.
+     * Các rule so sánh chặt (isBefore) nên deadline là đúng ranh giới, timer sẽ chạy ngay sau đó.
+     */
+    public static LocalDateTime nextReservationDeadline(ReservationRepository.TimerRow row) {
+        String status = row.getStatus();
+        if (status == null) return null;
+        List<LocalDateTime> candidates = new ArrayList<>(3);
+        switch (status) {
+            case "PENDING" -> {
+                if (row.getCreatedAt() != null) candidates.add(row.getCreatedAt().plusMinutes(PENDING_TIMEOUT_MINUTES));
+            }
+            case "SCHEDULED" -> {
+                if (row.getStartTime() != null) {
+                    if (!Boolean.TRUE.equals(row.getNotifiedBeforeStart())) {
+                        candidates.add(row.getStartTime().minusMinutes(REMINDER_MINUTES));
+                    }
+                    candidates.add(row.getStartTime());
+                }
+                if (row.getEndTime() != null) candidates.add(row.getEndTime());
+            }
+            case "VERIFYING", "VERIFIED", "PLUGGED" -> {
+                if (row.getStartTime() != null) candidates.add(row.getStartTime().plusMinutes(GRACE_MINUTES));
+                if (row.getEndTime() != null) candidates.add(row.getEndTime());
+            }
+            case "CHARGING" -> {
+                if (row.getEndTime() != null) candidates.add(row.getEndTime());
+            }
+            default -> {
+            }
+        }
+        return candidates.stream().min(LocalDateTime::compareTo).orElse(null);
+    }
+
+    // mốc kế tiếp sau now; mốc nhắc đã qua thì bỏ (sweep cũ cũng chỉ nhắc trong phút thứ 60)
+    public static LocalDateTime nextPaymentDeadline(PaymentTransactionRepository.TimerRow row, LocalDateTime now) {
+        if (!"PENDING".equals(row.getStatus()) || row.getCreatedAt() == null) return null;
+        LocalDateTime reminder = row.getCreatedAt().plusMinutes(PAYMENT_REMINDER_MINUTES);
+        if (now.isBefore(reminder)) return reminder;
+        return row.getCreatedAt().plusHours(PAYMENT_LOCK_HOURS);
+    }
+}
@@ -0,0 +1,133 @@
+package com.pham.basis.evcharging.service;
+
+import com.pham.basis.evcharging.exception.AppException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tìm station trong hành lang corridorKm quanh một encoded polyline (Google polyline, precision 5).
+ * Mỗi đoạn được chia thành các khúc <= PIECE_KM, mỗi khúc lấy candidate từ grid của StationSpatialIndex
+ * theo bounding box đã nới thêm corridorKm, rồi chiếu station lên đoạn (phẳng cục bộ) để có
+ * khoảng cách lệch khỏi route và khoảng cách dọc route.
+ */
+@Component
+@RequiredArgsConstructor
+public class RouteCorridorFinder {
+
+    private static final double KM_PER_DEG_LAT = 110.574;
+    private static final double KM_PER_DEG_LON = 111.320;
+    private static final double PIECE_KM = 5.0;
+    private static final int MAX_POINTS = 20_000;
+    // cùng giới hạn với RouteSearchRequest.corridor
+    public static final double MAX_CORRIDOR_KM = 50.0;
+    // tổng số khúc PIECE_KM của cả route (~ 100.000 km), mỗi khúc là một lần tra grid
+    private static final int MAX_PIECES = 20_000;
+
+    private final StationSpatialIndex spatialIndex;
+
+    public record RouteHit(Long stationId, double offsetKm, double alongKm) {
+    }
+
+    public List<RouteHit> find(String polyline, double corridorKm) {
+        if (corridorKm <= 0 || corridorKm > MAX_CORRIDOR_KM) {
+            throw new AppException.BadRequestException("Corridor must be between 0 and " + MAX_CORRIDOR_KM + " km");
+        }
+        double[][] route = decode(polyline);
+        if (route.length == 0) return List.of();
+        if (route.length == 1) {
+            route = new double[][]{route[0], route[0]};
+        }
+
+        Map<Long, RouteHit> best = new HashMap<>();
+        List<Long> candidates = new ArrayList<>();
+        double along = 0;
+        int totalPieces = 0;
+        for (int i = 0; i + 1 < route.length; i++) {
+            double[] a = route[i], b = route[i + 1];
+            double kmPerDegLon = KM_PER_DEG_LON * Math.max(0.01, Math.cos(Math.toRadians((a[0] + b[0]) / 2)));
+            double segX = (b[1] - a[1]) * kmPerDegLon;
+            double segY = (b[0] - a[0]) * KM_PER_DEG_LAT;
+            double segLen = Math.sqrt(segX * segX + segY * segY);
+
+            // candidate theo từng khúc để bounding box luôn sát đoạn, kể cả đoạn chéo dài
+            candidates.clear();
+            int pieces = Math.max(1, (int) Math.ceil(segLen / PIECE_KM));
+            totalPieces += pieces;
+            if (totalPieces > MAX_PIECES) {
+                throw new AppException.BadRequestException("Route is too long");
+            }
+            double dLat = corridorKm / KM_PER_DEG_LAT;
+            double dLon = corridorKm / kmPerDegLon;
+            for (int k = 0; k < pieces; k++) {
+                double lat0 = a[0] + (b[0] - a[0]) * k / pieces, lon0 = a[1] + (b[1] - a[1]) * k / pieces;
+                double lat1 = a[0] + (b[0] - a[0]) * (k + 1) / pieces, lon1 = a[1] + (b[1] - a[1]) * (k + 1) / pieces;
+                spatialIndex.collectInBox(
+                        Math.min(lat0, lat1) - dLat, Math.max(lat0, lat1) + dLat,
+                        Math.min(lon0, lon1) - dLon, Math.max(lon0, lon1) + dLon,
+                        candidates);
+            }
+
+            for (Long id : candidates) {
+                double[] p = spatialIndex.getPoint(id);
+                if (p == null) continue;
+                double px = (p[1] - a[1]) * kmPerDegLon;
+                double py = (p[0] - a[0]) * KM_PER_DEG_LAT;
+                double t = segLen == 0 ? 0 : Math.max(0, Math.min(1, (px * segX + py * segY) / (segLen * segLen)));
+                double dx = px - t * segX, dy = py - t * segY;
+                double offset = Math.sqrt(dx * dx + dy * dy);
+                if (offset > corridorKm) continue;
+
+                RouteHit hit = new RouteHit(id, round(offset), round(along + t * segLen));
+                // route đi qua gần station nhiều lần -> giữ lần gần nhất, bằng nhau thì lấy lần sớm hơn
+                best.merge(id, hit, (old, cur) -> cur.offsetKm() < old.offsetKm() ? cur : old);
+            }
+            along += segLen;
+        }
+        return new ArrayList<>(best.values());
+    }
+
+    // Google encoded polyline -> [lat, lon][]
+    public static double[][] decode(String polyline) {
+        if (polyline == null || polyline.isBlank()) {
+            throw new AppException.BadRequestException("polyline is required");
+        }
+        List<double[]> points = new ArrayList<>();
+        int index = 0, lat = 0, lng = 0;
+        int len = polyline.length();
+        while (index < len) {
+            int[] result = new int[2];
+            for (int axis = 0; axis < 2; axis++) {
+                int shift = 0, value = 0, b;
+                do {
+                    if (index >= len) throw new AppException.BadRequestException("Invalid polyline");
+                    b = polyline.charAt(index++) - 63;
+                    if (b < 0 || b > 63) throw new AppException.BadRequestException("Invalid polyline");
+                    value |= (b & 0x1f) << shift;
+                    shift += 5;
+                } while (b >= 0x20 && shift < 35);
+                result[axis] = (value & 1) != 0 ? ~(value >> 1) : (value >> 1);
+            }
+            lat += result[0];
+            lng += result[1];
+            points.add(new double[]{lat / 1e5, lng / 1e5});
+            if (points.size() > MAX_POINTS) {
+                throw new AppException.BadRequestException("Polyline has too many points (max " + MAX_POINTS + ")");
+            }
+        }
+        for (double[] p : points) {
+            if (p[0] < -90 || p[0] > 90 || p[1] < -180 || p[1] > 180) {
+                throw new AppException.BadRequestException("Invalid polyline coordinates");
+            }
+        }
+        return points.toArray(new double[0][]);
+    }
+
+    private static double round(double km) {
+        return Math.round(km * 100.0) / 100.0;
+    }
+}
@@ -2,6 +2,7 @@ package com.pham.basis.evcharging.service;
 
 
 import com.pham.basis.evcharging.dto.response.ChargingStationDetailResponse;
+import com.pham.basis.evcharging.event.StationChangedEvent;
 import com.pham.basis.evcharging.exception.AppException;
 import com.pham.basis.evcharging.mapper.StationMapper;
 import com.pham.basis.evcharging.model.ChargingStation;
@@ -9,6 +10,7 @@ import com.pham.basis.evcharging.model.User;
 import com.pham.basis.evcharging.repository.ChargingStationRepository;
 import com.pham.basis.evcharging.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -22,6 +24,8 @@ public class StationAssignmentService {
     private final UserRepository userRepository;
     private final ChargingStationRepository chargingStationRepository;
     private final StationMapper stationMapper;
+    private final StationSummaryStore summaryStore;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     public boolean assignManagerToStation(Long userId, Long stationId) {
@@ -35,6 +39,7 @@ public class StationAssignmentService {
             ChargingStation oldStation = user.getManagedStation();
             oldStation.setManager(null);
             chargingStationRepository.save(oldStation);
+            eventPublisher.publishEvent(new StationChangedEvent(oldStation.getId()));
         }
 
 
@@ -43,6 +48,7 @@ public class StationAssignmentService {
 
         chargingStationRepository.save(station);
         userRepository.save(user);
+        eventPublisher.publishEvent(new StationChangedEvent(station.getId()));
 
         return true;
     }
@@ -53,7 +59,7 @@ public class StationAssignmentService {
         ChargingStation station = chargingStationRepository.findByManagerId(managerId)
                 .orElseThrow(() -> new AppException.NotFoundException("No station found for manager id: " + managerId));
 
-        return stationMapper.toDetailResponse(station);
+        return stationMapper.toDetailResponse(summaryStore.attach(station));
     }
 }
 
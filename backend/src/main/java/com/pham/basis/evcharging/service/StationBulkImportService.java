@@ -0,0 +1,411 @@
+package com.pham.basis.evcharging.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pham.basis.evcharging.dto.request.StationImportRow;
+import com.pham.basis.evcharging.dto.response.StationImportReport;
+import com.pham.basis.evcharging.event.StationsImportedEvent;
+import com.pham.basis.evcharging.exception.AppException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.*;
+
+/**
+ * Import station / pillar / connector số lượng lớn.
+ * File được đọc dạng stream (Jackson streaming cho JSON, đọc từng dòng cho CSV), gom theo chunk
+ * rồi ghi bằng JDBC: station và pillar dùng MERGE nhiều dòng + OUTPUT để lấy id IDENTITY trong một round-trip,
+ * connector dùng batch insert. Mỗi chunk một transaction.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StationBulkImportService {
+
+    private static final int CHUNK_STATIONS = 500;
+    // SQL Server giới hạn 2100 parameter / statement
+    private static final int STATION_ROWS_PER_STATEMENT = 250; // 7 params / dòng
+    private static final int PILLAR_ROWS_PER_STATEMENT = 400;  // 5 params / dòng
+    private static final int CONNECTOR_BATCH = 1_000;
+    private static final int MAX_REPORTED_ERRORS = 20;
+
+    private static final List<String> CSV_COLUMNS = List.of(
+            "name", "address", "latitude", "longitude", "status", "url",
+            "pillarCode", "power", "pricePerKwh", "connectorType", "connectorStatus");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // format: "json" | "csv"
+    public StationImportReport importStations(InputStream in, String format) {
+        String f = format == null ? "json" : format.trim().toLowerCase(Locale.ROOT);
+        return switch (f) {
+            case "json" -> importJson(in);
+            case "csv" -> importCsv(in);
+            default -> throw new AppException.BadRequestException("Unsupported import format: " + format);
+        };
+    }
+
+    /**
+     * Mảng JSON các station, cùng format với data/stations.json.
+     * Mỗi record đọc thành tree trước rồi mới bind, nên field sai kiểu chỉ bỏ qua record đó;
+     * JSON sai cú pháp thì dừng, các chunk đã ghi vẫn được báo cho index (publishImported trong finally).
+     */
+    public StationImportReport importJson(InputStream in) {
+        Progress progress = new Progress();
+        try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new AppException.BadRequestException("Station import JSON must be an array");
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                JsonNode node = parser.readValueAsTree();
+                StationImportRow row;
+                try {
+                    row = objectMapper.treeToValue(node, StationImportRow.class);
+                } catch (JsonProcessingException | IllegalArgumentException e) {
+                    progress.reject(e.getMessage());
+                    continue;
+                }
+                progress.accept(row);
+            }
+            return progress.finish();
+        } catch (IOException e) {
+            throw new AppException.BadRequestException("Invalid station JSON at record #" + (progress.records + 1) + ": " + e.getMessage());
+        } finally {
+            progress.publishImported();
+        }
+    }
+
+    /**
+     * CSV có header, mỗi dòng là một connector:
+     * name,address,latitude,longitude,status,url,pillarCode,power,pricePerKwh,connectorType,connectorStatus
+     * Các dòng liên tiếp cùng name/address/latitude/longitude thuộc cùng một station, cùng pillarCode thuộc cùng một pillar.
+     */
+    public StationImportReport importCsv(InputStream in) {
+        Progress progress = new Progress();
+        // station có ô số sai ở bất kỳ dòng nào thì bỏ cả station (báo lỗi một lần), không dừng cả file
+        boolean currentBad = false;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String header = reader.readLine();
+            if (header == null) return progress.finish();
+            Map<String, Integer> columns = new HashMap<>();
+            List<String> names = splitCsv(header.replace("\uFEFF", ""));
+            for (int i = 0; i < names.size(); i++) columns.put(names.get(i).trim(), i);
+            for (String required : CSV_COLUMNS) {
+                if (!columns.containsKey(required)) {
+                    throw new AppException.BadRequestException("Missing CSV column: " + required);
+                }
+            }
+
+            StationImportRow current = null;
+            String currentKey = null;
+            String line;
+            int lineNo = 1;
+            while ((line = reader.readLine()) != null) {
+                lineNo++;
+                if (line.isBlank()) continue;
+                List<String> cells = splitCsv(line);
+                String key = String.join("|", cell(cells, columns, "name"), cell(cells, columns, "address"),
+                        cell(cells, columns, "latitude"), cell(cells, columns, "longitude"));
+                boolean first = !key.equals(currentKey);
+                if (first) {
+                    if (current != null && !currentBad) progress.accept(current);
+                    current = new StationImportRow();
+                    currentKey = key;
+                    currentBad = false;
+                }
+                if (currentBad) continue;
+                try {
+                    readCsvLine(current, first, cells, columns, lineNo);
+                } catch (AppException.BadRequestException e) {
+                    progress.reject(e.getMessage());
+                    currentBad = true;
+                }
+            }
+            if (current != null && !currentBad) progress.accept(current);
+            return progress.finish();
+        } catch (IOException e) {
+            throw new AppException.BadRequestException("Cannot read station CSV: " + e.getMessage());
+        } finally {
+            progress.publishImported();
+        }
+    }
+
+    //-------------helper-------
+    // một dòng CSV: dòng đầu của station điền thông tin station, pillarCode mới mở pillar mới, mỗi dòng một connector
+    private static void readCsvLine(StationImportRow current, boolean first, List<String> cells,
+                                    Map<String, Integer> columns, int lineNo) {
+        if (first) {
+            current.setName(cell(cells, columns, "name"));
+            current.setAddress(cell(cells, columns, "address"));
+            current.setLatitude(parseDouble(cell(cells, columns, "latitude"), lineNo));
+            current.setLongitude(parseDouble(cell(cells, columns, "longitude"), lineNo));
+            current.setStatus(cell(cells, columns, "status"));
+            current.setUrl(cell(cells, columns, "url"));
+        }
+        // station chưa có pillar: để trống các cột pillar / connector
+        String code = cell(cells, columns, "pillarCode");
+        if (code == null) return;
+        List<StationImportRow.PillarRow> pillars = current.getPillars();
+        StationImportRow.PillarRow pillar = pillars.isEmpty() ? null : pillars.get(pillars.size() - 1);
+        if (pillar == null || !Objects.equals(pillar.getCode(), code)) {
+            pillar = new StationImportRow.PillarRow();
+            pillar.setCode(code);
+            pillar.setPower(parseDouble(cell(cells, columns, "power"), lineNo));
+            pillar.setPricePerKwh(parseDouble(cell(cells, columns, "pricePerKwh"), lineNo));
+            pillars.add(pillar);
+        }
+        StationImportRow.ConnectorRow connector = new StationImportRow.ConnectorRow();
+        connector.setType(cell(cells, columns, "connectorType"));
+        connector.setStatus(cell(cells, columns, "connectorStatus"));
+        pillar.getConnectors().add(connector);
+    }
+
+    // gom station theo chunk, ghi từng chunk, đếm tiến độ
+    private class Progress {
+        private final long startedAt = System.nanoTime();
+        private final List<StationImportRow> chunk = new ArrayList<>(CHUNK_STATIONS);
+        private final List<String> errors = new ArrayList<>();
+        private int records, stations, pillars, connectors, skipped;
+        private boolean published;
+
+        void accept(StationImportRow row) {
+            String error = validate(row);
+            if (error != null) {
+                reject(error);
+                return;
+            }
+            records++;
+            chunk.add(row);
+            if (chunk.size() >= CHUNK_STATIONS) flush();
+        }
+
+        // record không đọc / parse được: bỏ qua và báo trong report
+        void reject(String error) {
+            records++;
+            skipped++;
+            if (errors.size() < MAX_REPORTED_ERRORS) errors.add("record #" + records + ": " + error);
+        }
+
+        void flush() {
+            if (chunk.isEmpty()) return;
+            int[] counts = transactionTemplate.execute(status -> writeChunk(chunk));
+            stations += counts[0];
+            pillars += counts[1];
+            connectors += counts[2];
+            chunk.clear();
+            log.info("Station import: {} stations, {} pillars, {} connectors ({} stations/s)",
+                    stations, pillars, connectors, Math.round(rate()));
+        }
+
+        StationImportReport finish() {
+            flush();
+            StationImportReport report = StationImportReport.builder()
+                    .stations(stations)
+                    .pillars(pillars)
+                    .connectors(connectors)
+                    .skipped(skipped)
+                    .errors(errors)
+                    .elapsedMs((System.nanoTime() - startedAt) / 1_000_000)
+                    .stationsPerSecond(Math.round(rate() * 10) / 10.0)
+                    .build();
+            log.info("Station import finished: {} stations, {} skipped in {} ms",
+                    stations, skipped, report.getElapsedMs());
+            return report;
+        }
+
+        // gọi trong finally: import dừng giữa chừng thì các chunk đã commit vẫn phải vào index
+        void publishImported() {
+            if (published || stations == 0) return;
+            published = true;
+            eventPublisher.publishEvent(new StationsImportedEvent(stations));
+        }
+
+        double rate() {
+            double seconds = (System.nanoTime() - startedAt) / 1e9;
+            return seconds <= 0 ? 0 : stations / seconds;
+        }
+    }
+
+    // trả về {stations, pillars, connectors} đã ghi
+    private int[] writeChunk(List<StationImportRow> rows) {
+        long[] stationIds = insertStations(rows);
+
+        List<StationImportRow.PillarRow> pillarRows = new ArrayList<>();
+        List<Long> pillarStationIds = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            for (StationImportRow.PillarRow p : rows.get(i).getPillars()) {
+                pillarRows.add(p);
+                pillarStationIds.add(stationIds[i]);
+            }
+        }
+        long[] pillarIds = insertPillars(pillarRows, pillarStationIds);
+
+        List<Object[]> connectorArgs = new ArrayList<>();
+        for (int i = 0; i < pillarRows.size(); i++) {
+            for (StationImportRow.ConnectorRow c : pillarRows.get(i).getConnectors()) {
+                connectorArgs.add(new Object[]{defaultStatus(c.getStatus()), c.getType().trim(), pillarIds[i]});
+            }
+        }
+        for (int from = 0; from < connectorArgs.size(); from += CONNECTOR_BATCH) {
+            jdbcTemplate.batchUpdate("INSERT INTO connectors (status, type, pillar_id) VALUES (?, ?, ?)",
+                    connectorArgs.subList(from, Math.min(from + CONNECTOR_BATCH, connectorArgs.size())));
+        }
+        return new int[]{rows.size(), pillarRows.size(), connectorArgs.size()};
+    }
+
+    // MERGE ... ON 1 = 0 luôn INSERT, OUTPUT src.ord cho biết id mới thuộc dòng nào
+    private long[] insertStations(List<StationImportRow> rows) {
+        long[] ids = new long[rows.size()];
+        for (int from = 0; from < rows.size(); from += STATION_ROWS_PER_STATEMENT) {
+            List<StationImportRow> slice = rows.subList(from, Math.min(from + STATION_ROWS_PER_STATEMENT, rows.size()));
+            String sql = "MERGE INTO charging_stations AS t USING (VALUES " + placeholders(slice.size(), 7)
+                    + ") AS src(ord, name, address, latitude, longitude, status, url) ON 1 = 0"
+                    + " WHEN NOT MATCHED THEN INSERT (name, address, latitude, longitude, status, url)"
+                    + " VALUES (src.name, src.address, src.latitude, src.longitude, src.status, src.url)"
+                    + " OUTPUT src.ord, INSERTED.station_id;";
+            int base = from;
+            jdbcTemplate.query(sql, ps -> {
+                int p = 1;
+                for (int i = 0; i < slice.size(); i++) {
+                    StationImportRow s = slice.get(i);
+                    ps.setInt(p++, base + i);
+                    setString(ps, p++, s.getName().trim());
+                    setString(ps, p++, s.getAddress().trim());
+                    ps.setDouble(p++, s.getLatitude());
+                    ps.setDouble(p++, s.getLongitude());
+                    setString(ps, p++, defaultStatus(s.getStatus()));
+                    setString(ps, p++, s.getUrl());
+                }
+            }, rs -> {
+                ids[rs.getInt(1)] = rs.getLong(2);
+            });
+        }
+        return ids;
+    }
+
+    private long[] insertPillars(List<StationImportRow.PillarRow> rows, List<Long> stationIds) {
+        long[] ids = new long[rows.size()];
+        for (int from = 0; from < rows.size(); from += PILLAR_ROWS_PER_STATEMENT) {
+            int to = Math.min(from + PILLAR_ROWS_PER_STATEMENT, rows.size());
+            String sql = "MERGE INTO charger_pillars AS t USING (VALUES " + placeholders(to - from, 5)
+                    + ") AS src(ord, code, power, price_per_kwh, station_id) ON 1 = 0"
+                    + " WHEN NOT MATCHED THEN INSERT (code, power, price_per_kwh, station_id)"
+                    + " VALUES (src.code, src.power, src.price_per_kwh, src.station_id)"
+                    + " OUTPUT src.ord, INSERTED.id;";
+            int base = from;
+            jdbcTemplate.query(sql, ps -> {
+                int p = 1;
+                for (int i = base; i < to; i++) {
+                    StationImportRow.PillarRow pillar = rows.get(i);
+                    ps.setInt(p++, i);
+                    setString(ps, p++, pillar.getCode().trim());
+                    ps.setDouble(p++, pillar.getPower());
+                    ps.setDouble(p++, pillar.getPricePerKwh());
+                    ps.setLong(p++, stationIds.get(i));
+                }
+            }, rs -> {
+                ids[rs.getInt(1)] = rs.getLong(2);
+            });
+        }
+        return ids;
+    }
+
+    // null nếu hợp lệ; giới hạn độ dài theo cột trong DB
+    private static String validate(StationImportRow s) {
+        if (isBlank(s.getName()) || s.getName().trim().length() > 100) return "name is required (max 100 chars)";
+        if (isBlank(s.getAddress()) || s.getAddress().trim().length() > 255) return "address is required (max 255 chars)";
+        if (s.getLatitude() == null || s.getLatitude() < -90 || s.getLatitude() > 90) return "invalid latitude";
+        if (s.getLongitude() == null || s.getLongitude() < -180 || s.getLongitude() > 180) return "invalid longitude";
+        if (s.getStatus() != null && s.getStatus().length() > 20) return "status too long";
+        if (s.getPillars() == null) s.setPillars(new ArrayList<>());
+        for (StationImportRow.PillarRow p : s.getPillars()) {
+            if (isBlank(p.getCode()) || p.getCode().trim().length() > 50) return "pillar code is required (max 50 chars)";
+            if (p.getPower() == null || p.getPower() <= 0) return "pillar " + p.getCode() + ": power must be positive";
+            if (p.getPricePerKwh() == null || p.getPricePerKwh() < 0) return "pillar " + p.getCode() + ": price cannot be negative";
+            if (p.getConnectors() == null) p.setConnectors(new ArrayList<>());
+            for (StationImportRow.ConnectorRow c : p.getConnectors()) {
+                if (isBlank(c.getType()) || c.getType().trim().length() > 20) return "pillar " + p.getCode() + ": connector type is required";
+                if (c.getStatus() != null && c.getStatus().length() > 20) return "pillar " + p.getCode() + ": connector status too long";
+            }
+        }
+        return null;
+    }
+
+    private static String placeholders(int rows, int columns) {
+        String row = "(" + String.join(", ", Collections.nCopies(columns, "?")) + ")";
+        return String.join(", ", Collections.nCopies(rows, row));
+    }
+
+    private static void setString(PreparedStatement ps, int index, String value) throws SQLException {
+        if (value == null) ps.setNull(index, Types.NVARCHAR);
+        else ps.setString(index, value);
+    }
+
+    private static String defaultStatus(String status) {
+        return isBlank(status) ? "AVAILABLE" : status.trim();
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static String cell(List<String> cells, Map<String, Integer> columns, String name) {
+        int index = columns.get(name);
+        if (index >= cells.size()) return null;
+        String value = cells.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static Double parseDouble(String value, int lineNo) {
+        if (value == null) return null;
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new AppException.BadRequestException("Invalid number '" + value + "' at CSV line " + lineNo);
+        }
+    }
+
+    // tách một dòng CSV, hỗ trợ field trong dấu nháy kép và "" escape
+    private static List<String> splitCsv(String line) {
+        List<String> cells = new ArrayList<>();
+        StringBuilder cur = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char ch = line.charAt(i);
+            if (quoted) {
+                if (ch == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    cur.append('"');
+                    i++;
+                } else if (ch == '"') {
+                    quoted = false;
+                } else {
+                    cur.append(ch);
+                }
+            } else if (ch == '"') {
+                quoted = true;
+            } else if (ch == ',') {
+                cells.add(cur.toString());
+                cur.setLength(0);
+            } else {
+                cur.append(ch);
+            }
+        }
+        cells.add(cur.toString());
+        return cells;
+    }
+}
@@ -0,0 +1,317 @@
+package com.pham.basis.evcharging.service;
+
+import com.pham.basis.evcharging.event.ConnectorStatusChangedEvent;
+import com.pham.basis.evcharging.event.StationChangedEvent;
+import com.pham.basis.evcharging.event.StationsImportedEvent;
+import com.pham.basis.evcharging.model.StationSummary;
+import com.pham.basis.evcharging.repository.ChargerPillarRepository;
+import com.pham.basis.evcharging.repository.ChargingStationRepository;
+import com.pham.basis.evcharging.repository.ConnectorRepository;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Grid phân cấp cho cluster trên bản đồ.
+ * Zoom z chia thế giới thành ô 90/2^z độ, mỗi ô ở zoom z gồm đúng 4 ô ở zoom z + 1.
+ * Cluster ở MAX_ZOOM tính từ các station trong ô, zoom thấp hơn gộp từ 4 ô con; kết quả cache theo (zoom, ô).
+ * Station / connector thay đổi chỉ xoá cache của các ô chứa station đó.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StationClusterIndex {
+
+    public static final int MAX_ZOOM = 16;
+
+    private final ChargingStationRepository stationRepository;
+    private final ChargerPillarRepository pillarRepository;
+    private final ConnectorRepository connectorRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, StationPoint> stations = new HashMap<>();
+    // station ids theo ô ở MAX_ZOOM
+    private final Map<Long, Set<Long>> leaves = new HashMap<>();
+    // số station theo ô, mỗi zoom một map (để biết ô nào có dữ liệu)
+    private final List<Map<Long, Integer>> occupancy = new ArrayList<>();
+    private final List<Map<Long, Cluster>> cache = new ArrayList<>();
+    private volatile boolean ready = false;
+
+    {
+        for (int z = 0; z <= MAX_ZOOM; z++) {
+            occupancy.add(new HashMap<>());
+            cache.add(new ConcurrentHashMap<>());
+        }
+    }
+
+    @EventListener({ApplicationReadyEvent.class, StationsImportedEvent.class})
+    public void rebuild() {
+        List<ChargingStationRepository.StationCoordinates> coordinates = stationRepository.findAllCoordinates();
+        List<ChargerPillarRepository.PillarIndexRow> pillars = pillarRepository.findAllIndexRows();
+        List<ConnectorRepository.ConnectorIndexRow> connectors = connectorRepository.findAllIndexRows();
+
+        Map<Long, StationPoint> loaded = new HashMap<>();
+        for (ChargingStationRepository.StationCoordinates c : coordinates) {
+            if (c.getLatitude() == null || c.getLongitude() == null) continue;
+            loaded.put(c.getId(), new StationPoint(c.getLatitude(), c.getLongitude()));
+        }
+        for (ChargerPillarRepository.PillarIndexRow p : pillars) {
+            StationPoint point = loaded.get(p.getStationId());
+            if (point != null) point.addPrice(p.getPricePerKwh());
+        }
+        for (ConnectorRepository.ConnectorIndexRow c : connectors) {
+            StationPoint point = loaded.get(c.getStationId());
+            if (point != null && StationSummary.isAvailable(c.getStatus())) point.availableConnectors++;
+        }
+
+        lock.writeLock().lock();
+        try {
+            stations.clear();
+            leaves.clear();
+            occupancy.forEach(Map::clear);
+            cache.forEach(Map::clear);
+            loaded.forEach(this::addLocked);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        ready = true;
+        log.info("Station cluster index built: {} stations, {} leaf cells", loaded.size(), leaves.size());
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStationChanged(StationChangedEvent event) {
+        Long stationId = event.getStationId();
+        Optional<ChargingStationRepository.StationCoordinates> coordinates = stationRepository.findCoordinatesById(stationId);
+        StationPoint point = null;
+        if (coordinates.isPresent() && coordinates.get().getLatitude() != null && coordinates.get().getLongitude() != null) {
+            point = new StationPoint(coordinates.get().getLatitude(), coordinates.get().getLongitude());
+            for (ChargerPillarRepository.PillarIndexRow p : pillarRepository.findIndexRowsByStationId(stationId)) {
+                point.addPrice(p.getPricePerKwh());
+            }
+            for (ConnectorRepository.ConnectorIndexRow c : connectorRepository.findIndexRowsByStationId(stationId)) {
+                if (StationSummary.isAvailable(c.getStatus())) point.availableConnectors++;
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            removeLocked(stationId);
+            if (point != null) addLocked(stationId, point);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onConnectorStatusChanged(ConnectorStatusChangedEvent event) {
+        int delta = (StationSummary.isAvailable(event.getNewStatus()) ? 1 : 0)
+                - (StationSummary.isAvailable(event.getOldStatus()) ? 1 : 0);
+        if (delta == 0 || event.getStationId() == null) return;
+
+        lock.writeLock().lock();
+        try {
+            StationPoint point = stations.get(event.getStationId());
+            if (point == null) return;
+            point.availableConnectors = Math.max(0, point.availableConnectors + delta);
+            invalidateLocked(point);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Các cluster có dữ liệu trong bounding box ở zoom (clamp về [0, MAX_ZOOM]).
+     * minLon > maxLon được hiểu là box vượt qua kinh tuyến 180.
+     */
+    public List<Cluster> clusters(double minLat, double minLon, double maxLat, double maxLon, int zoom) {
+        int z = Math.max(0, Math.min(MAX_ZOOM, zoom));
+        lock.readLock().lock();
+        try {
+            List<Cluster> result = new ArrayList<>();
+            if (minLon > maxLon) {
+                collect(z, minLat, minLon, maxLat, 180, result);
+                collect(z, minLat, -180, maxLat, maxLon, result);
+            } else {
+                collect(z, minLat, minLon, maxLat, maxLon, result);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Cluster {
+        private final int count;
+        private final double latitude;
+        private final double longitude;
+        private final int availableConnectors;
+        private final Double minPrice;
+        // chỉ có khi cluster gồm đúng một station
+        private final Long stationId;
+    }
+
+    //-------------helper------- (gọi khi đang giữ lock)
+    private void collect(int z, double minLat, double minLon, double maxLat, double maxLon, List<Cluster> out) {
+        int minRow = row(minLat, z), maxRow = row(maxLat, z);
+        int minCol = col(minLon, z), maxCol = col(maxLon, z);
+        Map<Long, Integer> occupied = occupancy.get(z);
+        long cellCount = (long) (maxRow - minRow + 1) * (maxCol - minCol + 1);
+
+        // box nhiều ô hơn số ô có station -> duyệt các ô có station
+        if (cellCount > occupied.size()) {
+            for (Long key : occupied.keySet()) {
+                int r = (int) (key >>> 32), c = (int) (long) key;
+                if (r >= minRow && r <= maxRow && c >= minCol && c <= maxCol) out.add(cluster(z, key));
+            }
+            return;
+        }
+        for (int r = minRow; r <= maxRow; r++) {
+            for (int c = minCol; c <= maxCol; c++) {
+                long key = cellKey(r, c);
+                if (occupied.containsKey(key)) out.add(cluster(z, key));
+            }
+        }
+    }
+
+    private Cluster cluster(int z, long key) {
+        Cluster cached = cache.get(z).get(key);
+        if (cached != null) return cached;
+
+        Aggregate agg = new Aggregate();
+        if (z == MAX_ZOOM) {
+            for (Long id : leaves.getOrDefault(key, Set.of())) {
+                StationPoint p = stations.get(id);
+                agg.add(1, p.latitude, p.longitude, p.availableConnectors, p.minPrice, id);
+            }
+        } else {
+            int r = (int) (key >>> 32), c = (int) (long) key;
+            Map<Long, Integer> children = occupancy.get(z + 1);
+            for (int dr = 0; dr < 2; dr++) {
+                for (int dc = 0; dc < 2; dc++) {
+                    long child = cellKey(2 * r + dr, 2 * c + dc);
+                    if (!children.containsKey(child)) continue;
+                    Cluster cc = cluster(z + 1, child);
+                    agg.add(cc.count, cc.latitude, cc.longitude, cc.availableConnectors,
+                            cc.minPrice == null ? Double.NaN : cc.minPrice, cc.stationId);
+                }
+            }
+        }
+        Cluster built = agg.toCluster();
+        cache.get(z).put(key, built);
+        return built;
+    }
+
+    private void addLocked(Long stationId, StationPoint point) {
+        stations.put(stationId, point);
+        leaves.computeIfAbsent(cellKey(point, MAX_ZOOM), k -> new HashSet<>()).add(stationId);
+        for (int z = 0; z <= MAX_ZOOM; z++) {
+            long key = cellKey(point, z);
+            occupancy.get(z).merge(key, 1, Integer::sum);
+            cache.get(z).remove(key);
+        }
+    }
+
+    private void removeLocked(Long stationId) {
+        StationPoint old = stations.remove(stationId);
+        if (old == null) return;
+        long leaf = cellKey(old, MAX_ZOOM);
+        Set<Long> ids = leaves.get(leaf);
+        if (ids != null) {
+            ids.remove(stationId);
+            if (ids.isEmpty()) leaves.remove(leaf);
+        }
+        for (int z = 0; z <= MAX_ZOOM; z++) {
+            long key = cellKey(old, z);
+            occupancy.get(z).computeIfPresent(key, (k, n) -> n > 1 ? n - 1 : null);
+            cache.get(z).remove(key);
+        }
+    }
+
+    private void invalidateLocked(StationPoint point) {
+        for (int z = 0; z <= MAX_ZOOM; z++) {
+            cache.get(z).remove(cellKey(point, z));
+        }
+    }
+
+    private static double cellSize(int z) {
+        return 90.0 / (1 << z);
+    }
+
+    private static int row(double latitude, int z) {
+        int rows = 2 << z;
+        int r = (int) Math.floor((latitude + 90) / cellSize(z));
+        return Math.max(0, Math.min(rows - 1, r));
+    }
+
+    private static int col(double longitude, int z) {
+        int cols = 4 << z;
+        int c = (int) Math.floor((longitude + 180) / cellSize(z));
+        return Math.max(0, Math.min(cols - 1, c));
+    }
+
+    private static long cellKey(int r, int c) {
+        return ((long) r << 32) | (c & 0xffffffffL);
+    }
+
+    private static long cellKey(StationPoint p, int z) {
+        return cellKey(row(p.latitude, z), col(p.longitude, z));
+    }
+
+    private static class StationPoint {
+        private final double latitude;
+        private final double longitude;
+        private int availableConnectors;
+        private double minPrice = Double.NaN;
+
+        StationPoint(double latitude, double longitude) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+        }
+
+        void addPrice(Double price) {
+            if (price == null) return;
+            minPrice = Double.isNaN(minPrice) ? price : Math.min(minPrice, price);
+        }
+    }
+
+    // cộng dồn cluster con; centroid là trung bình có trọng số theo số station
+    private static class Aggregate {
+        private int count;
+        private double sumLat;
+        private double sumLon;
+        private int available;
+        private double minPrice = Double.NaN;
+        private Long stationId;
+
+        void add(int n, double lat, double lon, int availableConnectors, double price, Long id) {
+            count += n;
+            sumLat += lat * n;
+            sumLon += lon * n;
+            available += availableConnectors;
+            if (!Double.isNaN(price)) minPrice = Double.isNaN(minPrice) ? price : Math.min(minPrice, price);
+            stationId = id;
+        }
+
+        Cluster toCluster() {
+            if (count == 0) return new Cluster(0, 0, 0, 0, null, null);
+            return new Cluster(count, sumLat / count, sumLon / count, available,
+                    Double.isNaN(minPrice) ? null : minPrice, count == 1 ? stationId : null);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.pham.basis.evcharging.service;
+
+import com.pham.basis.evcharging.dto.response.ChargingStationDetailResponse;
+import com.pham.basis.evcharging.event.ConnectorStatusChangedEvent;
+import com.pham.basis.evcharging.event.StationChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * LRU cache cho ChargingStationDetailResponse theo station id (chưa có distance).
+ * Entry bị xoá khi station / connector của station thay đổi.
+ */
+@Slf4j
+@Component
+public class StationDetailCache {
+
+    private static final int MAX_ENTRIES = 2_000;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    // version theo từng station, tăng mỗi lần invalidate station đó, để bỏ kết quả load đã cũ khi station thay đổi
+    // trong lúc đang load (station khác thay đổi không ảnh hưởng); số key tối đa bằng số station, giữ dưới lock entries
+    private final Map<Long, Long> versions = new HashMap<>();
+
+    private final Map<Long, ChargingStationDetailResponse> entries =
+            new LinkedHashMap<>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, ChargingStationDetailResponse> eldest) {
+                    if (size() > MAX_ENTRIES) {
+                        evictions.incrementAndGet();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+
+    // loader chạy ngoài lock; response trả về là bản copy để caller gắn distance
+    public ChargingStationDetailResponse get(Long stationId, Function<Long, ChargingStationDetailResponse> loader) {
+        ChargingStationDetailResponse cached;
+        synchronized (entries) {
+            cached = entries.get(stationId);
+        }
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached.toBuilder().build();
+        }
+
+        misses.incrementAndGet();
+        long version;
+        synchronized (entries) {
+            version = versions.getOrDefault(stationId, 0L);
+        }
+        ChargingStationDetailResponse loaded = loader.apply(stationId);
+        loaded.setDistance(null);
+        synchronized (entries) {
+            if (versions.getOrDefault(stationId, 0L) == version) entries.put(stationId, loaded);
+        }
+        return loaded.toBuilder().build();
+    }
+
+    public void invalidate(Long stationId) {
+        if (stationId == null) return;
+        synchronized (entries) {
+            versions.merge(stationId, 1L, Long::sum);
+            if (entries.remove(stationId) != null) invalidations.incrementAndGet();
+        }
+    }
+
+    // ReadModelReconciler gọi định kỳ để bỏ thay đổi từ node khác mà không có event tới node này
+    public void invalidateAll() {
+        synchronized (entries) {
+            for (Long stationId : entries.keySet()) versions.merge(stationId, 1L, Long::sum);
+            invalidations.addAndGet(entries.size());
+            entries.clear();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStationChanged(StationChangedEvent event) {
+        invalidate(event.getStationId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onConnectorStatusChanged(ConnectorStatusChangedEvent event) {
+        invalidate(event.getStationId());
+    }
+
+    public Map<String, Object> stats() {
+        long h = hits.get(), m = misses.get();
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", size);
+        stats.put("maxSize", MAX_ENTRIES);
+        stats.put("hits", h);
+        stats.put("misses", m);
+        stats.put("hitRate", h + m == 0 ? 0.0 : (double) h / (h + m));
+        stats.put("evictions", evictions.get());
+        stats.put("invalidations", invalidations.get());
+        return stats;
+    }
+}
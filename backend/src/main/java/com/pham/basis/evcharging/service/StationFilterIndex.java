@@ -0,0 +1,254 @@
+package com.pham.basis.evcharging.service;
+
+import com.pham.basis.evcharging.event.ConnectorStatusChangedEvent;
+import com.pham.basis.evcharging.event.StationChangedEvent;
+import com.pham.basis.evcharging.event.StationsImportedEvent;
+import com.pham.basis.evcharging.model.StationSummary;
+import com.pham.basis.evcharging.repository.ChargerPillarRepository;
+import com.pham.basis.evcharging.repository.ChargingStationRepository;
+import com.pham.basis.evcharging.repository.ConnectorRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Index cho filter của /charging-stations/nearby, mỗi station có một ordinal.
+ * - connector type / availability: BitSet, 1 bit / station ordinal
+ * - power / price: min-max theo station trong mảng double
+ * Search theo name/address nằm ở StationTextIndex.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StationFilterIndex {
+
+    private final ChargingStationRepository stationRepository;
+    private final ChargerPillarRepository pillarRepository;
+    private final ConnectorRepository connectorRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    private final List<Long> stationIds = new ArrayList<>();
+    private final Map<String, BitSet> typeBits = new HashMap<>();
+    private final BitSet availableBits = new BitSet();
+    private int[] availableCounts = new int[0];
+    private double[] minPower = new double[0];
+    private double[] maxPower = new double[0];
+    private double[] minPrice = new double[0];
+    private double[] maxPrice = new double[0];
+    private volatile boolean ready = false;
+
+    @EventListener({ApplicationReadyEvent.class, StationsImportedEvent.class})
+    public void rebuild() {
+        List<Long> stations = stationRepository.findAllIds();
+        List<ChargerPillarRepository.PillarIndexRow> pillars = pillarRepository.findAllIndexRows();
+        List<ConnectorRepository.ConnectorIndexRow> connectors = connectorRepository.findAllIndexRows();
+
+        lock.writeLock().lock();
+        try {
+            ordinals.clear();
+            stationIds.clear();
+            typeBits.clear();
+            availableBits.clear();
+            ensureCapacity(stations.size());
+            for (Long stationId : stations) {
+                ordinalOf(stationId);
+            }
+            for (ChargerPillarRepository.PillarIndexRow p : pillars) {
+                Integer ord = ordinals.get(p.getStationId());
+                if (ord != null) addPillar(ord, p);
+            }
+            for (ConnectorRepository.ConnectorIndexRow c : connectors) {
+                Integer ord = ordinals.get(c.getStationId());
+                if (ord != null) addConnector(ord, c);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        ready = true;
+        log.info("Station filter index built: {} stations, {} connector types", stations.size(), typeBits.size());
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public List<Long> allStationIds() {
+        lock.readLock().lock();
+        try {
+            return new ArrayList<>(stationIds);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Lọc các station trong candidateIds theo filter, giữ nguyên thứ tự của candidateIds.
+     * Connector types được OR lại thành một BitSet, availableOnly AND thêm availableBits.
+     */
+    public List<Long> filter(Collection<Long> candidateIds,
+                             List<String> connectors, boolean availableOnly,
+                             Double minPowerFilter, Double maxPowerFilter,
+                             Double minPriceFilter, Double maxPriceFilter) {
+        lock.readLock().lock();
+        try {
+            BitSet mask = null;
+            if (connectors != null && !connectors.isEmpty()) {
+                mask = new BitSet();
+                for (String type : connectors) {
+                    if (type == null) continue;
+                    BitSet bits = typeBits.get(normalizeType(type));
+                    if (bits != null) mask.or(bits);
+                }
+            }
+            if (availableOnly) {
+                if (mask == null) {
+                    mask = (BitSet) availableBits.clone();
+                } else {
+                    mask.and(availableBits);
+                }
+            }
+            if (mask != null && mask.isEmpty()) return List.of();
+
+            List<Long> result = new ArrayList<>();
+            for (Long id : candidateIds) {
+                Integer ord = ordinals.get(id);
+                if (ord == null) continue;
+                if (mask != null && !mask.get(ord)) continue;
+                // "có ít nhất một pillar >= min" <=> max của station >= min
+                if (minPowerFilter != null && !(maxPower[ord] >= minPowerFilter)) continue;
+                if (maxPowerFilter != null && !(minPower[ord] <= maxPowerFilter)) continue;
+                if (minPriceFilter != null && !(maxPrice[ord] >= minPriceFilter)) continue;
+                if (maxPriceFilter != null && !(minPrice[ord] <= maxPriceFilter)) continue;
+                result.add(id);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Giá trị dùng để xếp hạng của các station ids[0..count), NaN nếu station không có pillar / chưa index.
+     * Lấy trong một lần giữ read lock.
+     */
+    public Metrics metrics(long[] ids, int count) {
+        double[] prices = new double[count];
+        double[] powers = new double[count];
+        int[] available = new int[count];
+        lock.readLock().lock();
+        try {
+            for (int i = 0; i < count; i++) {
+                Integer ord = ordinals.get(ids[i]);
+                prices[i] = ord == null ? Double.NaN : minPrice[ord];
+                powers[i] = ord == null ? Double.NaN : maxPower[ord];
+                available[i] = ord == null ? 0 : availableCounts[ord];
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return new Metrics(prices, powers, available);
+    }
+
+    public record Metrics(double[] minPrice, double[] maxPower, int[] availableConnectors) {
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onConnectorStatusChanged(ConnectorStatusChangedEvent event) {
+        if (event.getStationId() == null) return;
+        int delta = (StationSummary.isAvailable(event.getNewStatus()) ? 1 : 0)
+                - (StationSummary.isAvailable(event.getOldStatus()) ? 1 : 0);
+        if (delta == 0) return;
+
+        lock.writeLock().lock();
+        try {
+            Integer ord = ordinals.get(event.getStationId());
+            if (ord == null) return;
+            availableCounts[ord] = Math.max(0, availableCounts[ord] + delta);
+            availableBits.set(ord, availableCounts[ord] > 0);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStationChanged(StationChangedEvent event) {
+        reindex(event.getStationId());
+    }
+
+    // load lại một station từ DB và ghi đè các bit / giá trị của nó
+    public void reindex(Long stationId) {
+        if (!stationRepository.existsById(stationId)) return;
+        List<ChargerPillarRepository.PillarIndexRow> pillars = pillarRepository.findIndexRowsByStationId(stationId);
+        List<ConnectorRepository.ConnectorIndexRow> connectors = connectorRepository.findIndexRowsByStationId(stationId);
+
+        lock.writeLock().lock();
+        try {
+            int ord = ordinalOf(stationId);
+            for (BitSet bits : typeBits.values()) bits.clear(ord);
+            availableBits.clear(ord);
+            availableCounts[ord] = 0;
+            minPower[ord] = maxPower[ord] = minPrice[ord] = maxPrice[ord] = Double.NaN;
+            for (ChargerPillarRepository.PillarIndexRow p : pillars) addPillar(ord, p);
+            for (ConnectorRepository.ConnectorIndexRow c : connectors) addConnector(ord, c);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //-------------helper------- (gọi khi đang giữ write lock)
+    private int ordinalOf(Long stationId) {
+        Integer ord = ordinals.get(stationId);
+        if (ord != null) return ord;
+        int next = stationIds.size();
+        ensureCapacity(next + 1);
+        ordinals.put(stationId, next);
+        stationIds.add(stationId);
+        availableCounts[next] = 0;
+        minPower[next] = maxPower[next] = minPrice[next] = maxPrice[next] = Double.NaN;
+        return next;
+    }
+
+    private void ensureCapacity(int size) {
+        if (minPower.length >= size) return;
+        int capacity = Math.max(size, minPower.length * 2 + 16);
+        availableCounts = Arrays.copyOf(availableCounts, capacity);
+        minPower = Arrays.copyOf(minPower, capacity);
+        maxPower = Arrays.copyOf(maxPower, capacity);
+        minPrice = Arrays.copyOf(minPrice, capacity);
+        maxPrice = Arrays.copyOf(maxPrice, capacity);
+    }
+
+    private void addPillar(int ord, ChargerPillarRepository.PillarIndexRow p) {
+        if (p.getPower() != null) {
+            minPower[ord] = Double.isNaN(minPower[ord]) ? p.getPower() : Math.min(minPower[ord], p.getPower());
+            maxPower[ord] = Double.isNaN(maxPower[ord]) ? p.getPower() : Math.max(maxPower[ord], p.getPower());
+        }
+        if (p.getPricePerKwh() != null) {
+            minPrice[ord] = Double.isNaN(minPrice[ord]) ? p.getPricePerKwh() : Math.min(minPrice[ord], p.getPricePerKwh());
+            maxPrice[ord] = Double.isNaN(maxPrice[ord]) ? p.getPricePerKwh() : Math.max(maxPrice[ord], p.getPricePerKwh());
+        }
+    }
+
+    private void addConnector(int ord, ConnectorRepository.ConnectorIndexRow c) {
+        if (c.getType() != null) {
+            typeBits.computeIfAbsent(normalizeType(c.getType()), k -> new BitSet()).set(ord);
+        }
+        if (StationSummary.isAvailable(c.getStatus())) {
+            availableCounts[ord]++;
+            availableBits.set(ord);
+        }
+    }
+
+    private static String normalizeType(String type) {
+        return type.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,119 @@
+package com.pham.basis.evcharging.service;
+
+import com.pham.basis.evcharging.exception.AppException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+
+/**
+ * Tính sort key cho kết quả /nearby, key nhỏ hơn đứng trước (tiêu chí giảm dần thì lấy số âm).
+ * Key chỉ phụ thuộc vào station và request nên phân trang / cursor ổn định giữa các lần gọi.
+ * Station thiếu dữ liệu (chưa có giá, chưa có review) xếp cuối.
+ */
+@Component
+@RequiredArgsConstructor
+public class StationRankingEngine {
+
+    // trọng số cho sort=score
+    private static final double W_DISTANCE = 0.35;
+    private static final double W_PRICE = 0.20;
+    private static final double W_AVAILABILITY = 0.20;
+    private static final double W_RATING = 0.15;
+    private static final double W_POWER = 0.10;
+    private static final double MAX_RATING = 5.0;
+
+    private final StationFilterIndex filterIndex;
+    private final StationRatingIndex ratingIndex;
+
+    public enum Sort {
+        DISTANCE, PRICE, POWER, AVAILABILITY, RATING, SCORE;
+
+        public static Sort parse(String value) {
+            if (value == null || value.isBlank()) return DISTANCE;
+            try {
+                return Sort.valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new AppException.BadRequestException(
+                        "Invalid sort: " + value + " (distance, price, power, availability, rating, score)");
+            }
+        }
+    }
+
+    /**
+     * Sort key cho ids[i] với khoảng cách distancesKm[i], i trong [0, count).
+     * Duyệt tuần tự một lần (score cần thêm một lần để lấy min/max chuẩn hoá), không sort.
+     */
+    public double[] keys(Sort sort, long[] ids, double[] distancesKm, int count) {
+        double[] keys = new double[count];
+        if (sort == Sort.DISTANCE) {
+            System.arraycopy(distancesKm, 0, keys, 0, count);
+            return keys;
+        }
+
+        StationFilterIndex.Metrics metrics = filterIndex.metrics(ids, count);
+        switch (sort) {
+            case PRICE -> {
+                for (int i = 0; i < count; i++) keys[i] = orLast(metrics.minPrice()[i]);
+            }
+            case POWER -> {
+                for (int i = 0; i < count; i++) keys[i] = orLast(-metrics.maxPower()[i]);
+            }
+            case AVAILABILITY -> {
+                for (int i = 0; i < count; i++) keys[i] = -metrics.availableConnectors()[i];
+            }
+            case RATING -> {
+                for (int i = 0; i < count; i++) keys[i] = orLast(-ratingIndex.average(ids[i]));
+            }
+            case SCORE -> score(ids, distancesKm, count, metrics, keys);
+            default -> throw new IllegalStateException("Unhandled sort " + sort);
+        }
+        return keys;
+    }
+
+    //-------------helper-------
+    // điểm tổng hợp trong [0, 1], chuẩn hoá min-max trên tập kết quả; key = -score
+    private void score(long[] ids, double[] distancesKm, int count, StationFilterIndex.Metrics m, double[] keys) {
+        double maxDist = 0, minPrice = Double.POSITIVE_INFINITY, maxPrice = Double.NEGATIVE_INFINITY;
+        double maxPower = 0;
+        int maxAvailable = 0;
+        for (int i = 0; i < count; i++) {
+            maxDist = Math.max(maxDist, distancesKm[i]);
+            double price = m.minPrice()[i];
+            if (!Double.isNaN(price)) {
+                minPrice = Math.min(minPrice, price);
+                maxPrice = Math.max(maxPrice, price);
+            }
+            double power = m.maxPower()[i];
+            if (!Double.isNaN(power)) maxPower = Math.max(maxPower, power);
+            maxAvailable = Math.max(maxAvailable, m.availableConnectors()[i]);
+        }
+
+        for (int i = 0; i < count; i++) {
+            double score = 0;
+            score += W_DISTANCE * (maxDist == 0 ? 1 : 1 - distancesKm[i] / maxDist);
+
+            double price = m.minPrice()[i];
+            if (!Double.isNaN(price)) {
+                score += W_PRICE * (maxPrice == minPrice ? 1 : (maxPrice - price) / (maxPrice - minPrice));
+            }
+            if (maxAvailable > 0) {
+                score += W_AVAILABILITY * m.availableConnectors()[i] / maxAvailable;
+            }
+            double rating = ratingIndex.average(ids[i]);
+            if (!Double.isNaN(rating)) {
+                score += W_RATING * rating / MAX_RATING;
+            }
+            double power = m.maxPower()[i];
+            if (!Double.isNaN(power) && maxPower > 0) {
+                score += W_POWER * power / maxPower;
+            }
+            // làm tròn để key ổn định khi encode vào cursor
+            keys[i] = -Math.rint(score * 1e6) / 1e6;
+        }
+    }
+
+    private static double orLast(double key) {
+        return Double.isNaN(key) ? Double.MAX_VALUE : key;
+    }
+}
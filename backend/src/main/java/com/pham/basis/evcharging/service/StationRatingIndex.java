@@ -0,0 +1,51 @@
+package com.pham.basis.evcharging.service;
+
+import com.pham.basis.evcharging.event.StationReviewChangedEvent;
+import com.pham.basis.evcharging.repository.StationReviewRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Điểm rating trung bình theo station, tính lại cho từng station khi review thay đổi.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StationRatingIndex {
+
+    private final StationReviewRepository reviewRepository;
+
+    private final Map<Long, Double> averages = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<StationReviewRepository.StationRatingRow> rows = reviewRepository.findAllRatingRows();
+        averages.clear();
+        for (StationReviewRepository.StationRatingRow row : rows) {
+            if (row.getAverage() != null) averages.put(row.getStationId(), row.getAverage());
+        }
+        log.info("Station rating index built: {} rated stations", averages.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReviewChanged(StationReviewChangedEvent event) {
+        Long stationId = event.getStationId();
+        reviewRepository.findRatingRowByStationId(stationId).ifPresentOrElse(
+                row -> averages.put(stationId, row.getAverage()),
+                () -> averages.remove(stationId));
+    }
+
+    // NaN nếu station chưa có review
+    public double average(Long stationId) {
+        Double avg = averages.get(stationId);
+        return avg == null ? Double.NaN : avg;
+    }
+}
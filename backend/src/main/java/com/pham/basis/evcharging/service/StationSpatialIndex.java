@@ -0,0 +1,343 @@
+package com.pham.basis.evcharging.service;
+
+import com.pham.basis.evcharging.event.StationsImportedEvent;
+import com.pham.basis.evcharging.model.ChargingStation;
+import com.pham.basis.evcharging.repository.ChargingStationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Grid index (geohash-like) over station coordinates.
+ * Mỗi cell là một ô CELL_SIZE_DEG x CELL_SIZE_DEG độ, radius query chỉ duyệt các cell giao với bounding box.
+ * Toạ độ lưu dạng struct-of-arrays (double[] primitive, radian + cos(lat) + vector đơn vị tính sẵn) để distances() chạy một vòng lặp chặt.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StationSpatialIndex {
+
+    private static final double CELL_SIZE_DEG = 0.1; // ~11km
+    private static final int COLS = (int) Math.round(360 / CELL_SIZE_DEG);
+    private static final int ROWS = (int) Math.round(180 / CELL_SIZE_DEG);
+    private static final double EARTH_RADIUS_KM = 6371;
+    // km được làm tròn 2 chữ số trước khi so với bán kính -> mọi km < r + ROUNDING_SLACK_KM đều có thể được giữ
+    private static final double ROUNDING_SLACK_KM = 0.005;
+    private static final double BOX_EPSILON_DEG = 1e-9;
+    // sai số làm tròn của 1 - dot (vài ulp), cộng vào ngưỡng reject để điểm sát biên luôn đi tiếp xuống haversine
+    private static final double REJECT_EPSILON = 1e-15;
+
+    private final ChargingStationRepository stationRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Set<Long>> cells = new HashMap<>();
+    private final Map<Long, Integer> slots = new HashMap<>();
+    private long[] ids = new long[0];
+    private double[] lats = new double[0];
+    private double[] lons = new double[0];
+    private double[] latRads = new double[0];
+    private double[] lonRads = new double[0];
+    private double[] cosLats = new double[0];
+    // vector đơn vị (x, y, z) trên mặt cầu
+    private double[] xs = new double[0];
+    private double[] ys = new double[0];
+    private double[] zs = new double[0];
+    private int size = 0;
+    private volatile boolean ready = false;
+
+    // chạy trước các listener khác của cùng event, vd ConnectorStatusStreamService đọc lại index ngay sau import
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener({ApplicationReadyEvent.class, StationsImportedEvent.class})
+    public void rebuild() {
+        List<ChargingStationRepository.StationCoordinates> all = stationRepository.findAllCoordinates();
+        lock.writeLock().lock();
+        try {
+            cells.clear();
+            slots.clear();
+            size = 0;
+            ensureCapacity(all.size());
+            for (ChargingStationRepository.StationCoordinates c : all) {
+                putLocked(c.getId(), c.getLatitude(), c.getLongitude());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        ready = true;
+        log.info("Station spatial index built: {} stations in {} cells", size, cells.size());
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void index(ChargingStation station) {
+        if (station == null || station.getId() == null) return;
+        put(station.getId(), station.getLatitude(), station.getLongitude());
+    }
+
+    public void put(Long stationId, Double latitude, Double longitude) {
+        if (stationId == null || latitude == null || longitude == null) return;
+        lock.writeLock().lock();
+        try {
+            putLocked(stationId, latitude, longitude);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long stationId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(stationId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // [latitude, longitude] của station, null nếu chưa index
+    public double[] getPoint(Long stationId) {
+        lock.readLock().lock();
+        try {
+            Integer slot = slots.get(stationId);
+            return slot == null ? null : new double[]{lats[slot], lons[slot]};
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Trả về id các station nằm trong bounding box của vòng tròn (lat, lon, radiusKm).
+     * Box tính trên cùng mặt cầu R = EARTH_RADIUS_KM với distances() (kinh độ: asin(sin(r/R) / cosφ)) và nới thêm
+     * ROUNDING_SLACK_KM, nên không bỏ sót station nào distances() sẽ giữ.
+     * Caller vẫn phải tính khoảng cách chính xác để lọc theo bán kính.
+     */
+    public List<Long> findCandidates(double latitude, double longitude, double radiusKm) {
+        double angle = (radiusKm + ROUNDING_SLACK_KM) / EARTH_RADIUS_KM;
+        double dLat = Math.toDegrees(angle) + BOX_EPSILON_DEG;
+        double minLat = latitude - dLat, maxLat = latitude + dLat;
+        double sinRatio = Math.sin(angle) / Math.cos(Math.toRadians(latitude));
+        // vòng tròn chạm cực -> mọi kinh độ
+        double dLon = angle >= Math.PI / 2 || minLat <= -90 || maxLat >= 90 || sinRatio >= 1
+                ? 180 : Math.toDegrees(Math.asin(sinRatio)) + BOX_EPSILON_DEG;
+        double minLon = longitude - dLon, maxLon = longitude + dLon;
+
+        int minRow = row(minLat), maxRow = row(maxLat);
+        int minCol = col(minLon), maxCol = col(maxLon);
+        long cellCount = (long) (maxRow - minRow + 1) * Math.min(COLS, maxCol - minCol + 1);
+
+        List<Long> result = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            // vùng tìm kiếm quá lớn -> duyệt thẳng các điểm, rẻ hơn duyệt cell rỗng
+            if (cellCount > cells.size()) {
+                for (int i = 0; i < size; i++) {
+                    if (inBox(lats[i], lons[i], minLat, maxLat, minLon, maxLon)) result.add(ids[i]);
+                }
+                return result;
+            }
+
+            for (int r = minRow; r <= maxRow; r++) {
+                for (int c = minCol; c <= maxCol && c - minCol < COLS; c++) {
+                    Set<Long> cell = cells.get((long) r * COLS + Math.floorMod(c, COLS));
+                    if (cell == null) continue;
+                    for (Long id : cell) {
+                        int slot = slots.get(id);
+                        if (inBox(lats[slot], lons[slot], minLat, maxLat, minLon, maxLon)) result.add(id);
+                    }
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // thêm id các station nằm trong box [minLat, maxLat] x [minLon, maxLon] vào out (không xử lý box qua kinh tuyến 180)
+    public void collectInBox(double minLat, double maxLat, double minLon, double maxLon, Collection<Long> out) {
+        collectInBox(minLat, maxLat, minLon, maxLon, out, Integer.MAX_VALUE);
+    }
+
+    // như trên nhưng dừng ngay khi out vượt quá limit phần tử, trả về false trong trường hợp đó
+    public boolean collectInBox(double minLat, double maxLat, double minLon, double maxLon,
+                                Collection<Long> out, int limit) {
+        if (out.size() > limit) return false;
+        int minRow = row(minLat), maxRow = row(maxLat);
+        int minCol = col(minLon), maxCol = col(maxLon);
+        long cellCount = (long) (maxRow - minRow + 1) * Math.min(COLS, maxCol - minCol + 1);
+
+        lock.readLock().lock();
+        try {
+            // box lớn hơn số cell đang có -> duyệt thẳng các điểm như findCandidates
+            if (cellCount > cells.size()) {
+                for (int i = 0; i < size; i++) {
+                    if (inBox(lats[i], lons[i], minLat, maxLat, minLon, maxLon)) {
+                        out.add(ids[i]);
+                        if (out.size() > limit) return false;
+                    }
+                }
+                return true;
+            }
+
+            for (int r = minRow; r <= maxRow; r++) {
+                for (int c = minCol; c <= maxCol && c - minCol < COLS; c++) {
+                    Set<Long> cell = cells.get((long) r * COLS + Math.floorMod(c, COLS));
+                    if (cell == null) continue;
+                    for (Long id : cell) {
+                        int slot = slots.get(id);
+                        if (inBox(lats[slot], lons[slot], minLat, maxLat, minLon, maxLon)) {
+                            out.add(id);
+                            if (out.size() > limit) return false;
+                        }
+                    }
+                }
+            }
+            return true;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Khoảng cách haversine (km, làm tròn 2 chữ số) từ (lat, lon) tới các station trong stationIds,
+     * chỉ giữ station có khoảng cách <= maxKm (null = không giới hạn), giữ nguyên thứ tự đầu vào.
+     * Gom slot trước rồi tính trong một vòng lặp trên mảng primitive.
+     * Loại nhanh bằng tích vô hướng của vector đơn vị: sin²(θ/2) = (1 - dot) / 2 đúng bằng term a của haversine,
+     * nên ngưỡng reject là chặn đúng (không phải xấp xỉ), chỉ nới thêm REJECT_EPSILON cho sai số làm tròn.
+     */
+    public Distances distances(double latitude, double longitude, Collection<Long> stationIds, Double maxKm) {
+        double qLat = Math.toRadians(latitude);
+        double qLon = Math.toRadians(longitude);
+        double qCos = Math.cos(qLat);
+        double qx = qCos * Math.cos(qLon), qy = qCos * Math.sin(qLon), qz = Math.sin(qLat);
+        double limit = maxKm == null ? Double.POSITIVE_INFINITY : maxKm;
+        double halfAngle = (limit + ROUNDING_SLACK_KM) / (2 * EARTH_RADIUS_KM);
+        double rejectA = Double.isInfinite(limit) || halfAngle >= Math.PI / 2 ? Double.POSITIVE_INFINITY
+                : Math.sin(halfAngle) * Math.sin(halfAngle) + REJECT_EPSILON;
+
+        lock.readLock().lock();
+        try {
+            int[] batch = new int[stationIds.size()];
+            int n = 0;
+            for (Long id : stationIds) {
+                Integer slot = slots.get(id);
+                if (slot != null) batch[n++] = slot;
+            }
+
+            long[] outIds = new long[n];
+            double[] outKm = new double[n];
+            int count = 0;
+            for (int i = 0; i < n; i++) {
+                int s = batch[i];
+                double chordA = (1 - (qx * xs[s] + qy * ys[s] + qz * zs[s])) * 0.5;
+                if (chordA > rejectA) continue;
+
+                double dLat = latRads[s] - qLat;
+                double dLon = lonRads[s] - qLon;
+                double sinLat = Math.sin(dLat * 0.5);
+                double sinLon = Math.sin(dLon * 0.5);
+                double a = sinLat * sinLat + qCos * cosLats[s] * sinLon * sinLon;
+                double km = 2 * EARTH_RADIUS_KM * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+                km = Math.round(km * 100.0) / 100.0;
+                if (km > limit) continue;
+
+                outIds[count] = ids[s];
+                outKm[count] = km;
+                count++;
+            }
+            return new Distances(outIds, outKm, count);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // kết quả của distances(): hai mảng song song, chỉ count phần tử đầu có nghĩa
+    public record Distances(long[] ids, double[] km, int count) {
+    }
+
+    //-------------helper------- (gọi khi đang giữ write lock)
+    private void putLocked(Long stationId, double latitude, double longitude) {
+        removeLocked(stationId);
+        ensureCapacity(size + 1);
+        int slot = size++;
+        ids[slot] = stationId;
+        lats[slot] = latitude;
+        lons[slot] = longitude;
+        latRads[slot] = Math.toRadians(latitude);
+        lonRads[slot] = Math.toRadians(longitude);
+        cosLats[slot] = Math.cos(latRads[slot]);
+        xs[slot] = cosLats[slot] * Math.cos(lonRads[slot]);
+        ys[slot] = cosLats[slot] * Math.sin(lonRads[slot]);
+        zs[slot] = Math.sin(latRads[slot]);
+        slots.put(stationId, slot);
+        cells.computeIfAbsent(cellKey(latitude, longitude), k -> new HashSet<>()).add(stationId);
+    }
+
+    // xoá bằng cách chuyển phần tử cuối vào slot trống để mảng luôn liền nhau
+    private void removeLocked(Long stationId) {
+        Integer slot = slots.remove(stationId);
+        if (slot == null) return;
+        long key = cellKey(lats[slot], lons[slot]);
+        Set<Long> cell = cells.get(key);
+        if (cell != null) {
+            cell.remove(stationId);
+            if (cell.isEmpty()) cells.remove(key);
+        }
+
+        int last = --size;
+        if (slot != last) {
+            ids[slot] = ids[last];
+            lats[slot] = lats[last];
+            lons[slot] = lons[last];
+            latRads[slot] = latRads[last];
+            lonRads[slot] = lonRads[last];
+            cosLats[slot] = cosLats[last];
+            xs[slot] = xs[last];
+            ys[slot] = ys[last];
+            zs[slot] = zs[last];
+            slots.put(ids[slot], slot);
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (ids.length >= capacity) return;
+        int newCapacity = Math.max(capacity, ids.length * 2 + 16);
+        ids = Arrays.copyOf(ids, newCapacity);
+        lats = Arrays.copyOf(lats, newCapacity);
+        lons = Arrays.copyOf(lons, newCapacity);
+        latRads = Arrays.copyOf(latRads, newCapacity);
+        lonRads = Arrays.copyOf(lonRads, newCapacity);
+        cosLats = Arrays.copyOf(cosLats, newCapacity);
+        xs = Arrays.copyOf(xs, newCapacity);
+        ys = Arrays.copyOf(ys, newCapacity);
+        zs = Arrays.copyOf(zs, newCapacity);
+    }
+
+    private static boolean inBox(double lat, double lon, double minLat, double maxLat, double minLon, double maxLon) {
+        if (lat < minLat || lat > maxLat) return false;
+        if (minLon >= -180 && maxLon <= 180) return lon >= minLon && lon <= maxLon;
+        // box vượt qua kinh tuyến 180
+        return (lon >= minLon && lon <= maxLon) || (lon + 360 >= minLon && lon + 360 <= maxLon)
+                || (lon - 360 >= minLon && lon - 360 <= maxLon);
+    }
+
+    private static long cellKey(double latitude, double longitude) {
+        return (long) row(latitude) * COLS + Math.floorMod(col(longitude), COLS);
+    }
+
+    private static int row(double latitude) {
+        int r = (int) Math.floor((latitude + 90) / CELL_SIZE_DEG);
+        return Math.max(0, Math.min(ROWS - 1, r));
+    }
+
+    private static int col(double longitude) {
+        return (int) Math.floor((longitude + 180) / CELL_SIZE_DEG);
+    }
+}
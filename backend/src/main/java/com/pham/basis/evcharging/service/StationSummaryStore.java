@@ -0,0 +1,136 @@
+package com.pham.basis.evcharging.service;
+
+import com.pham.basis.evcharging.event.ConnectorStatusChangedEvent;
+import com.pham.basis.evcharging.event.StationChangedEvent;
+import com.pham.basis.evcharging.model.ChargingStation;
+import com.pham.basis.evcharging.model.StationSummary;
+import com.pham.basis.evcharging.repository.ChargerPillarRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lưu StationSummary trong memory theo stationId.
+ * Lần đọc đầu tiên tính summary từ projection query (không dùng entity của caller, có thể đã cũ so với event vừa commit),
+ * sau đó cập nhật tăng dần theo event.
+ * Version theo từng station tăng ở mọi event kể cả khi chưa có entry, summary load xong chỉ được cache nếu version
+ * không đổi trong lúc load (giống StationDetailCache).
+ * Event AFTER_COMMIT tới sau commit một chút, nên entry vừa load trong RECENT_LOAD_NANOS có thể đã gồm thay đổi đó:
+ * áp delta lên nó sẽ đếm hai lần -> bỏ entry để lần đọc sau load lại, entry cũ hơn thì cập nhật tăng dần như thường.
+ */
+@Component
+@RequiredArgsConstructor
+public class StationSummaryStore {
+
+    // giữ dưới giới hạn 2100 tham số của SQL Server
+    private static final int LOAD_CHUNK = 1_000;
+    private static final long RECENT_LOAD_NANOS = 5_000_000_000L;
+
+    private final ChargerPillarRepository pillarRepository;
+
+    private final Map<Long, StationSummary> summaries = new ConcurrentHashMap<>();
+    // guarded by versions (cùng với mọi thao tác ghi vào summaries)
+    private final Map<Long, Long> versions = new HashMap<>();
+    private final Map<Long, Long> loadedAt = new HashMap<>();
+
+    public StationSummary get(ChargingStation station) {
+        if (station.getId() == null) return StationSummary.of(station);
+        StationSummary cached = summaries.get(station.getId());
+        if (cached != null) return cached;
+        return load(List.of(station.getId())).get(station.getId());
+    }
+
+    // gắn summary vào entity trước khi đưa qua StationMapper
+    public ChargingStation attach(ChargingStation station) {
+        station.setSummary(get(station));
+        return station;
+    }
+
+    // như attach cho cả trang, các station chưa có summary load bằng một query
+    public void attachAll(Collection<ChargingStation> stations) {
+        List<Long> missing = new ArrayList<>();
+        for (ChargingStation s : stations) {
+            if (s.getId() != null && !summaries.containsKey(s.getId())) missing.add(s.getId());
+        }
+        Map<Long, StationSummary> loaded = missing.isEmpty() ? Map.of() : load(missing);
+        for (ChargingStation s : stations) {
+            StationSummary summary = s.getId() == null ? null : summaries.get(s.getId());
+            if (summary == null) summary = loaded.get(s.getId());
+            s.setSummary(summary != null ? summary : StationSummary.of(s));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onConnectorStatusChanged(ConnectorStatusChangedEvent event) {
+        Long stationId = event.getStationId();
+        if (stationId == null) return;
+        synchronized (versions) {
+            versions.merge(stationId, 1L, Long::sum);
+            Long at = loadedAt.get(stationId);
+            if (at != null && System.nanoTime() - at < RECENT_LOAD_NANOS) {
+                remove(stationId);
+                return;
+            }
+            summaries.computeIfPresent(stationId,
+                    (id, s) -> s.withConnectorStatusChange(event.getOldStatus(), event.getNewStatus()));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStationChanged(StationChangedEvent event) {
+        if (event.getStationId() == null) return;
+        synchronized (versions) {
+            versions.merge(event.getStationId(), 1L, Long::sum);
+            remove(event.getStationId());
+        }
+    }
+
+    // ReadModelReconciler gọi định kỳ (pillar / giá đổi ở node khác không có event tới node này)
+    public void invalidateAll() {
+        synchronized (versions) {
+            for (Long stationId : summaries.keySet()) versions.merge(stationId, 1L, Long::sum);
+            summaries.clear();
+            loadedAt.clear();
+        }
+    }
+
+    //-------------helper-------
+    // luôn trả summary vừa đọc cho caller, chỉ cache station không có event nào chen vào trong lúc đọc
+    private Map<Long, StationSummary> load(List<Long> stationIds) {
+        Map<Long, Long> before = new HashMap<>();
+        synchronized (versions) {
+            for (Long id : stationIds) before.put(id, versions.getOrDefault(id, 0L));
+        }
+
+        Map<Long, List<ChargerPillarRepository.SummaryRow>> rowsByStation = new HashMap<>();
+        for (int from = 0; from < stationIds.size(); from += LOAD_CHUNK) {
+            List<Long> chunk = stationIds.subList(from, Math.min(stationIds.size(), from + LOAD_CHUNK));
+            for (ChargerPillarRepository.SummaryRow row : pillarRepository.findSummaryRowsByStationIdIn(chunk)) {
+                rowsByStation.computeIfAbsent(row.getStationId(), k -> new ArrayList<>()).add(row);
+            }
+        }
+
+        Map<Long, StationSummary> loaded = new HashMap<>();
+        for (Long id : stationIds) {
+            loaded.put(id, StationSummary.fromRows(id, rowsByStation.getOrDefault(id, List.of())));
+        }
+        long now = System.nanoTime();
+        synchronized (versions) {
+            for (Long id : stationIds) {
+                if (!versions.getOrDefault(id, 0L).equals(before.get(id)) || summaries.containsKey(id)) continue;
+                summaries.put(id, loaded.get(id));
+                loadedAt.put(id, now);
+            }
+        }
+        return loaded;
+    }
+
+    // gọi khi đang giữ lock versions
+    private void remove(Long stationId) {
+        summaries.remove(stationId);
+        loadedAt.remove(stationId);
+    }
+}
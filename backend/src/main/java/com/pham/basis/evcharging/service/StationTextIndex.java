@@ -0,0 +1,252 @@
+package com.pham.basis.evcharging.service;
+
+import com.pham.basis.evcharging.event.StationChangedEvent;
+import com.pham.basis.evcharging.event.StationsImportedEvent;
+import com.pham.basis.evcharging.repository.ChargingStationRepository;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Trigram inverted index trên name + address của station.
+ * Text được bỏ dấu tiếng Việt (accent folding) trước khi index, nên "Thủ Đức" khớp với "thu duc".
+ * Mỗi từ được pad 2 space phía trước để có trigram cho prefix ("  t", " th"), phục vụ type-ahead.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StationTextIndex {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_ALNUM = Pattern.compile("[^a-z0-9]+");
+
+    private final ChargingStationRepository stationRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Set<Long>> postings = new HashMap<>();
+    private final Map<Long, Doc> docs = new HashMap<>();
+    private volatile boolean ready = false;
+
+    @EventListener({ApplicationReadyEvent.class, StationsImportedEvent.class})
+    public void rebuild() {
+        List<ChargingStationRepository.StationText> all = stationRepository.findAllText();
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            docs.clear();
+            for (ChargingStationRepository.StationText s : all) {
+                addDoc(s.getId(), s.getName(), s.getAddress());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        ready = true;
+        log.info("Station text index built: {} stations, {} trigrams", docs.size(), postings.size());
+    }
+
+    // chưa build xong thì search() trả rỗng -> caller phải dùng SQL fallback
+    public boolean isReady() {
+        return ready;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStationChanged(StationChangedEvent event) {
+        stationRepository.findTextById(event.getStationId())
+                .ifPresent(s -> index(s.getId(), s.getName(), s.getAddress()));
+    }
+
+    public void index(Long stationId, String name, String address) {
+        lock.writeLock().lock();
+        try {
+            removeDoc(stationId);
+            addDoc(stationId, name, address);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long stationId) {
+        lock.writeLock().lock();
+        try {
+            removeDoc(stationId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Các station mà mọi từ trong query đều xuất hiện trong name/address (đã bỏ dấu).
+     * Từ >= 3 ký tự khớp substring, từ ngắn hơn khớp prefix của một từ.
+     */
+    public Set<Long> search(String query) {
+        List<String> tokens = tokenize(fold(query));
+        if (tokens.isEmpty()) return Set.of();
+
+        lock.readLock().lock();
+        try {
+            Set<Long> result = null;
+            for (String token : tokens) {
+                Set<Long> matches = candidates(token);
+                matches.removeIf(id -> !docs.get(id).matches(token));
+                if (result == null) {
+                    result = matches;
+                } else {
+                    result.retainAll(matches);
+                }
+                if (result.isEmpty()) break;
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // autocomplete: từ cuối của query được coi là prefix đang gõ dở
+    public List<Suggestion> suggest(String query, int limit) {
+        String folded = fold(query);
+        List<String> tokens = tokenize(folded);
+        if (tokens.isEmpty() || limit <= 0) return List.of();
+
+        Set<Long> matched = search(query);
+        lock.readLock().lock();
+        try {
+            List<Suggestion> ranked = new ArrayList<>(matched.size());
+            for (Long id : matched) {
+                Doc doc = docs.get(id);
+                if (doc == null) continue;
+                ranked.add(new Suggestion(id, doc.getName(), doc.getAddress(), doc.score(folded.trim(), tokens)));
+            }
+            ranked.sort(Comparator.comparingDouble(Suggestion::getScore).reversed()
+                    .thenComparing(s -> s.getName() == null ? "" : s.getName())
+                    .thenComparing(Suggestion::getStationId));
+            return ranked.size() > limit ? new ArrayList<>(ranked.subList(0, limit)) : ranked;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // bỏ dấu tiếng Việt + lowercase + chuẩn hoá khoảng trắng
+    public static String fold(String text) {
+        if (text == null) return "";
+        String s = text.replace('đ', 'd').replace('Đ', 'D');
+        s = Normalizer.normalize(s, Normalizer.Form.NFD);
+        s = MARKS.matcher(s).replaceAll("");
+        s = s.toLowerCase(Locale.ROOT);
+        return NON_ALNUM.matcher(s).replaceAll(" ").trim();
+    }
+
+    //-------------helper------- (gọi khi đang giữ lock)
+    private void addDoc(Long stationId, String name, String address) {
+        Doc doc = new Doc(name, address, fold(name), fold(address));
+        docs.put(stationId, doc);
+        for (String gram : doc.grams()) {
+            postings.computeIfAbsent(gram, k -> new HashSet<>()).add(stationId);
+        }
+    }
+
+    private void removeDoc(Long stationId) {
+        Doc old = docs.remove(stationId);
+        if (old == null) return;
+        for (String gram : old.grams()) {
+            Set<Long> ids = postings.get(gram);
+            if (ids == null) continue;
+            ids.remove(stationId);
+            if (ids.isEmpty()) postings.remove(gram);
+        }
+    }
+
+    // giao các posting list, bắt đầu từ list ngắn nhất
+    private Set<Long> candidates(String token) {
+        List<String> grams = token.length() >= 3 ? innerGrams(token) : prefixGrams(token);
+        List<Set<Long>> lists = new ArrayList<>(grams.size());
+        for (String gram : grams) {
+            Set<Long> ids = postings.get(gram);
+            if (ids == null) return new HashSet<>();
+            lists.add(ids);
+        }
+        lists.sort(Comparator.comparingInt(Set::size));
+        Set<Long> result = new HashSet<>(lists.get(0));
+        for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+            result.retainAll(lists.get(i));
+        }
+        return result;
+    }
+
+    private static List<String> tokenize(String folded) {
+        if (folded.isBlank()) return List.of();
+        return Arrays.stream(folded.split(" ")).filter(t -> !t.isEmpty()).distinct().toList();
+    }
+
+    private static List<String> innerGrams(String token) {
+        List<String> grams = new ArrayList<>();
+        for (int i = 0; i + 3 <= token.length(); i++) grams.add(token.substring(i, i + 3));
+        return grams;
+    }
+
+    private static List<String> prefixGrams(String token) {
+        String padded = "  " + token;
+        List<String> grams = new ArrayList<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) grams.add(padded.substring(i, i + 3));
+        return grams;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Suggestion {
+        private final Long stationId;
+        private final String name;
+        private final String address;
+        private final double score;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class Doc {
+        private final String name;
+        private final String address;
+        private final String foldedName;
+        private final String foldedAddress;
+
+        Set<String> grams() {
+            Set<String> grams = new HashSet<>();
+            for (String token : tokenize(foldedName + " " + foldedAddress)) {
+                grams.addAll(prefixGrams(token));
+                grams.addAll(innerGrams(token));
+            }
+            return grams;
+        }
+
+        boolean matches(String token) {
+            if (token.length() >= 3) return foldedName.contains(token) || foldedAddress.contains(token);
+            return hasWordPrefix(foldedName, token) || hasWordPrefix(foldedAddress, token);
+        }
+
+        // name khớp nặng hơn address, khớp đầu từ nặng hơn khớp giữa từ
+        double score(String foldedQuery, List<String> tokens) {
+            double score = foldedName.startsWith(foldedQuery) ? 5 : 0;
+            for (String token : tokens) {
+                if (hasWordPrefix(foldedName, token)) score += 3;
+                else if (foldedName.contains(token)) score += 2;
+                else if (hasWordPrefix(foldedAddress, token)) score += 1.5;
+                else if (foldedAddress.contains(token)) score += 1;
+            }
+            // ưu tiên tên ngắn (khớp sát hơn)
+            return score + 1.0 / (1 + foldedName.length());
+        }
+
+        private static boolean hasWordPrefix(String text, String token) {
+            return text.startsWith(token) || text.contains(" " + token);
+        }
+    }
+}
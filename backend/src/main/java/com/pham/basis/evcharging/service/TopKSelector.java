@@ -0,0 +1,40 @@
+package com.pham.basis.evcharging.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Giữ k phần tử nhỏ nhất theo comparator bằng một max-heap kích thước k.
+ * offer() là O(log k), không cần sort toàn bộ danh sách candidate.
+ */
+public class TopKSelector<T> {
+
+    private final int k;
+    private final Comparator<? super T> comparator;
+    private final PriorityQueue<T> heap;
+
+    public TopKSelector(int k, Comparator<? super T> comparator) {
+        this.k = Math.max(0, k);
+        this.comparator = comparator;
+        this.heap = new PriorityQueue<>(Math.max(1, Math.min(this.k, 1024)), comparator.reversed());
+    }
+
+    public void offer(T item) {
+        if (k == 0) return;
+        if (heap.size() < k) {
+            heap.add(item);
+        } else if (comparator.compare(item, heap.peek()) < 0) {
+            heap.poll();
+            heap.add(item);
+        }
+    }
+
+    // k phần tử nhỏ nhất, đã sắp xếp tăng dần
+    public List<T> sorted() {
+        List<T> result = new ArrayList<>(heap);
+        result.sort(comparator);
+        return result;
+    }
+}
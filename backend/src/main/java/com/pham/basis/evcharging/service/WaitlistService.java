@@ -0,0 +1,13 @@
+package com.pham.basis.evcharging.service;
+
+import com.pham.basis.evcharging.dto.request.WaitlistRequest;
+import com.pham.basis.evcharging.dto.response.WaitlistResponse;
+import com.pham.basis.evcharging.model.User;
+
+import java.util.List;
+
+public interface WaitlistService {
+    WaitlistResponse join(WaitlistRequest request, User user);
+    void cancel(Long id, User user);
+    List<WaitlistResponse> getByUser(Long userId);
+}
@@ -0,0 +1,126 @@
+package com.pham.basis.evcharging.benchmark;
+
+import com.pham.basis.evcharging.service.ConnectorFitPolicy;
+import com.pham.basis.evcharging.service.ReservationScheduleIndex;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mô phỏng một ngày booking ở một station, so sánh số phiên sạc nhận được:
+ * - driverPick: driver tự chọn ngẫu nhiên một connector còn trống (như /book/booking hiện tại)
+ * - firstFit: connector trống đầu tiên
+ * - bestFit: ConnectorFitPolicy (như /book/auto)
+ * Mỗi iteration là một ngày với demand ngẫu nhiên (cùng seed cho cả ba cách), counter sessions = số phiên nhận được trong ngày.
+ * Chạy: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.pham.basis.evcharging.benchmark.ConnectorAssignmentBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 30)
+@Fork(1)
+public class ConnectorAssignmentBenchmark {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 1, 6);
+    private static final int SLOT_MINUTES = 15;
+
+    @Param({"4", "8"})
+    private int connectors;
+
+    // số request trong ngày trên mỗi connector
+    @Param({"8", "12"})
+    private int demandPerConnector;
+
+    private long seed = 1;
+    private List<LocalDateTime[]> demand;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Day {
+        public int sessions;
+        public int rejected;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            sessions = 0;
+            rejected = 0;
+        }
+    }
+
+    // 06:00 - 22:00, dài 30 - 150 phút, theo lưới 15 phút
+    @Setup(Level.Iteration)
+    public void generateDemand() {
+        Random random = new Random(seed++);
+        int requests = connectors * demandPerConnector;
+        demand = new ArrayList<>(requests);
+        for (int i = 0; i < requests; i++) {
+            LocalDateTime start = DAY.atTime(6, 0).plusMinutes((long) random.nextInt(16 * 4) * SLOT_MINUTES);
+            LocalDateTime end = start.plusMinutes((long) (2 + random.nextInt(9)) * SLOT_MINUTES);
+            demand.add(new LocalDateTime[]{start, end});
+        }
+    }
+
+    @Benchmark
+    public void driverPick(Day day) {
+        Random random = new Random(seed);
+        simulate(day, free -> free.get(random.nextInt(free.size())));
+    }
+
+    @Benchmark
+    public void firstFit(Day day) {
+        simulate(day, free -> free.get(0));
+    }
+
+    @Benchmark
+    public void bestFit(Day day) {
+        simulate(day, null);
+    }
+
+    private interface Picker {
+        ReservationScheduleIndex.FreeConnector pick(List<ReservationScheduleIndex.FreeConnector> free);
+    }
+
+    // picker null = ConnectorFitPolicy
+    private void simulate(Day day, Picker picker) {
+        List<TreeMap<LocalDateTime, LocalDateTime>> schedules = new ArrayList<>(connectors);
+        for (int c = 0; c < connectors; c++) schedules.add(new TreeMap<>());
+
+        for (LocalDateTime[] request : demand) {
+            LocalDateTime start = request[0];
+            LocalDateTime endWithTurnover = request[1].plusMinutes(ReservationScheduleIndex.TURNOVER_MINUTES);
+            List<ReservationScheduleIndex.FreeConnector> free = new ArrayList<>();
+            for (int c = 0; c < connectors; c++) {
+                TreeMap<LocalDateTime, LocalDateTime> schedule = schedules.get(c);
+                Map.Entry<LocalDateTime, LocalDateTime> prev = schedule.lowerEntry(start);
+                Map.Entry<LocalDateTime, LocalDateTime> next = schedule.ceilingEntry(start);
+                // cùng rule với findConnectorConflict: [start, end + turnover) giao [s, e)
+                if (prev != null && start.isBefore(prev.getValue())) continue;
+                if (next != null && endWithTurnover.isAfter(next.getKey())) continue;
+                free.add(new ReservationScheduleIndex.FreeConnector((long) c, (long) c,
+                        prev == null ? null : prev.getValue(), next == null ? null : next.getKey()));
+            }
+            if (free.isEmpty()) {
+                day.rejected++;
+                continue;
+            }
+            ReservationScheduleIndex.FreeConnector chosen = picker == null
+                    ? ConnectorFitPolicy.rank(free, start, endWithTurnover).get(0)
+                    : picker.pick(free);
+            schedules.get(chosen.connectorId().intValue()).put(start, request[1]);
+            day.sessions++;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ConnectorAssignmentBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,115 @@
+package com.pham.basis.evcharging.benchmark;
+
+import com.pham.basis.evcharging.service.StationSpatialIndex;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * So sánh tìm station trong bán kính:
+ * - scanLegacy: duyệt toàn bộ station, tính khoảng cách kiểu cũ (Double boxed, toRadians/cos mỗi lần)
+ * - gridLegacy: lấy candidate từ grid index rồi tính khoảng cách kiểu cũ
+ * - gridKernel: lấy candidate từ grid index rồi tính bằng kernel struct-of-arrays
+ * Chạy: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.pham.basis.evcharging.benchmark.NearbySearchBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NearbySearchBenchmark {
+
+    private static final double CENTER_LAT = 10.7769;
+    private static final double CENTER_LON = 106.7009;
+
+    @Param({"1000", "10000", "100000"})
+    private int stations;
+
+    @Param({"5", "20"})
+    private double radiusKm;
+
+    private StationSpatialIndex index;
+    private List<Long> ids;
+    private List<Double> latitudes;
+    private List<Double> longitudes;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        index = new StationSpatialIndex(null);
+        ids = new ArrayList<>(stations);
+        latitudes = new ArrayList<>(stations);
+        longitudes = new ArrayList<>(stations);
+        // rải station trong khoảng ±1 độ quanh trung tâm TP.HCM
+        for (long id = 1; id <= stations; id++) {
+            double lat = CENTER_LAT + (random.nextDouble() * 2 - 1);
+            double lon = CENTER_LON + (random.nextDouble() * 2 - 1);
+            ids.add(id);
+            latitudes.add(lat);
+            longitudes.add(lon);
+            index.put(id, lat, lon);
+        }
+    }
+
+    @Benchmark
+    public void scanLegacy(Blackhole bh) {
+        int hits = 0;
+        for (int i = 0; i < ids.size(); i++) {
+            Double d = legacyDistance(CENTER_LAT, CENTER_LON, latitudes.get(i), longitudes.get(i));
+            if (d != null && d <= radiusKm) hits++;
+        }
+        bh.consume(hits);
+    }
+
+    @Benchmark
+    public void gridLegacy(Blackhole bh) {
+        int hits = 0;
+        for (Long id : index.findCandidates(CENTER_LAT, CENTER_LON, radiusKm)) {
+            double[] p = index.getPoint(id);
+            Double d = legacyDistance(CENTER_LAT, CENTER_LON, p[0], p[1]);
+            if (d != null && d <= radiusKm) hits++;
+        }
+        bh.consume(hits);
+    }
+
+    @Benchmark
+    public void gridKernel(Blackhole bh) {
+        List<Long> candidates = index.findCandidates(CENTER_LAT, CENTER_LON, radiusKm);
+        bh.consume(index.distances(CENTER_LAT, CENTER_LON, candidates, radiusKm).count());
+    }
+
+    @Benchmark
+    public void scanKernel(Blackhole bh) {
+        bh.consume(index.distances(CENTER_LAT, CENTER_LON, ids, radiusKm).count());
+    }
+
+    // bản sao ChargingStationServiceImpl.calculateDistance
+    private static Double legacyDistance(Double lat1, Double lon1, Double lat2, Double lon2) {
+        if (lat1 == null || lon1 == null || lat2 == null || lon2 == null) return null;
+
+        final int R = 6371;
+        double latDist = Math.toRadians(lat2 - lat1);
+        double lonDist = Math.toRadians(lon2 - lon1);
+
+        double a = Math.sin(latDist / 2) * Math.sin(latDist / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(lonDist / 2) * Math.sin(lonDist / 2);
+
+        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+        return Math.round(R * c * 100.0) / 100.0;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(NearbySearchBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,172 @@
+package com.pham.basis.evcharging.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Wheel nhỏ (4 slot x 2 tầng, tick 1ms) để deadline nhanh chóng đi qua hạ tầng và overflow:
+ * tầng 0 phủ 4 tick, tầng 1 phủ 16 tick, xa hơn nằm trong overflow.
+ */
+class HierarchicalTimingWheelTest {
+
+    private HierarchicalTimingWheel<String> wheel() {
+        return new HierarchicalTimingWheel<>(1, 4, 2, 0);
+    }
+
+    // advance từng tick, trả về tick mà key được trả ra
+    private static TreeMap<Long, List<String>> run(HierarchicalTimingWheel<String> wheel, long from, long to) {
+        TreeMap<Long, List<String>> fired = new TreeMap<>();
+        for (long t = from; t <= to; t++) {
+            List<String> due = wheel.advance(t);
+            if (!due.isEmpty()) fired.put(t, due);
+        }
+        return fired;
+    }
+
+    @Test
+    void firesOnExactTickAtLevelZero() {
+        HierarchicalTimingWheel<String> wheel = wheel();
+        wheel.schedule("a", 3);
+
+        assertEquals(List.of(), wheel.advance(2));
+        assertEquals(List.of("a"), wheel.advance(3));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void cascadesFromUpperLevelWithoutFiringEarlyOrLate() {
+        HierarchicalTimingWheel<String> wheel = wheel();
+        wheel.schedule("a", 13);
+        wheel.schedule("b", 9);
+
+        TreeMap<Long, List<String>> fired = run(wheel, 1, 20);
+        assertEquals(List.of("b"), fired.get(9L));
+        assertEquals(List.of("a"), fired.get(13L));
+        assertEquals(2, fired.size());
+    }
+
+    @Test
+    void overflowEntriesComeBackOnTime() {
+        HierarchicalTimingWheel<String> wheel = wheel();
+        wheel.schedule("far", 45);
+        wheel.schedule("farther", 130);
+
+        TreeMap<Long, List<String>> fired = run(wheel, 1, 140);
+        assertEquals(List.of("far"), fired.get(45L));
+        assertEquals(List.of("farther"), fired.get(130L));
+        assertEquals(2, fired.size());
+    }
+
+    @Test
+    void cancelledKeyNeverFires() {
+        HierarchicalTimingWheel<String> wheel = wheel();
+        wheel.schedule("a", 5);
+        wheel.schedule("b", 40);
+        assertTrue(wheel.cancel("a"));
+        assertTrue(wheel.cancel("b"));
+        assertFalse(wheel.cancel("a"));
+
+        assertTrue(run(wheel, 1, 60).isEmpty());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void rescheduleReplacesPreviousDeadline() {
+        HierarchicalTimingWheel<String> wheel = wheel();
+        wheel.schedule("a", 5);
+        wheel.schedule("a", 20);
+        wheel.schedule("b", 30);
+        wheel.schedule("b", 7);
+
+        TreeMap<Long, List<String>> fired = run(wheel, 1, 40);
+        assertEquals(List.of("b"), fired.get(7L));
+        assertEquals(List.of("a"), fired.get(20L));
+        assertEquals(2, fired.size());
+    }
+
+    @Test
+    void pastDeadlineFiresOnNextAdvance() {
+        HierarchicalTimingWheel<String> wheel = wheel();
+        wheel.advance(10);
+        wheel.schedule("late", 4);
+
+        assertEquals(List.of("late"), wheel.advance(10));
+    }
+
+    @Test
+    void deadlineRoundsUpToNextTick() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(1_000, 4, 2, 0);
+        wheel.schedule("a", 2_001);
+
+        assertEquals(List.of(), wheel.advance(2_999));
+        assertEquals(List.of("a"), wheel.advance(3_000));
+    }
+
+    @Test
+    void jumpsAheadWhenNothingIsPending() {
+        HierarchicalTimingWheel<String> wheel = wheel();
+        wheel.advance(1_000_000);
+        wheel.schedule("a", 1_000_003);
+
+        assertEquals(List.of(), wheel.advance(1_000_002));
+        assertEquals(List.of("a"), wheel.advance(1_000_003));
+    }
+
+    // cancelled entry trong expired không được tính là entry còn sống khi quyết định nhảy tới target
+    @Test
+    void cancelledExpiredEntryDoesNotSkipPendingSlots() {
+        HierarchicalTimingWheel<String> wheel = wheel();
+        wheel.advance(5);
+        wheel.schedule("pending", 9);
+        wheel.schedule("stale", 1);
+        wheel.cancel("stale");
+
+        assertEquals(List.of("pending"), wheel.advance(12));
+    }
+
+    @Test
+    void returnsKeysInDeadlineOrderWhenAdvancingManyTicks() {
+        HierarchicalTimingWheel<String> wheel = wheel();
+        wheel.schedule("c", 50);
+        wheel.schedule("a", 3);
+        wheel.schedule("b", 17);
+
+        assertEquals(List.of("a", "b", "c"), wheel.advance(60));
+    }
+
+    // so với mô hình đơn giản: mỗi key fire đúng ở tick đầu tiên >= deadline, không sớm không muộn
+    @Test
+    void matchesReferenceModelUnderRandomOperations() {
+        Random random = new Random(42);
+        HierarchicalTimingWheel<String> wheel = wheel();
+        TreeMap<String, Long> expected = new TreeMap<>();
+        long now = 0;
+        for (int step = 0; step < 20_000; step++) {
+            String key = "k" + random.nextInt(50);
+            int op = random.nextInt(10);
+            if (op < 5) {
+                long deadline = now - 5 + random.nextInt(200);
+                wheel.schedule(key, deadline);
+                expected.put(key, deadline);
+            } else if (op < 7) {
+                wheel.cancel(key);
+                expected.remove(key);
+            } else {
+                now += random.nextInt(op == 9 ? 120 : 4);
+                List<String> due = wheel.advance(now);
+                List<String> want = new ArrayList<>();
+                for (var e : expected.entrySet()) if (e.getValue() <= now) want.add(e.getKey());
+                assertEquals(want.size(), due.size(), "due count at " + now);
+                assertTrue(due.containsAll(want), "due keys at " + now);
+                want.forEach(expected::remove);
+            }
+            assertEquals(expected.size(), wheel.size());
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.pham.basis.evcharging.service;
+
+import com.pham.basis.evcharging.dto.request.ReservationRequest;
+import com.pham.basis.evcharging.exception.AppException;
+import com.pham.basis.evcharging.model.*;
+import com.pham.basis.evcharging.repository.*;
+import com.pham.basis.evcharging.service.Impl.ReservationServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Nhiều thread cùng đặt các slot trên cùng vài connector qua createReservation thật + ConnectorBookingLock thật.
+ * Repository là mock trên một "bảng" trong memory; kiểm tra trùng lịch đọc bảng đó và save() nhường CPU
+ * trước khi ghi, nên nếu booking cùng connector không được serialize thì sẽ có double-booking.
+ * Phần UPDLOCK giữa các node cần SQL Server thật nên không nằm trong test này.
+ */
+class ReservationBookingConcurrencyTest {
+
+    private static final long PILLAR_ID = 1L;
+    private static final long STATION_ID = 1L;
+
+    private final List<Reservation> table = new CopyOnWriteArrayList<>();
+    private final AtomicLong ids = new AtomicLong();
+    private ReservationServiceImpl reservationService;
+
+    @BeforeEach
+    void setUp() {
+        ReservationRepository reservationRepository = mock(ReservationRepository.class);
+        UserRepository userRepository = mock(UserRepository.class);
+        ChargingStationRepository stationRepository = mock(ChargingStationRepository.class);
+        ChargerPillarRepository pillarRepository = mock(ChargerPillarRepository.class);
+        ConnectorRepository connectorRepository = mock(ConnectorRepository.class);
+        VehicleRepository vehicleRepository = mock(VehicleRepository.class);
+        ReservationScheduleIndex scheduleIndex = mock(ReservationScheduleIndex.class);
+
+        ChargingStation station = new ChargingStation();
+        station.setId(STATION_ID);
+        station.setName("Station");
+        ChargerPillar pillar = new ChargerPillar();
+        pillar.setId(PILLAR_ID);
+        pillar.setStation(station);
+
+        when(userRepository.findById(anyLong())).thenAnswer(inv -> Optional.of(user(inv.getArgument(0))));
+        when(stationRepository.findById(STATION_ID)).thenReturn(Optional.of(station));
+        when(pillarRepository.findChargerPillarById(PILLAR_ID)).thenReturn(Optional.of(pillar));
+        when(connectorRepository.findById(anyLong())).thenAnswer(inv -> {
+            Connector c = new Connector();
+            c.setId(inv.getArgument(0));
+            c.setType("CCS");
+            c.setStatus("AVAILABLE");
+            c.setPillar(pillar);
+            return Optional.of(c);
+        });
+        when(connectorRepository.lockForBooking(anyLong())).thenAnswer(inv -> Optional.of((Long) inv.getArgument(0)));
+        // mỗi booking một xe riêng, chỉ đo tranh chấp connector
+        when(vehicleRepository.findById(anyLong())).thenAnswer(inv -> {
+            Vehicle v = new Vehicle();
+            v.setId(inv.getArgument(0));
+            v.setUser(user(inv.getArgument(0)));
+            return Optional.of(v);
+        });
+        when(reservationRepository.findVehicleOverlappingReservations(anyLong(), any(), any())).thenReturn(List.of());
+        // cùng điều kiện với query findOverlappingReservations
+        when(reservationRepository.findOverlappingReservations(anyLong(), any(), any())).thenAnswer(inv -> {
+            Long connectorId = inv.getArgument(0);
+            LocalDateTime start = inv.getArgument(1);
+            LocalDateTime end = inv.getArgument(2);
+            return table.stream()
+                    .filter(r -> r.getConnector().getId().equals(connectorId))
+                    .filter(r -> start.isBefore(r.getEndTime()) && end.isAfter(r.getStartTime()))
+                    .toList();
+        });
+        // khoảng hở giữa lúc kiểm tra và lúc ghi, như round-trip tới DB
+        when(reservationRepository.save(any(Reservation.class))).thenAnswer(inv -> {
+            Reservation r = inv.getArgument(0);
+            Thread.yield();
+            r.setId(ids.incrementAndGet());
+            table.add(r);
+            return r;
+        });
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+        reservationService = new ReservationServiceImpl(
+                reservationRepository,
+                userRepository,
+                stationRepository,
+                pillarRepository,
+                connectorRepository,
+                vehicleRepository,
+                mock(WalletRepository.class),
+                mock(PaymentTransactionRepository.class),
+                mock(ApplicationEventPublisher.class),
+                scheduleIndex,
+                new ConnectorBookingLock(connectorRepository),
+                transactionTemplate,
+                mock(ChargingStationService.class),
+                mock(JdbcTemplate.class));
+    }
+
+    @Test
+    void onlyOneOfManyConcurrentBookingsForTheSameSlotWins() throws Exception {
+        LocalDateTime start = LocalDate.now().plusDays(1).atTime(8, 0);
+        int threads = 32;
+        Result result = race(threads, t -> List.of(request(7L, start, start.plusMinutes(50), t)));
+
+        assertThat(result.unexpected).isEmpty();
+        assertThat(result.booked.get()).isEqualTo(1);
+        assertThat(result.rejected.get()).isEqualTo(threads - 1);
+        assertNoDoubleBooking();
+    }
+
+    // 16 thread cùng đi hết 8 connector x 12 slot theo thứ tự ngẫu nhiên: mỗi slot đúng một booking thắng
+    @Test
+    void concurrentBookingsAcrossConnectorsNeverDoubleBook() throws Exception {
+        int threads = 16, connectors = 8, slots = 12;
+        LocalDateTime day = LocalDate.now().plusDays(1).atTime(6, 0);
+        Result result = race(threads, t -> {
+            List<ReservationRequest> requests = new ArrayList<>();
+            for (long c = 1; c <= connectors; c++) {
+                for (int s = 0; s < slots; s++) {
+                    LocalDateTime start = day.plusHours(s);
+                    // 50 phút + 10 phút turnover = vừa khít slot kế tiếp
+                    requests.add(request(c, start, start.plusMinutes(50), t * 10_000L + requests.size()));
+                }
+            }
+            Collections.shuffle(requests, new Random(t));
+            return requests;
+        });
+
+        int attempts = threads * connectors * slots;
+
+        assertThat(result.unexpected).isEmpty();
+        assertThat(result.booked.get()).isEqualTo(connectors * slots);
+        assertThat(result.booked.get() + result.rejected.get()).isEqualTo(attempts);
+        assertNoDoubleBooking();
+    }
+
+    //-------------helper-------
+    private interface Plan {
+        List<ReservationRequest> requests(int thread);
+    }
+
+    private static final class Result {
+        final AtomicInteger booked = new AtomicInteger();
+        final AtomicInteger rejected = new AtomicInteger();
+        final Queue<Throwable> unexpected = new ConcurrentLinkedQueue<>();
+    }
+
+    // tất cả thread cùng xuất phát; BadRequest (trùng lịch) / Conflict (chờ lock quá lâu) là từ chối hợp lệ
+    private Result race(int threads, Plan plan) throws Exception {
+        Result result = new Result();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch ready = new CountDownLatch(threads);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            List<ReservationRequest> requests = plan.requests(t);
+            futures.add(pool.submit(() -> {
+                ready.countDown();
+                go.await();
+                for (ReservationRequest request : requests) {
+                    try {
+                        reservationService.createReservation(request);
+                        result.booked.incrementAndGet();
+                    } catch (AppException.BadRequestException | AppException.ConflictException e) {
+                        result.rejected.incrementAndGet();
+                    } catch (Throwable e) {
+                        result.unexpected.add(e);
+                    }
+                }
+                return null;
+            }));
+        }
+        ready.await();
+        go.countDown();
+        for (Future<?> f : futures) f.get(60, TimeUnit.SECONDS);
+        pool.shutdown();
+        return result;
+    }
+
+    private void assertNoDoubleBooking() {
+        Map<Long, List<Reservation>> byConnector = new HashMap<>();
+        for (Reservation r : table) byConnector.computeIfAbsent(r.getConnector().getId(), k -> new ArrayList<>()).add(r);
+        for (List<Reservation> list : byConnector.values()) {
+            list.sort(Comparator.comparing(Reservation::getStartTime));
+            for (int i = 1; i < list.size(); i++) {
+                LocalDateTime previousEnd = list.get(i - 1).getEndTime().plusMinutes(ReservationScheduleIndex.TURNOVER_MINUTES);
+                assertThat(list.get(i).getStartTime()).isAfterOrEqualTo(previousEnd);
+            }
+        }
+    }
+
+    private static ReservationRequest request(Long connectorId, LocalDateTime start, LocalDateTime end, long vehicleId) {
+        ReservationRequest request = new ReservationRequest();
+        request.setUserId(vehicleId);
+        request.setStationId(STATION_ID);
+        request.setPillarId(PILLAR_ID);
+        request.setConnectorId(connectorId);
+        request.setVehicleId(vehicleId);
+        request.setStartTime(start);
+        request.setEndTime(end);
+        return request;
+    }
+
+    private static User user(Long id) {
+        User user = new User();
+        user.setId(id);
+        return user;
+    }
+}
@@ -0,0 +1,141 @@
+package com.pham.basis.evcharging.service;
+
+import com.pham.basis.evcharging.dto.response.ChargingStationDetailResponse;
+import com.pham.basis.evcharging.mapper.StationMapperImpl;
+import com.pham.basis.evcharging.model.ChargerPillar;
+import com.pham.basis.evcharging.model.ChargingStation;
+import com.pham.basis.evcharging.model.Connector;
+import com.pham.basis.evcharging.service.Impl.ChargingStationServiceImpl;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * getAllStation / getStationDetail phải chạy số query cố định bất kể page size / số pillar, connector (không N+1).
+ * Đếm statement bằng Hibernate Statistics trên H2.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({ChargingStationServiceImpl.class, StationMapperImpl.class})
+class StationDetailQueryCountTest {
+
+    private static final int STATIONS = 30;
+
+    @Autowired
+    private ChargingStationService chargingStationService;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockitoBean
+    private StationSummaryStore summaryStore;
+    @MockitoBean
+    private CloudinaryService cloudinaryService;
+    @MockitoBean
+    private StationSpatialIndex spatialIndex;
+    @MockitoBean
+    private StationFilterIndex filterIndex;
+    @MockitoBean
+    private StationTextIndex textIndex;
+    @MockitoBean
+    private StationClusterIndex clusterIndex;
+    @MockitoBean
+    private StationDetailCache detailCache;
+    @MockitoBean
+    private RouteCorridorFinder routeCorridorFinder;
+    @MockitoBean
+    private StationRankingEngine rankingEngine;
+    @MockitoBean
+    private ReservationScheduleIndex scheduleIndex;
+
+    private Statistics statistics;
+    private Long stationId;
+
+    @BeforeEach
+    void seed() {
+        // summary chưa gắn -> mapper tự duyệt pillars / connectors, đúng trường hợp dễ sinh N+1 nhất
+        when(summaryStore.attach(any())).thenAnswer(inv -> inv.getArgument(0));
+        // bỏ qua detail cache, luôn chạy loader (loadStationDetail)
+        when(detailCache.get(any(), any())).thenAnswer(inv -> {
+            Function<Long, ChargingStationDetailResponse> loader = inv.getArgument(1);
+            return loader.apply(inv.getArgument(0));
+        });
+
+        for (int i = 0; i < STATIONS; i++) {
+            ChargingStation station = new ChargingStation();
+            station.setName("Station " + i);
+            station.setAddress("Address " + i);
+            station.setLatitude(10.7 + i * 0.01);
+            station.setLongitude(106.6 + i * 0.01);
+            station.setStatus("ACTIVE");
+            for (int p = 0; p < 3; p++) {
+                ChargerPillar pillar = new ChargerPillar();
+                pillar.setCode("DC-" + i + "-" + p);
+                pillar.setPower(60.0 + p);
+                pillar.setPricePerKwh(3500.0);
+                for (int c = 0; c < 2; c++) {
+                    Connector connector = new Connector();
+                    connector.setStatus(c == 0 ? "AVAILABLE" : "OCCUPIED");
+                    connector.setType(c == 0 ? "CCS" : "Type2");
+                    pillar.addConnector(connector);
+                }
+                station.addPillar(pillar);
+            }
+            entityManager.persist(station);
+            if (stationId == null) stationId = station.getId();
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    // id page + count + station/pillars + connectors
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10, 25})
+    void getAllStationRunsFixedNumberOfQueries(int size) {
+        Page<ChargingStationDetailResponse> page = chargingStationService.getAllStation(size, 0);
+
+        assertThat(page.getContent()).hasSize(size);
+        assertThat(page.getTotalElements()).isEqualTo(STATIONS);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(4);
+    }
+
+    // station/pillars + connectors
+    @Test
+    void getStationDetailRunsFixedNumberOfQueries() {
+        ChargingStationDetailResponse detail = chargingStationService.getStationDetail(stationId, 10.7, 106.6);
+
+        assertThat(detail.getId()).isEqualTo(stationId);
+        assertThat(detail.getPillars()).hasSize(3);
+        assertThat(detail.getPillars()).allSatisfy(p -> assertThat(p.getConnectors()).hasSize(2));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void getAllStationClampsPageSize() {
+        Page<ChargingStationDetailResponse> page = chargingStationService.getAllStation(10_000, 0);
+
+        assertThat(page.getSize()).isEqualTo(ChargingStationServiceImpl.MAX_PAGE_SIZE);
+        assertThat(page.getContent()).hasSize(STATIONS);
+        // trang cuối không đủ size -> Spring Data bỏ count query
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+    }
+}